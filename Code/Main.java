@@ -22,7 +22,6 @@ public class Main {
      */
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
-        List<Appointment> allAppointments = new ArrayList<>();
         List<User> sharedUserList = new ArrayList<>();
         List<Staff> initialStaffList = new ArrayList<>();
         
@@ -32,9 +31,19 @@ public class Main {
         IPatientHandler patientHandler = new PatientHandler(null);
         IDoctorHandler doctorHandler = new DoctorHandler(null, null);
         IPharmacistHandler pharmacistHandler = new PharmacistHandler(null, null);
-        IAppointmentHandler appointmentHandler = new AppointmentHandler(null, null, null);
+        IAppointmentHandler appointmentHandler = new AppointmentHandler(null, null);
         UserHandler userHandler = new UserHandler(sharedUserList, doctorHandler, appointmentHandler, medicineHandler, prescriptionHandler);
         IStaffHandler staffHandler = new StaffHandler(initialStaffList, sharedUserList, userHandler, medicineHandler, prescriptionHandler, doctorHandler);
+        IAuditHandler auditHandler = new AuditHandler("./datafiles/AuditTrail.txt");
+        IAnalyticsHandler analyticsHandler = new AnalyticsHandler();
+        IDashboardHandler dashboardHandler = new DashboardHandler(doctorHandler);
+        INotificationHandler notificationHandler = new NotificationHandler("./datafiles/Notifications.txt");
+        IReminderHandler reminderHandler = new ReminderHandler(new ReminderFileSink("./datafiles/Reminders.txt"));
+        IAppointmentExpiryHandler expiryHandler = new AppointmentExpiryHandler(appointmentHandler, 48 * 60);
+        IWaitlistHandler waitlistHandler = new WaitlistHandler(appointmentHandler, doctorHandler, patientHandler, 30);
+        INoteSearchHandler noteSearchHandler = new NoteSearchHandler();
+        IInteractionHandler interactionHandler = new InteractionHandler();
+        IAccessControlHandler accessControlHandler = new AccessControlHandler();
 
         //Pre defined timeslot's for demonstration purposes
         TimeSlot slot1 = new TimeSlot(LocalDate.now().plusDays(1), LocalTime.of(9, 30));
@@ -45,25 +54,66 @@ public class Main {
         patientHandler.setAppointmentHandler(appointmentHandler);
         pharmacistHandler.setMedicineHandler(medicineHandler);
         pharmacistHandler.setPrescriptionHandler(prescriptionHandler);
-        appointmentHandler.setAppList(allAppointments);
         appointmentHandler.setDoctorHandler(doctorHandler);
         appointmentHandler.setPatientHandler(patientHandler);
         doctorHandler.setStaffHandler(staffHandler);
         doctorHandler.setPrescriptionHandler(prescriptionHandler);
+        doctorHandler.setAuditHandler(auditHandler);
+        patientHandler.setAuditHandler(auditHandler);
+        userHandler.setAuditHandler(auditHandler);
+        MedicalRecord.setAuditHandler(auditHandler);
+        MedicalRecord.setNoteSearchHandler(noteSearchHandler);
+        userHandler.setNoteSearchHandler(noteSearchHandler);
+        doctorHandler.setInteractionHandler(interactionHandler);
+        userHandler.setInteractionHandler(interactionHandler);
+        accessControlHandler.setDoctorHandler(doctorHandler);
+        patientHandler.setAccessControlHandler(accessControlHandler);
+        doctorHandler.setAccessControlHandler(accessControlHandler);
+        appointmentHandler.setAccessControlHandler(accessControlHandler);
+        userHandler.setAccessControlHandler(accessControlHandler);
+        appointmentHandler.setAnalyticsHandler(analyticsHandler);
+        prescriptionHandler.setAnalyticsHandler(analyticsHandler);
+        userHandler.setAnalyticsHandler(analyticsHandler);
+        appointmentHandler.setDashboardHandler(dashboardHandler);
+        prescriptionHandler.setDashboardHandler(dashboardHandler);
+        medicineHandler.setDashboardHandler(dashboardHandler);
+        pharmacistHandler.setDashboardHandler(dashboardHandler);
+        userHandler.setDashboardHandler(dashboardHandler);
+        appointmentHandler.setNotificationHandler(notificationHandler);
+        userHandler.setNotificationHandler(notificationHandler);
+        notificationHandler.subscribe(reminderHandler);
+        notificationHandler.subscribe(expiryHandler);
+        notificationHandler.subscribe(waitlistHandler);
+        userHandler.setWaitlistHandler(waitlistHandler);
+        userHandler.setPatientHandler(patientHandler);
 
 
         //data file paths
         String staffFilePath = "./datafiles/Staff.txt";  
         String patientFilePath = "./datafiles/Patient.txt";  
         String medicineFilePath = "./datafiles/Medicine.txt";  
+        String rosterFilePath = "./datafiles/Roster.txt";
+        String interactionFilePath = "./datafiles/Interactions.txt";
+        String userFilePath = "./datafiles/Users.bin";
 
         //loading of file files
-        TxtImport.importStaffData(staffFilePath, staffHandler, medicineHandler, pharmacistHandler, doctorHandler, prescriptionHandler);
-        TxtImport.importPatientData(patientFilePath, patientHandler, appointmentHandler);
+        //the binary export is preferred while it is newer than both CSV files
+        if (!BinaryUserFile.isFresherThan(userFilePath, staffFilePath, patientFilePath)
+                || !BinaryUserFile.importUsers(userFilePath, staffHandler, medicineHandler, pharmacistHandler, doctorHandler, prescriptionHandler, patientHandler, appointmentHandler)) {
+            TxtImport.importStaffData(staffFilePath, staffHandler, medicineHandler, pharmacistHandler, doctorHandler, prescriptionHandler);
+            TxtImport.importPatientData(patientFilePath, patientHandler, appointmentHandler);
+        }
         TxtImport.importMedicineData(medicineFilePath, medicineHandler);
+        TxtImport.importRosterData(rosterFilePath, doctorHandler);
+        TxtImport.importInteractionData(interactionFilePath, interactionHandler);
+        userHandler.setUserFilePath(userFilePath);
+        ExportHandler exportHandler = new ExportHandler(staffHandler, patientHandler, medicineHandler, staffFilePath, patientFilePath, medicineFilePath);
+        userHandler.setExportHandler(exportHandler);
+        MedicineReloadHandler medicineReloadHandler = new MedicineReloadHandler(medicineFilePath, medicineHandler);
+        medicineReloadHandler.setDashboardHandler(dashboardHandler);
+        exportHandler.setMedicineReloadHandler(medicineReloadHandler);
 
-        //add all users to shared list
-        sharedUserList.addAll(staffHandler.getAllStaff());
+        //add patients to shared list, staff are added by the staff handler
         sharedUserList.addAll(patientHandler.getAllPatientsInternal());
 
         //set doctor availability based on previous demo timeslots
@@ -73,6 +123,15 @@ public class Main {
 
         //start
         userHandler.startApp();  
+
+        //write out any audit entries and notifications still queued
+        auditHandler.shutdown();
+        notificationHandler.shutdown();
+        reminderHandler.shutdown();
+        expiryHandler.shutdown();
+        waitlistHandler.shutdown();
+        exportHandler.shutdown();
+        medicineReloadHandler.shutdown();
     }
 }
         
\ No newline at end of file
@@ -0,0 +1,140 @@
+package handlers;
+
+import interfaces.IAccessControlHandler;
+import interfaces.IDoctorHandler;
+import resources.Appointment;
+import resources.Permission;
+import resources.Role;
+import userclasses.Doctor;
+import userclasses.User;
+/**
+ * AccessControlHandler - the access control policy every handler consults before acting for a user
+ * Each role holds its permissions as one bitset. When a session opens, the bitset of the user's role is cached on
+ * the user, so a check is a field read and a bit test without allocating. Scoped permissions then check ownership:
+ * a patient owns their own data, a doctor the data of patients whose care team they are in, looked up in the doctor
+ * handler's patient to doctors index, and the participants their appointments. Users outside a session, e.g. a patient accepting a waitlist offer, are checked against their role.
+ */
+public class AccessControlHandler implements IAccessControlHandler {
+
+    private static final long SESSION_BIT = 1L << 63;      /**< marks a user's cached permissions as valid */
+
+    private volatile long[] policy = new long[Role.values().length];     /**< copy-on-write role ordinal to its permission bits */
+    private volatile IDoctorHandler doctorHandler;                        /**< holds the care teams, doctors are refused without it */
+
+    /**
+     * Constructor for AccessControlHandler, starts with the permissions of the hospital's menus
+     */
+    public AccessControlHandler() {
+        grant(Role.PATIENT, Permission.VIEW_MEDICAL_RECORD, Permission.UPDATE_CONTACT_INFO, Permission.VIEW_SCHEDULE,
+                Permission.BOOK_APPOINTMENT, Permission.CHANGE_APPOINTMENT);
+        grant(Role.DOCTOR, Permission.VIEW_MEDICAL_RECORD, Permission.UPDATE_MEDICAL_RECORD, Permission.VIEW_ALL_PATIENTS,
+                Permission.SEARCH_NOTES, Permission.VIEW_SCHEDULE, Permission.SET_AVAILABILITY, Permission.CHANGE_APPOINTMENT,
+                Permission.RESPOND_TO_APPOINTMENT);
+        grant(Role.PHARMACIST, Permission.VIEW_ALL_OUTCOMES, Permission.DISPENSE_PRESCRIPTION, Permission.VIEW_INVENTORY,
+                Permission.REQUEST_REPLENISHMENT);
+        grant(Role.ADMINISTRATOR, Permission.VIEW_ALL_PATIENTS, Permission.VIEW_ALL_APPOINTMENTS, Permission.VIEW_INVENTORY,
+                Permission.MANAGE_INVENTORY, Permission.MANAGE_STAFF, Permission.VIEW_REPORTS, Permission.EXPORT_DATA);
+    }
+
+    /**
+     * setting doctorHandler (to prevent cyclic in Main)
+     * @param dh set doctorHandler
+     */
+    public void setDoctorHandler(IDoctorHandler dh) {
+        this.doctorHandler = dh;
+    }
+
+    /**
+     * grants permissions to a role, taking effect from the next session of its users
+     * @param role the role
+     * @param permissions the permissions to grant
+     */
+    public synchronized void grant(Role role, Permission... permissions) {
+        long[] updated = policy.clone();
+        for (Permission permission : permissions) {
+            updated[role.ordinal()] |= permission.getBit();
+        }
+        policy = updated;
+    }
+
+    /**
+     * caches the permissions of a user for a session, called when the user logs in
+     * @param user the user
+     */
+    public void openSession(User user) {
+        user.setGrantedPermissions(roleBits(user) | SESSION_BIT);
+    }
+
+    /**
+     * drops the permissions cached for a user, called when the session ends
+     * @param user the user
+     */
+    public void closeSession(User user) {
+        user.setGrantedPermissions(0);
+    }
+
+    /**
+     * checks if a user's role has a permission, without checking who owns the resource
+     * @param user the user, null is never allowed
+     * @param permission the permission
+     * @return true if the permission is granted
+     */
+    public boolean isAllowed(User user, Permission permission) {
+        if (user == null) {
+            return false;
+        }
+        long bits = user.getGrantedPermissions();
+        if ((bits & SESSION_BIT) == 0) {
+            bits = roleBits(user);
+        }
+        return (bits & permission.getBit()) != 0;
+    }
+
+    /**
+     * checks if a user has a permission for a patient's data
+     * @param user the user, null is never allowed
+     * @param permission the permission
+     * @param patientIdentifier the Identifier of the patient
+     * @return true if the permission is granted and the user is the patient or in the patient's care team
+     */
+    public boolean isAllowed(User user, Permission permission, String patientIdentifier) {
+        if (!isAllowed(user, permission)) {
+            return false;
+        }
+        if (permission.getScope() == Permission.Scope.NONE) {
+            return true;
+        }
+        if (user.getUserId().equals(patientIdentifier)) {
+            return true;
+        }
+        IDoctorHandler careTeams = doctorHandler;
+        return user instanceof Doctor && careTeams != null && careTeams.isInCareTeam(user.getUserId(), patientIdentifier);
+    }
+
+    /**
+     * checks if a user has a permission for an appointment
+     * @param user the user, null is never allowed
+     * @param permission the permission
+     * @param appointment the appointment
+     * @return true if the permission is granted and the user is the appointment's patient or doctor
+     */
+    public boolean isAllowed(User user, Permission permission, Appointment appointment) {
+        if (!isAllowed(user, permission) || appointment == null) {
+            return false;
+        }
+        if (permission.getScope() == Permission.Scope.NONE) {
+            return true;
+        }
+        return user.getUserId().equals(appointment.getPatientIdentifier())
+                || user.getUserId().equals(appointment.getDoctorIdentifier());
+    }
+
+    /**
+     * get method for the permissions of a user's role
+     * @param user the user
+     * @return the permission bits of the role, 0 if the role has none
+     */
+    private long roleBits(User user) {
+        return policy[Role.of(user).ordinal()];
+    }
+}
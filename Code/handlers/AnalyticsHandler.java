@@ -0,0 +1,341 @@
+package handlers;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import interfaces.IAnalyticsHandler;
+import resources.AppointmentEvent;
+import resources.AppointmentStatus;
+import resources.Medicine;
+import resources.Prescription;
+/**
+ * AnalyticsHandler - management reports over appointments and prescriptions
+ * Keeps a column oriented copy of the facts the reports need: one primitive array per field, with doctor Identifiers and
+ * medicine names dictionary encoded as ints, appointments found by their ordinal and statuses stored as their enum ordinal. Appointment events, passed on by the
+ * appointment handler as each change is made, append or update a row, and each report is a
+ * tight loop over the columns, split into chunks that are counted in parallel and then merged.
+ * The columns are grown and updated in place, so reports count them while holding this handler's lock.
+ */
+public class AnalyticsHandler implements IAnalyticsHandler {
+
+    private static final int CHUNK_ROWS = 1 << 16;      /**< rows counted by one parallel task */
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final String NO_SHOW = "No-show";
+
+    private final CodeDictionary doctorCodes;
+    private final CodeDictionary medicineCodes;
+
+    private int[] rowByOrdinal;             /**< appointment ordinal to row, -1 if it has no row */
+
+    // appointment columns, one entry per row
+    private int[] doctorColumn;
+    private int[] dayColumn;                /**< epoch day of the appointment */
+    private byte[] statusColumn;
+    private long[] bookedColumn;            /**< epoch minute the appointment was booked */
+    private long[] completedColumn;         /**< epoch minute the appointment completed, -1 if not completed */
+    private int appointmentRows;
+
+    // prescription columns, one entry per prescribed medicine
+    private int[] medicineColumn;
+    private int[] quantityColumn;
+    private int prescriptionRows;
+
+    /**
+     * Constructor for AnalyticsHandler, starts with empty columns
+     */
+    public AnalyticsHandler() {
+        this.doctorCodes = new CodeDictionary();
+        this.medicineCodes = new CodeDictionary();
+
+        this.rowByOrdinal = new int[1024];
+        Arrays.fill(rowByOrdinal, -1);
+        this.doctorColumn = new int[1024];
+        this.dayColumn = new int[1024];
+        this.statusColumn = new byte[1024];
+        this.bookedColumn = new long[1024];
+        this.completedColumn = new long[1024];
+        this.medicineColumn = new int[1024];
+        this.quantityColumn = new int[1024];
+    }
+
+    /**
+     * Records that an appointment was booked, appending a row for it, or that the status or time slot of a booked
+     * appointment changed, appointments never booked here are ignored
+     * @param event the appointment event
+     */
+    public synchronized void recordAppointment(AppointmentEvent event) {
+        int ordinal = event.getAppointmentOrdinal();
+        int row = ordinal < rowByOrdinal.length ? rowByOrdinal[ordinal] : -1;
+        if (row >= 0) {
+            update(row, event);
+            return;
+        }
+        if (event.getType() != AppointmentEvent.Type.BOOKED) {
+            return;
+        }
+        if (ordinal >= rowByOrdinal.length) {
+            int length = rowByOrdinal.length;
+            rowByOrdinal = Arrays.copyOf(rowByOrdinal, Math.max(length * 2, ordinal + 1));
+            Arrays.fill(rowByOrdinal, length, rowByOrdinal.length, -1);
+        }
+        row = appointmentRows;
+        rowByOrdinal[ordinal] = row;
+        if (row == doctorColumn.length) {
+            int capacity = row * 2;
+            doctorColumn = Arrays.copyOf(doctorColumn, capacity);
+            dayColumn = Arrays.copyOf(dayColumn, capacity);
+            statusColumn = Arrays.copyOf(statusColumn, capacity);
+            bookedColumn = Arrays.copyOf(bookedColumn, capacity);
+            completedColumn = Arrays.copyOf(completedColumn, capacity);
+        }
+        doctorColumn[row] = doctorCodes.encode(event.getDoctorIdentifier());
+        bookedColumn[row] = minuteOf(event);
+        completedColumn[row] = -1;
+        appointmentRows++;
+        update(row, event);
+    }
+
+    /**
+     * Records that a prescription was issued, appending a row per medicine
+     * @param prescription the prescription issued
+     */
+    public synchronized void recordPrescription(Prescription prescription) {
+        List<Medicine> medicines = prescription.getMedicines();
+        List<Integer> quantities = prescription.getQuantities();
+        for (int i = 0; i < medicines.size(); i++) {
+            if (prescriptionRows == medicineColumn.length) {
+                medicineColumn = Arrays.copyOf(medicineColumn, prescriptionRows * 2);
+                quantityColumn = Arrays.copyOf(quantityColumn, prescriptionRows * 2);
+            }
+            medicineColumn[prescriptionRows] = medicineCodes.encode(medicines.get(i).getName());
+            quantityColumn[prescriptionRows] = quantities.get(i);
+            prescriptionRows++;
+        }
+    }
+
+    /**
+     * Counts appointments per doctor per week, by the date of the appointment
+     * @param from first day of the first week
+     * @param weeks number of weeks to count
+     * @return doctor Identifier to the number of appointments in each week
+     */
+    public synchronized Map<String, int[]> getAppointmentsPerDoctorPerWeek(LocalDate from, int weeks) {
+        int rows = appointmentRows;
+        int doctors = doctorCodes.size();
+        int[] doctorColumn = this.doctorColumn;
+        int[] dayColumn = this.dayColumn;
+        int firstDay = (int) from.toEpochDay();
+        int lastDay = firstDay + weeks * 7;
+        long[] counts = countParallel(rows, doctors * weeks, (start, end, local) -> {
+            for (int row = start; row < end; row++) {
+                int day = dayColumn[row];
+                if (day >= firstDay && day < lastDay) {
+                    local[doctorColumn[row] * weeks + (day - firstDay) / 7]++;
+                }
+            }
+        });
+
+        Map<String, int[]> result = new LinkedHashMap<>();
+        for (int doctor = 0; doctor < doctors; doctor++) {
+            int[] perWeek = new int[weeks];
+            for (int week = 0; week < weeks; week++) {
+                perWeek[week] = (int) counts[doctor * weeks + week];
+            }
+            result.put(doctorCodes.decode(doctor), perWeek);
+        }
+        return result;
+    }
+
+    /**
+     * Share of appointments in each status, confirmed appointments whose date has passed count as "No-show"
+     * @param today the date used to detect no-shows
+     * @return status to fraction of all appointments
+     */
+    public synchronized Map<String, Double> getStatusRates(LocalDate today) {
+        AppointmentStatus[] values = AppointmentStatus.values();
+        int statuses = values.length;
+        int confirmed = AppointmentStatus.CONFIRMED.ordinal();
+        int rows = appointmentRows;
+        byte[] statusColumn = this.statusColumn;
+        int[] dayColumn = this.dayColumn;
+        int todayDay = (int) today.toEpochDay();
+        // the extra last bucket holds no-shows
+        long[] counts = countParallel(rows, statuses + 1, (start, end, local) -> {
+            for (int row = start; row < end; row++) {
+                int status = statusColumn[row];
+                if (status == confirmed && dayColumn[row] < todayDay) {
+                    local[statuses]++;
+                } else {
+                    local[status]++;
+                }
+            }
+        });
+
+        Map<String, Double> rates = new LinkedHashMap<>();
+        if (rows == 0) {
+            return rates;
+        }
+        for (int status = 0; status < statuses; status++) {
+            if (counts[status] > 0) {
+                rates.put(values[status].toString(), counts[status] / (double) rows);
+            }
+        }
+        rates.put(NO_SHOW, counts[statuses] / (double) rows);
+        return rates;
+    }
+
+    /**
+     * The medicines prescribed in the largest total quantity
+     * @param limit the maximum number of medicines to return
+     * @return medicine name and total quantity, largest first
+     */
+    public synchronized List<Map.Entry<String, Long>> getTopPrescribedMedicines(int limit) {
+        int rows = prescriptionRows;
+        int medicines = medicineCodes.size();
+        int[] medicineColumn = this.medicineColumn;
+        int[] quantityColumn = this.quantityColumn;
+        long[] totals = countParallel(rows, medicines, (start, end, local) -> {
+            for (int row = start; row < end; row++) {
+                local[medicineColumn[row]] += quantityColumn[row];
+            }
+        });
+
+        List<Map.Entry<String, Long>> top = new ArrayList<>();
+        IntStream.range(0, medicines).boxed()
+                .sorted(Comparator.comparingLong((Integer medicine) -> totals[medicine]).reversed())
+                .limit(limit)
+                .forEach(medicine -> top.add(new AbstractMap.SimpleEntry<>(medicineCodes.decode(medicine), totals[medicine])));
+        return top;
+    }
+
+    /**
+     * Average time from booking an appointment to completing it
+     * @return the average in hours, or NaN if no appointment was completed
+     */
+    public synchronized double getAverageHoursToCompletion() {
+        int rows = appointmentRows;
+        long[] bookedColumn = this.bookedColumn;
+        long[] completedColumn = this.completedColumn;
+        // bucket 0 sums the minutes, bucket 1 counts completed appointments
+        long[] totals = countParallel(rows, 2, (start, end, local) -> {
+            for (int row = start; row < end; row++) {
+                long completed = completedColumn[row];
+                if (completed >= 0) {
+                    local[0] += completed - bookedColumn[row];
+                    local[1]++;
+                }
+            }
+        });
+        return totals[1] == 0 ? Double.NaN : totals[0] / 60.0 / totals[1];
+    }
+
+    /**
+     * Displays every report
+     */
+    public void displayReports() {
+        LocalDate today = LocalDate.now();
+        LocalDate monday = today.with(DayOfWeek.MONDAY);
+        int weeks = 4;
+
+        System.out.println("\n===========================");
+        System.out.println("Appointments per Doctor per Week (from " + monday + "):");
+        Map<String, int[]> perWeek = getAppointmentsPerDoctorPerWeek(monday, weeks);
+        if (perWeek.isEmpty()) {
+            System.out.println("Notice: No appointments recorded.");
+        }
+        for (Map.Entry<String, int[]> doctor : perWeek.entrySet()) {
+            System.out.println("Doctor Identifier: " + doctor.getKey() + " | " + Arrays.toString(doctor.getValue()));
+        }
+
+        System.out.println("\nAppointment Status Rates:");
+        Map<String, Double> rates = getStatusRates(today);
+        if (rates.isEmpty()) {
+            System.out.println("Notice: No appointments recorded.");
+        }
+        for (Map.Entry<String, Double> rate : rates.entrySet()) {
+            System.out.printf("%s: %.1f%%%n", rate.getKey(), rate.getValue() * 100);
+        }
+
+        System.out.println("\nTop Prescribed Medicines:");
+        List<Map.Entry<String, Long>> top = getTopPrescribedMedicines(5);
+        if (top.isEmpty()) {
+            System.out.println("Notice: No prescriptions recorded.");
+        }
+        for (Map.Entry<String, Long> medicine : top) {
+            System.out.println("Medicine: " + medicine.getKey() + " | Quantity: " + medicine.getValue());
+        }
+
+        double hours = getAverageHoursToCompletion();
+        System.out.println("\nAverage Time from Booking to Completion: "
+                + (Double.isNaN(hours) ? "N/A" : String.format("%.1f hours", hours)));
+        System.out.println("===========================");
+    }
+
+    /**
+     * refreshes the columns of a row that can change after booking
+     * @param row the row of the appointment
+     * @param event the event of the change
+     */
+    private void update(int row, AppointmentEvent event) {
+        statusColumn[row] = (byte) event.getStatus().ordinal();
+        if (event.getTimeSlot() != null) {
+            dayColumn[row] = (int) Math.floorDiv(event.getTimeSlot().getEpochMinute(), MINUTES_PER_DAY);
+        }
+        if (event.getStatus() == AppointmentStatus.COMPLETED && completedColumn[row] < 0) {
+            completedColumn[row] = minuteOf(event);
+        }
+    }
+
+    /**
+     * the time an event happened in epoch minutes, events may be delivered a little later
+     * @param event the appointment event
+     * @return minutes since 1970-01-01 00:00 UTC
+     */
+    private static long minuteOf(AppointmentEvent event) {
+        return event.getTimestamp() / 60000;
+    }
+
+    /**
+     * runs a counting kernel over row chunks in parallel and adds up the per chunk buckets
+     * @param rows number of rows to count
+     * @param buckets number of buckets each kernel writes to
+     * @param kernel the kernel counting a range of rows
+     * @return the merged buckets
+     */
+    private static long[] countParallel(int rows, int buckets, ChunkKernel kernel) {
+        int chunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    long[] local = new long[buckets];
+                    kernel.count(chunk * CHUNK_ROWS, Math.min(rows, (chunk + 1) * CHUNK_ROWS), local);
+                    return local;
+                })
+                .reduce(new long[buckets], (left, right) -> {
+                    long[] merged = new long[buckets];
+                    for (int i = 0; i < buckets; i++) {
+                        merged[i] = left[i] + right[i];
+                    }
+                    return merged;
+                });
+    }
+
+    /**
+     * counts a range of rows into buckets
+     */
+    private interface ChunkKernel {
+        /**
+         * @param start first row, inclusive
+         * @param end last row, exclusive
+         * @param local the buckets of this chunk
+         */
+        void count(int start, int end, long[] local);
+    }
+}
@@ -0,0 +1,207 @@
+package handlers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.IAppointmentExpiryHandler;
+import interfaces.IAppointmentHandler;
+import resources.AppointmentEvent;
+import resources.TimeSlot;
+/**
+ * AppointmentExpiryHandler - declines pending appointments left unanswered, so they stop holding the doctor's slot
+ * A booking expires once it has been pending for the time to live, or when its time slot starts, whichever is first.
+ * Expiries are kept in a timing wheel ordered by minute, so a sweep only touches the bookings that are due.
+ */
+public class AppointmentExpiryHandler implements IAppointmentExpiryHandler {
+
+    private static final long SWEEP_SECONDS = 30;      /**< how often the background sweeper runs */
+
+    private IAppointmentHandler appointmentHandler;
+    private final int ttlMinutes;                                   /**< how long a booking may stay pending */
+    private final TimingWheel<String> expiries;                     /**< appointment Identifiers by expiry minute, guarded by this */
+    private final Map<String, TimingWheel.Timer<String>> timers;    /**< appointment Identifier to its expiry, guarded by this */
+    private final Map<String, Long> bookedMinutes;                  /**< appointment Identifier to the minute it was booked, guarded by this */
+    private final ScheduledExecutorService sweeper;
+    private Flow.Subscription subscription;
+
+    /**
+     * Constructor for AppointmentExpiryHandler, starts the background sweeper
+     * @param appointmentHandler the manager that declines expired appointments
+     * @param ttlMinutes how long a booking may stay pending before it is declined
+     */
+    public AppointmentExpiryHandler(IAppointmentHandler appointmentHandler, int ttlMinutes) {
+        this.appointmentHandler = appointmentHandler;
+        this.ttlMinutes = ttlMinutes;
+        this.expiries = new TimingWheel<>(nowMinute());
+        this.timers = new HashMap<>();
+        this.bookedMinutes = new HashMap<>();
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleAtFixedRate(this::sweep, SWEEP_SECONDS, SWEEP_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * set method for the appointment manager (to prevent cyclic in Main)
+     * @param am the appointment manager
+     */
+    public void setAppointmentHandler(IAppointmentHandler am) {
+        this.appointmentHandler = am;
+    }
+
+    /**
+     * declines every tracked appointment whose expiry has been reached
+     * @return the number of appointments declined
+     */
+    public int sweep() {
+        return sweepTo(nowMinute());
+    }
+
+    /**
+     * get method for the number of pending appointments waiting to expire
+     * @return the number of tracked appointments
+     */
+    public synchronized int getTrackedCount() {
+        return timers.size();
+    }
+
+    /**
+     * stops the background sweeper and the event subscription
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * advances the expiry wheel and declines the appointments that fell due, outside the lock
+     * @param minute the minute to advance to
+     * @return the number of appointments declined
+     */
+    int sweepTo(long minute) {
+        List<String> due = new ArrayList<>();
+        synchronized (this) {
+            expiries.advanceTo(minute, due::add);
+            for (String appointmentIdentifier : due) {
+                timers.remove(appointmentIdentifier);
+                bookedMinutes.remove(appointmentIdentifier);
+            }
+        }
+        int declined = 0;
+        for (String appointmentIdentifier : due) {
+            if (appointmentHandler != null && appointmentHandler.expireAppointment(appointmentIdentifier)) {
+                declined++;
+            }
+        }
+        return declined;
+    }
+
+    /**
+     * requests the first appointment event
+     * @param subscription the subscription to the notification publisher
+     */
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    /**
+     * tracks a booking, moves its expiry on reschedule and stops tracking it once answered, then requests the next event
+     * @param event the appointment event
+     */
+    public void onNext(AppointmentEvent event) {
+        switch (event.getType()) {
+            case BOOKED:
+                track(event.getAppointmentIdentifier(), minuteOf(event), event.getTimeSlot());
+                break;
+            case RESCHEDULED:
+                Long bookedMinute;
+                synchronized (this) {
+                    bookedMinute = bookedMinutes.get(event.getAppointmentIdentifier());
+                }
+                if (bookedMinute != null) {
+                    track(event.getAppointmentIdentifier(), bookedMinute, event.getTimeSlot());
+                }
+                break;
+            default:
+                untrack(event.getAppointmentIdentifier());
+                break;
+        }
+        subscription.request(1);
+    }
+
+    /**
+     * reports that the notification publisher failed, tracked bookings still expire
+     * @param throwable the failure
+     */
+    public void onError(Throwable throwable) {
+        System.out.println("Error: Appointment expiry stopped following appointments: " + throwable.getMessage());
+    }
+
+    /**
+     * nothing to release, tracked bookings still expire until shutdown
+     */
+    public void onComplete() {
+    }
+
+    /**
+     * tracks a booking, replacing its previous expiry
+     * @param appointmentIdentifier the Identifier of the appointment
+     * @param bookedMinute the minute the appointment was booked
+     * @param timeSlot the time slot of the appointment
+     */
+    private synchronized void track(String appointmentIdentifier, long bookedMinute, TimeSlot timeSlot) {
+        untrack(appointmentIdentifier);
+        long expiry = bookedMinute + ttlMinutes;
+        if (timeSlot != null) {
+            expiry = Math.min(expiry, timeSlot.getEpochMinute());
+        }
+        timers.put(appointmentIdentifier, expiries.schedule(appointmentIdentifier, expiry));
+        bookedMinutes.put(appointmentIdentifier, bookedMinute);
+    }
+
+    /**
+     * stops tracking a booking
+     * @param appointmentIdentifier the Identifier of the appointment
+     */
+    private synchronized void untrack(String appointmentIdentifier) {
+        TimingWheel.Timer<String> timer = timers.remove(appointmentIdentifier);
+        if (timer != null) {
+            expiries.cancel(timer);
+        }
+        bookedMinutes.remove(appointmentIdentifier);
+    }
+
+    /**
+     * the minute an event happened, so a backlog on the dispatcher does not stretch the time to live
+     * @param event the appointment event
+     * @return minutes since epoch, in the encoding of TimeSlot
+     */
+    private static long minuteOf(AppointmentEvent event) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getTimestamp()), ZoneId.systemDefault());
+        return TimeSlot.toEpochMinute(time.toLocalDate(), time.toLocalTime());
+    }
+
+    /**
+     * get method for the current minute
+     * @return minutes since epoch, in the encoding of TimeSlot
+     */
+    private static long nowMinute() {
+        return TimeSlot.toEpochMinute(LocalDate.now(), LocalTime.now());
+    }
+}
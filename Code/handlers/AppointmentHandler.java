@@ -1,6 +1,8 @@
 package handlers;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 import interfaces.*;
@@ -8,23 +10,37 @@ import userclasses.*;
 import resources.*;
 /**
  * AppointmentHandler, logic for appointments
+ * Every appointment change is made under this handler's lock. Its events are queued under the lock and published
+ * once the lock is released, so a full publisher buffer never holds up other changes or the subscribers that wait
+ * for this lock.
  */
 public class AppointmentHandler implements IAppointmentHandler {
 
+    private static final String SYSTEM_ACTOR = "System";        /**< actor of changes made by background tasks */
+    private static final String IDENTIFIER_PREFIX = "APT";
+
     private IDoctorHandler doctorHandler;       /**< for doctor-related logic */
     private IPatientHandler patientHandler;     /**< for patient-related logic */
-    private List<Appointment> allAppointments;  /**< list of appointments hospital wide */
+    private Repository<String, Appointment> allAppointments;  /**< appointments hospital wide, from the entity store */
+    private long lastAppointmentNumber;                         /**< number of the last Identifier handed out, guarded by this */
+    private IAnalyticsHandler analyticsHandler;                 /**< told of every appointment event, optional */
+    private IDashboardHandler dashboardHandler;                 /**< told of every appointment event, optional */
+    private INotificationHandler notificationHandler;           /**< for lifecycle notifications, optional */
+    private final Deque<AppointmentEvent> outbox;               /**< events waiting to be published, guarded by this */
+    private final Object publishLock;                           /**< held while publishing, so events go out in the order queued */
+    private IAccessControlHandler accessControlHandler;         /**< consulted before acting for a user */
 
     /**
-     * Constructor for appointment manager
+     * Constructor for appointment manager, appointments are kept in the shared entity store
      * @param doctorHandler  manager responsible for doctor-related logic
      * @param patientHandler manager responsible for patient-related logic
-     * @param allAppointments a list of appointments
      */
-    public AppointmentHandler(IDoctorHandler doctorHandler, IPatientHandler patientHandler,List<Appointment> allAppointments) {
+    public AppointmentHandler(IDoctorHandler doctorHandler, IPatientHandler patientHandler) {
         this.doctorHandler = doctorHandler;
         this.patientHandler = patientHandler;    
-        this.allAppointments = allAppointments;
+        this.allAppointments = EntityStore.getShared().getAppointments();
+        this.outbox = new ArrayDeque<>();
+        this.publishLock = new Object();
     }
 
     /**
@@ -44,11 +60,43 @@ public class AppointmentHandler implements IAppointmentHandler {
     }
 
     /**
-     * setting allAppointment (to prevent cyclic in Main)
-     * @param app set list
+     * setting analyticsHandler (to prevent cyclic in Main)
+     * @param ah set analyticsHandler
+     */
+    public void setAnalyticsHandler(IAnalyticsHandler ah){
+        this.analyticsHandler = ah;
+    }
+
+    /**
+     * setting dashboardHandler (to prevent cyclic in Main)
+     * @param dh set dashboardHandler
+     */
+    public void setDashboardHandler(IDashboardHandler dh){
+        this.dashboardHandler = dh;
+    }
+
+    /**
+     * setting notificationHandler (to prevent cyclic in Main)
+     * @param nh set notificationHandler
+     */
+    public void setNotificationHandler(INotificationHandler nh){
+        this.notificationHandler = nh;
+    }
+
+    /**
+     * setting accessControlHandler (to prevent cyclic in Main)
+     * @param ach set accessControlHandler
+     */
+    public void setAccessControlHandler(IAccessControlHandler ach){
+        this.accessControlHandler = ach;
+    }
+
+    /**
+     * setting the entity store appointments are kept in
+     * @param entityStore the store holding all appointments
      */
-    public void setAppList(List<Appointment> app){
-        this.allAppointments = app;
+    public void setEntityStore(EntityStore entityStore){
+        this.allAppointments = entityStore.getAppointments();
     }
 
     /**
@@ -70,22 +118,51 @@ public class AppointmentHandler implements IAppointmentHandler {
      * @param patient indicating which patient is involved with the appointment
      * @param doctor indicating which doctor is involved with the appointment
      * @param timeSlot the time which the appointment is scheduled
+     * @return true if the appointment was booked, false if it was refused
      */
-    public void scheduleAppointment(Patient patient, Doctor doctor, TimeSlot timeSlot) {
-        if (doctorHandler.isAvailable(doctor, timeSlot)) {
-            String appointmentIdentifier = "APT" + System.currentTimeMillis();
-            Appointment appointment = new Appointment(appointmentIdentifier, patient.getUserId(), doctor.getUserId(), timeSlot, "Pending");
+    public boolean scheduleAppointment(Patient patient, Doctor doctor, TimeSlot timeSlot) {
+        try {
+            synchronized (this) {
+                if (accessControlHandler == null || !accessControlHandler.isAllowed(patient, Permission.BOOK_APPOINTMENT)) {
+                    System.out.println("Access Denied: You are not authorized to book appointments.");
+                    return false;
+                }
+                // take the slot first, a session's places are counted down atomically
+                if (doctor.reserveSlot(timeSlot)) {
+                    Appointment appointment = new Appointment(nextAppointmentIdentifier(), patient.getUserId(), doctor.getUserId(), timeSlot, AppointmentStatus.PENDING);
+                    if (!allAppointments.put(appointment)) {
+                        doctor.addAvailability(timeSlot);
+                        System.out.println("Error: Appointment " + appointment.getAppointmentIdentifier() + " already exists.");
+                        return false;
+                    }
 
-            patient.addAppointment(appointment);
-            doctor.addAppointment(appointment);
-            doctor.removeAvailability(timeSlot);
-            allAppointments.add(appointment);
-            
-        } else {
-            System.out.println("Notice: Doctor is unavailable.");
+                    patient.addAppointment(appointment);
+                    doctor.addAppointment(appointment);
+                    notify(AppointmentEvent.Type.BOOKED, appointment, patient.getUserId(), null);
+                    return true;
+                }
+                System.out.println("Notice: Doctor is unavailable.");
+                return false;
+            }
+        } finally {
+            publishPending();
         }
     }
 
+    /**
+     * hands out an Identifier no stored appointment has, increasing even when two bookings share a millisecond
+     * it starts from the clock so Identifiers stay unique across restarts, and skips any Identifier already loaded
+     * @return the new appointment Identifier
+     */
+    private synchronized String nextAppointmentIdentifier() {
+        long number = Math.max(lastAppointmentNumber + 1, System.currentTimeMillis());
+        while (allAppointments.contains(IDENTIFIER_PREFIX + number)) {
+            number++;
+        }
+        lastAppointmentNumber = number;
+        return IDENTIFIER_PREFIX + number;
+    }
+
     /**
      * Method to reschedule an appointment between patient and doctor
      * @param patient indicating which patient is involved with the appointment
@@ -94,13 +171,23 @@ public class AppointmentHandler implements IAppointmentHandler {
      * @param doctor indicating which doctor is involved with the appointment
      */
     public void rescheduleAppointment(Patient patient, Appointment appointment, TimeSlot newTimeSlot, Doctor doctor) {
-        TimeSlot oldTimeSlot = appointment.getTimeSlot();
-        if (doctorHandler.isAvailable(doctor, newTimeSlot)) {
-            appointment.setTimeSlot(newTimeSlot); //set the appt to new
-            doctor.addAvailability(oldTimeSlot); // add the old time to avail
-            doctor.removeAvailability(newTimeSlot); // remove the new time from avail
-        } else {
-            System.out.println("Notice: Unavailable slot selected.");
+        try {
+            synchronized (this) {
+                if (accessControlHandler == null || !accessControlHandler.isAllowed(patient, Permission.CHANGE_APPOINTMENT, appointment)) {
+                    System.out.println("Access Denied: You are not authorized to reschedule this appointment.");
+                    return;
+                }
+                TimeSlot oldTimeSlot = appointment.getTimeSlot();
+                if (doctor.reserveSlot(newTimeSlot)) { // take the new time from avail
+                    appointment.setTimeSlot(newTimeSlot); //set the appt to new
+                    doctor.addAvailability(oldTimeSlot); // add the old time to avail
+                    notify(AppointmentEvent.Type.RESCHEDULED, appointment, patient.getUserId(), oldTimeSlot);
+                } else {
+                    System.out.println("Notice: Unavailable slot selected.");
+                }
+            }
+        } finally {
+            publishPending();
         }
     }
 
@@ -185,7 +272,7 @@ public class AppointmentHandler implements IAppointmentHandler {
     public List<Appointment> getPastAppointments(Patient patient) {
         List<Appointment> pastAppointments = new ArrayList<>();
         for (Appointment appointment : patient.getAppointments()) {
-            if (appointment.isPast() || "Completed".equalsIgnoreCase(appointment.getStatus())) {
+            if (appointment.isPast() || appointment.getStatus() == AppointmentStatus.COMPLETED) {
                 pastAppointments.add(appointment);
             }
         }
@@ -205,7 +292,7 @@ public class AppointmentHandler implements IAppointmentHandler {
     public List<Appointment> getPastAppointments(Doctor doctor) {
         List<Appointment> pastAppointments = new ArrayList<>();
         for (Appointment appointment : doctor.getAppointments()) {
-            if (appointment.isPast() || "Completed".equalsIgnoreCase(appointment.getStatus())) { 
+            if (appointment.isPast() || appointment.getStatus() == AppointmentStatus.COMPLETED) { 
                 pastAppointments.add(appointment);
             }
         }
@@ -235,7 +322,7 @@ public class AppointmentHandler implements IAppointmentHandler {
 
     /**
      * Method to record a new appointment outcome for an appointment
-     * This allows the doctor to record the outcome of a patient's appointment
+     * This allows the doctor to record the outcome of a patient's appointment, which completes it
      * @param doctor the doctor who wrote the appointment outcome
      * @param patientIdentifier patient associated to this appointment outcome
      * @param appointmentIdentifier the appointment associated to this appointment outcome
@@ -244,17 +331,28 @@ public class AppointmentHandler implements IAppointmentHandler {
      * @param prescription prescription issued for the appointment
      */
     public void recordAppointmentOutcome(Doctor doctor, String patientIdentifier, String appointmentIdentifier, String services, String notes, Prescription prescription) {
-        Appointment appointment = findAppointmentById(appointmentIdentifier);
-        if (appointment == null || !appointment.getDoctorIdentifier().equals(doctor.getUserId())) {
-            System.out.println("Error: Invalid appointment or unauthorized access.");
-            return;
-        }
+        try {
+            synchronized (this) {
+                Appointment appointment = findAppointmentById(appointmentIdentifier);
+                if (appointment == null || accessControlHandler == null
+                        || !appointment.getDoctorIdentifier().equals(doctor.getUserId())
+                        || !accessControlHandler.isAllowed(doctor, Permission.RESPOND_TO_APPOINTMENT, appointment)) {
+                    System.out.println("Error: Invalid appointment or unauthorized access.");
+                    return;
+                }
         
-        Patient patient = patientHandler.findPatientById(patientIdentifier);
-        if (patient != null) {
-            appointment.recordOutcome(services, notes, prescription, patient);
-        } else {
-            System.out.println("Error: Patient not found.");
+                Patient patient = patientHandler.findPatientById(patientIdentifier);
+                if (patient != null) {
+                    appointment.recordOutcome(doctor.getUserId(), services, notes, prescription, patient);
+                    if (appointment.setStatus(AppointmentStatus.COMPLETED)) {
+                        notify(AppointmentEvent.Type.COMPLETED, appointment, doctor.getUserId(), null);
+                    }
+                } else {
+                    System.out.println("Error: Patient not found.");
+                }
+            }
+        } finally {
+            publishPending();
         }
     }
     
@@ -264,10 +362,9 @@ public class AppointmentHandler implements IAppointmentHandler {
      * @return the appointment with the specified appointmentIdentifier
      */
     public Appointment findAppointmentById(String appointmentIdentifier) {
-        for (Appointment appointment : allAppointments) {
-            if (appointment.getAppointmentIdentifier().equals(appointmentIdentifier)) {
-                return appointment;
-            }
+        Appointment appointment = allAppointments.get(appointmentIdentifier);
+        if (appointment != null) {
+            return appointment;
         }
         System.out.println("Error: Appointment " + appointmentIdentifier + " not found.");
         return null;
@@ -313,29 +410,41 @@ public class AppointmentHandler implements IAppointmentHandler {
      * @param appointment the appointment to be accepted
      */
     public void acceptAppointment(Doctor doctor, Appointment appointment) {
-        if (appointment.getDoctorIdentifier().equals(doctor.getUserId())) {
-            if (!doctor.getAppointments().contains(appointment)) {
-                doctor.removeAvailability(appointment.getTimeSlot());
-            }
-            appointment.confirm();
-            if (!allAppointments.contains(appointment)) {
-                allAppointments.add(appointment); 
-            }
-            System.out.println("Notice: Appointment " + appointment.getAppointmentIdentifier() + " accepted.");
+        try {
+            synchronized (this) {
+                if (appointment.getDoctorIdentifier().equals(doctor.getUserId()) && accessControlHandler != null
+                        && accessControlHandler.isAllowed(doctor, Permission.RESPOND_TO_APPOINTMENT, appointment)) {
+                    if (!appointment.getStatus().canTransitionTo(AppointmentStatus.CONFIRMED)) {
+                        System.out.println("Error: Only pending appointments can be accepted.");
+                        return;
+                    }
+                    if (!doctor.getAppointments().contains(appointment)) {
+                        doctor.removeAvailability(appointment.getTimeSlot());
+                    }
+                    appointment.confirm();
+                    if (!allAppointments.contains(appointment.getAppointmentIdentifier())) {
+                        allAppointments.put(appointment); 
+                    }
+                    System.out.println("Notice: Appointment " + appointment.getAppointmentIdentifier() + " accepted.");
+                    notify(AppointmentEvent.Type.ACCEPTED, appointment, doctor.getUserId(), null);
             
-            Patient patient = patientHandler.findPatientById(appointment.getPatientIdentifier());
-            if (patient != null) {
-                if (!patient.getAppointments().contains(appointment)) {
-                    patient.addAppointment(appointment);
-                    System.out.println("Notice: Appointment added to Patient " + patient.getName() + "'s record.");
-                }
+                    Patient patient = patientHandler.findPatientById(appointment.getPatientIdentifier());
+                    if (patient != null) {
+                        if (!patient.getAppointments().contains(appointment)) {
+                            patient.addAppointment(appointment);
+                            System.out.println("Notice: Appointment added to Patient " + patient.getName() + "'s record.");
+                        }
                 
-            } else {
-                System.out.println("Error: Patient not found.");
+                    } else {
+                        System.out.println("Error: Patient not found.");
+                    }
+                    doctorHandler.addToCareTeam(doctor, appointment.getPatientIdentifier());
+                } else {
+                    System.out.println("Access Denied: You are not authorized to accept this appointment.");
+                }
             }
-            doctor.addAssignedPatientIdentifier(patient.getUserId());
-        } else {
-            System.out.println("Access Denied: You are not authorized to accept this appointment.");
+        } finally {
+            publishPending();
         }
     }
 
@@ -345,13 +454,52 @@ public class AppointmentHandler implements IAppointmentHandler {
      * @param appointment the appointment to be declined
      */
     public void declineAppointment(Doctor doctor, Appointment appointment) {
-        if (appointment.getDoctorIdentifier().equals(doctor.getUserId()) && doctor.getAppointments().contains(appointment)) {
-            appointment.setStatus("Declined");
+        try {
+            synchronized (this) {
+                if (appointment.getDoctorIdentifier().equals(doctor.getUserId()) && accessControlHandler != null
+                        && accessControlHandler.isAllowed(doctor, Permission.RESPOND_TO_APPOINTMENT, appointment)
+                        && doctor.getAppointments().contains(appointment)) {
+                    if (!appointment.setStatus(AppointmentStatus.DECLINED)) {
+                        return;
+                    }
 
-            doctor.addAvailability(appointment.getTimeSlot());
-            System.out.println("Appointment " + appointment.getAppointmentIdentifier() + " declined.");
-        } else {
-            System.out.println("Access Denied: You are not authorized to decline this appointment.");
+                    doctor.addAvailability(appointment.getTimeSlot());
+                    System.out.println("Appointment " + appointment.getAppointmentIdentifier() + " declined.");
+                    notify(AppointmentEvent.Type.DECLINED, appointment, doctor.getUserId(), null);
+                } else {
+                    System.out.println("Access Denied: You are not authorized to decline this appointment.");
+                }
+            }
+        } finally {
+            publishPending();
+        }
+    }
+
+    /**
+     * Declines a pending appointment on behalf of the system once it has waited too long for the doctor,
+     * the slot is returned to the doctor's availability unless it has already passed
+     * Runs on the expiry sweeper, under this handler's lock like every other appointment change, and the status
+     * itself is changed atomically on the appointment, so menu readers never see a half applied expiry
+     * @param appointmentIdentifier the Identifier of the appointment
+     * @return true if the appointment was still pending and is now declined
+     */
+    public boolean expireAppointment(String appointmentIdentifier) {
+        try {
+            synchronized (this) {
+                Appointment appointment = allAppointments.get(appointmentIdentifier);
+                if (appointment == null || appointment.getStatus() != AppointmentStatus.PENDING
+                        || !appointment.setStatus(AppointmentStatus.DECLINED)) {
+                    return false;
+                }
+                Doctor doctor = doctorHandler.findDoctorById(appointment.getDoctorIdentifier());
+                if (doctor != null && !appointment.isPast()) {
+                    doctor.addAvailability(appointment.getTimeSlot());
+                }
+                notify(AppointmentEvent.Type.DECLINED, appointment, SYSTEM_ACTOR, null);
+                return true;
+            }
+        } finally {
+            publishPending();
         }
     }
 
@@ -361,32 +509,28 @@ public class AppointmentHandler implements IAppointmentHandler {
      * @param caller the user who requested the cancellation (doctor or patient)
      */
     public void cancelAppointment(Appointment appointment, User caller) {
-        if (caller instanceof Doctor) {
-            Doctor doctor = (Doctor) caller;
-            if (appointment.getDoctorIdentifier().equals(doctor.getUserId())) {
-                Patient patient = patientHandler.findPatientById(appointment.getPatientIdentifier());
-                if (patient != null) {
-                    // Cancel appointment for both doctor and patient
-                    appointment.cancel();
-                    patient.removeAppointment(appointment);
-                    doctor.removeAppointment(appointment);
-                    doctor.addAvailability(appointment.getTimeSlot());
-                    System.out.println("Appointment " + appointment.getAppointmentIdentifier() + "canceled.");
+        try {
+            synchronized (this) {
+                if (accessControlHandler == null || !accessControlHandler.isAllowed(caller, Permission.CHANGE_APPOINTMENT, appointment)) {
+                    System.out.println("Access Denied: You are not authorized to cancel this appointment.");
+                    return;
                 }
-            }
-        } else if (caller instanceof Patient) {
-            Patient patient = (Patient) caller;
-            if (appointment.getPatientIdentifier().equals(patient.getUserId())) {
+                Patient patient = patientHandler.findPatientById(appointment.getPatientIdentifier());
                 Doctor doctor = doctorHandler.findDoctorById(appointment.getDoctorIdentifier());
-                if (doctor != null) {
-                    // Cancel appointment for both patient and doctor
-                    appointment.cancel();
+                if (patient != null && doctor != null) {
+                    // Cancel appointment for both doctor and patient
+                    if (!appointment.cancel()) {
+                        return;
+                    }
                     patient.removeAppointment(appointment);
                     doctor.removeAppointment(appointment);
                     doctor.addAvailability(appointment.getTimeSlot());
                     System.out.println("Appointment " + appointment.getAppointmentIdentifier() + "canceled.");
+                    notify(AppointmentEvent.Type.CANCELLED, appointment, caller.getUserId(), null);
                 }
             }
+        } finally {
+            publishPending();
         }
     }
 
@@ -398,13 +542,13 @@ public class AppointmentHandler implements IAppointmentHandler {
      */
     public void viewAllAppointmentOutcome(Staff caller) {
         // Ensure only pharmacists can view all outcomes
-        if (caller == null || !"Pharmacist".equalsIgnoreCase(caller.getRole())) {
+        if (accessControlHandler == null || !accessControlHandler.isAllowed(caller, Permission.VIEW_ALL_OUTCOMES)) {
             System.out.println("Access Denied: Only pharmacists are allowed to view all appointment outcomes.");
             return;
         }
         System.out.println("\n===========================\n");
         System.out.println("--- All Appointment Outcomes ---");
-        for (Appointment appointment : allAppointments) {
+        for (Appointment appointment : allAppointments.values()) {
             AppointmentOutcome outcome = appointment.getOutcome();
     
             if (outcome != null) {
@@ -424,8 +568,8 @@ public class AppointmentHandler implements IAppointmentHandler {
      */
     public List<AppointmentOutcome> getOutcomesByPatientIdentifier(String patientIdentifier) {
         List<AppointmentOutcome> outcomes = new ArrayList<>();
-        for (Appointment appointment : allAppointments) {
-            if (appointment.getPatientIdentifier().equals(patientIdentifier) && appointment.getOutcome() != null) {
+        for (Appointment appointment : allAppointments.findBy("patient", patientIdentifier)) {
+            if (appointment.getOutcome() != null) {
                 outcomes.add(appointment.getOutcome());
             }
         }
@@ -447,5 +591,53 @@ public class AppointmentHandler implements IAppointmentHandler {
             System.out.println(outcome);
             }
         }
-    }    
-}
\ No newline at end of file
+    }
+
+    /**
+     * Publishes the events queued by appointment changes, in the order they were made
+     * Does nothing while the calling thread holds this handler's lock, the events are then published by the caller
+     * once it has released the lock, or by the next change
+     */
+    public void publishPending() {
+        if (notificationHandler == null || Thread.holdsLock(this)) {
+            return;
+        }
+        synchronized (publishLock) {
+            AppointmentEvent event;
+            while ((event = takeQueuedEvent()) != null) {
+                notificationHandler.publish(event);
+            }
+        }
+    }
+
+    /**
+     * takes the oldest event waiting to be published
+     * @return the event, or null if none is waiting
+     */
+    private synchronized AppointmentEvent takeQueuedEvent() {
+        return outbox.pollFirst();
+    }
+
+    /**
+     * reports a lifecycle event of an appointment to analytics and the dashboard, then queues it to be published
+     * once this handler's lock is released, if a notification handler is set
+     * Analytics and the dashboard are told directly under this handler's lock, so they see every event in the order
+     * the changes were made and none is lost to a full publisher buffer
+     * @param type the kind of change
+     * @param appointment the appointment that changed
+     * @param actorIdentifier the user who made the change
+     * @param previousTimeSlot the time slot before a reschedule, or null
+     */
+    private void notify(AppointmentEvent.Type type, Appointment appointment, String actorIdentifier, TimeSlot previousTimeSlot) {
+        AppointmentEvent event = new AppointmentEvent(type, appointment, actorIdentifier, previousTimeSlot);
+        if (analyticsHandler != null) {
+            analyticsHandler.recordAppointment(event);
+        }
+        if (dashboardHandler != null) {
+            dashboardHandler.recordAppointment(event);
+        }
+        if (notificationHandler != null) {
+            outbox.addLast(event);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package handlers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.IAuditHandler;
+import resources.AuditEntry;
+/**
+ * AuditHandler - append only, hash chained audit trail of medical record access
+ * Callers only queue the entry, a background thread chains and writes them to the file in batches
+ * Entries are refused, loudly, once the trail cannot be appended to: when the existing file does not end in a
+ * well formed entry, so the chain is never silently restarted, or when the writer failed, so they do not pile up
+ */
+public class AuditHandler implements IAuditHandler {
+
+    private static final String GENESIS_HASH = "0".repeat(64);    /**< previous hash of the first entry */
+    private static final int BATCH_SIZE = 512;                      /**< max entries written per flush */
+    private static final int QUEUE_CAPACITY = 65536;                /**< max entries waiting for the writer */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path filePath;
+    private final BlockingQueue<AuditEntry> pendingEntries;
+    private final Thread writerThread;       /**< null if the trail could not be continued */
+    private final MessageDigest digest;     /**< only used by the writer thread */
+    private volatile boolean running;
+    private volatile boolean accepting;     /**< false once entries can no longer be written */
+    private long lastSequence;
+    private String lastHash;
+
+    /**
+     * Constructor for AuditHandler
+     * Continues the chain from the last entry of an existing audit file and starts the background writer
+     * @param filePath path to the audit trail file
+     */
+    public AuditHandler(String filePath) {
+        this.filePath = Paths.get(filePath);
+        this.pendingEntries = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        this.digest = newDigest();
+        this.lastSequence = 0;
+        this.lastHash = GENESIS_HASH;
+        if (!loadChainTail()) {
+            System.out.println("Error: Audit trail " + this.filePath + " does not end in a valid entry, no access will be recorded until it is repaired.");
+            this.accepting = false;
+            this.writerThread = null;
+            return;
+        }
+
+        this.running = true;
+        this.accepting = true;
+        this.writerThread = new Thread(this::runWriter, "audit-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * queue a read of a patient's medical record
+     * @param actorIdentifier the user reading the record
+     * @param patientIdentifier the patient whose record was read
+     * @param entryType the part of the record that was read
+     * @return true if the entry was queued, false if the audit trail is not being written
+     */
+    public boolean recordRead(String actorIdentifier, String patientIdentifier, String entryType) {
+        return record(new AuditEntry(System.currentTimeMillis(), actorIdentifier, patientIdentifier, "READ", entryType));
+    }
+
+    /**
+     * queue a write to a patient's medical record
+     * @param actorIdentifier the user changing the record
+     * @param patientIdentifier the patient whose record was changed
+     * @param entryType the type of entry added
+     * @return true if the entry was queued, false if the audit trail is not being written
+     */
+    public boolean recordWrite(String actorIdentifier, String patientIdentifier, String entryType) {
+        return record(new AuditEntry(System.currentTimeMillis(), actorIdentifier, patientIdentifier, "WRITE", entryType));
+    }
+
+    /**
+     * queues an entry for the writer, or reports that it was refused
+     * @param entry the entry to queue
+     * @return true if the entry was queued
+     */
+    private boolean record(AuditEntry entry) {
+        if (accepting && pendingEntries.offer(entry)) {
+            return true;
+        }
+        System.out.println("Error: Audit trail unavailable, " + entry.getAction() + " of " + entry.getEntryType()
+                + " for " + entry.getPatientIdentifier() + " was not recorded.");
+        return false;
+    }
+
+    /**
+     * verify the audit trail file of this handler
+     * entries still queued are not on disk yet and will be covered by the next verification
+     * @return a boolean indicating whether the audit trail is intact
+     */
+    public boolean verifyAuditTrail() {
+        return verifyAuditTrail(filePath.toString());
+    }
+
+    /**
+     * stop the background writer once every queued entry is written
+     */
+    public void shutdown() {
+        running = false;
+        if (writerThread == null) {
+            return;
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Re-walks an audit trail file and recomputes every hash in the chain
+     * @param filePath path to the audit trail file
+     * @return a boolean indicating whether the audit trail is intact
+     */
+    public static boolean verifyAuditTrail(String filePath) {
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) {
+            System.out.println("Notice: No audit trail recorded yet.");
+            return true;
+        }
+
+        MessageDigest digest = newDigest();
+        String expectedPrevious = GENESIS_HASH;
+        long expectedSequence = 1;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int hashStart = line.lastIndexOf(',');
+                int previousStart = hashStart > 0 ? line.lastIndexOf(',', hashStart - 1) : -1;
+                int sequenceEnd = line.indexOf(',');
+                if (previousStart <= 0 || sequenceEnd <= 0) {
+                    System.out.println("Error: Audit trail malformed at entry " + expectedSequence + ".");
+                    return false;
+                }
+                String content = line.substring(0, previousStart);
+                String previousHash = line.substring(previousStart + 1, hashStart);
+                String hash = line.substring(hashStart + 1);
+
+                if (!content.startsWith(expectedSequence + ",")
+                        || !previousHash.equals(expectedPrevious)
+                        || !hash.equals(hash(digest, previousHash, content))) {
+                    System.out.println("Error: Audit trail broken at entry " + expectedSequence + ".");
+                    return false;
+                }
+                expectedPrevious = hash;
+                expectedSequence++;
+            }
+        } catch (IOException e) {
+            System.out.println("Error: Unable to read audit trail: " + e.getMessage());
+            return false;
+        }
+        System.out.println("Notice: Audit trail intact (" + (expectedSequence - 1) + " entries).");
+        return true;
+    }
+
+    /**
+     * background loop, drains the queue in batches, chains each entry and flushes once per batch
+     */
+    private void runWriter() {
+        List<AuditEntry> batch = new ArrayList<>(BATCH_SIZE);
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (running || !pendingEntries.isEmpty()) {
+                AuditEntry first = pendingEntries.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pendingEntries.drainTo(batch, BATCH_SIZE - 1);
+                for (AuditEntry entry : batch) {
+                    lastSequence++;
+                    entry.chain(lastSequence, lastHash);
+                    String hash = hash(digest, lastHash, entry.getContent());
+                    entry.setHash(hash);
+                    writer.write(entry.toString());
+                    writer.newLine();
+                    lastHash = hash;
+                }
+                writer.flush();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            accepting = false;
+            int lost = batch.size() + pendingEntries.size();
+            pendingEntries.clear();
+            System.out.println("Error: Unable to write audit trail: " + e.getMessage() + ", " + lost
+                    + " entries lost and no further access will be recorded.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * reads the last line of an existing audit file so new entries continue the same chain
+     * @return true if the file is new, empty or ends in a well formed entry, false if the chain cannot be continued
+     */
+    private boolean loadChainTail() {
+        if (!Files.exists(filePath)) {
+            return true;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(filePath.toFile(), "r")) {
+            long length = file.length();
+            if (length == 0) {
+                return true;
+            }
+            int tailSize = (int) Math.min(length, 4096);
+            byte[] tail = new byte[tailSize];
+            file.seek(length - tailSize);
+            file.readFully(tail);
+
+            String[] lines = new String(tail, StandardCharsets.UTF_8).split("\n");
+            String lastLine = lines[lines.length - 1].trim();
+            String[] data = lastLine.split(",");
+            if (data.length != 8 || !data[7].matches("[0-9a-f]{64}")) {
+                return false;
+            }
+            lastSequence = Long.parseLong(data[0]);
+            lastHash = data[7];
+            return lastSequence > 0;
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error: Unable to read audit trail: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * hashes an entry over the hash of the entry before it
+     * @param digest the digest to reuse
+     * @param previousHash hash of the previous entry
+     * @param content the content of this entry
+     * @return the hex encoded SHA-256 hash
+     */
+    private static String hash(MessageDigest digest, String previousHash, String content) {
+        digest.reset();
+        digest.update(previousHash.getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ',');
+        byte[] bytes = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * creates a SHA-256 digest, which every Java runtime is required to provide
+     * @return the digest
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package handlers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import userclasses.*;
+import interfaces.*;
+/**
+ * A class to export the user base to a compact binary file and load it back, instead of re-parsing the CSV files.
+ * Layout, all fixed width fields 4 byte big endian:
+ *   header  magic "HMSU", version (1 byte)
+ *   records one per user: tag (1 byte), then its fields in the order written below
+ *           strings are a varint of the UTF-8 length plus one (0 for null) followed by the bytes,
+ *           symbols (gender, blood type, role) are written once and then referred to by their number,
+ *           numbers are unsigned LEB128 varints, dates are zigzag varints of the epoch day
+ *   index   the offset of every record, for reading a record by its position
+ *   footer  offset of the index, number of records, CRC32 of everything before the footer, magic
+ * The file is memory mapped on load and is limited to 2 GB. Users are only added once the checksum matches and
+ * every record has decoded, so a damaged file leaves the user base untouched and the caller can fall back to
+ * the CSV files.
+ */
+public class BinaryUserFile {
+
+    private static final int MAGIC = 0x484D5355;    /**< "HMSU" */
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final int FOOTER_SIZE = 16;
+    private static final int MAX_SYMBOLS = 256;     /**< symbols numbered per file, later new values are written in full */
+
+    private static final byte PATIENT = 0;
+    private static final byte DOCTOR = 1;
+    private static final byte PHARMACIST = 2;
+    private static final byte ADMINISTRATOR = 3;
+
+    private static final int FIRST_LOGIN = 1;       /**< flag bit set while the user still has to change password */
+
+    /**
+     * Default constructor for BinaryUserFile.
+     */
+    public BinaryUserFile() {
+    }
+
+    /**
+     * checks if a binary file exists and was written after every one of its source files
+     * @param filePath the binary file
+     * @param sourcePaths the CSV files it was exported from
+     * @return true if the binary file can be loaded instead of the sources
+     */
+    public static boolean isFresherThan(String filePath, String... sourcePaths) {
+        File file = new File(filePath);
+        if (!file.isFile()) {
+            return false;
+        }
+        for (String sourcePath : sourcePaths) {
+            if (new File(sourcePath).lastModified() > file.lastModified()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method to export every patient and staff member to the binary file
+     * @param filePath the filepath to write
+     * @param users the users to export
+     * @return true if the file was written
+     */
+    public static boolean exportUsers(String filePath, List<? extends User> users) {
+        try (Writer writer = new Writer(new FileOutputStream(filePath))) {
+            writer.writeInt(MAGIC);
+            writer.writeByte(VERSION);
+            int[] offsets = new int[users.size()];
+            int count = 0;
+            for (User user : users) {
+                offsets[count++] = writer.position();
+                writeUser(writer, user);
+            }
+            int indexOffset = writer.position();
+            for (int i = 0; i < count; i++) {
+                writer.writeInt(offsets[i]);
+            }
+            int checksum = writer.checksum();
+            writer.writeInt(indexOffset);
+            writer.writeInt(count);
+            writer.writeInt(checksum);
+            writer.writeInt(MAGIC);
+        } catch (IOException e) {
+            System.out.println("Error: Could not write " + filePath + ": " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method to load patients and staff from the binary file and initialize them
+     * @param filePath the filepath to the binary file
+     * @param staffManager the manager responsible for handling staff-related operations
+     * @param medicineManager the manager responsible for handling medicine-related operations
+     * @param pharmacistManager the manager responsible for handling pharmacist-related operations
+     * @param doctorManager the manager responsible for handling doctor-related operations
+     * @param prescriptionManager the manager responsible for handling prescription-related operations
+     * @param patientManager the manager responsible for handling patient-related operations
+     * @param appointmentManager the manager responsible for handling appointment-related operations
+     * @return true if the file was loaded, false if it is missing or damaged and nothing was added
+     */
+    public static boolean importUsers(String filePath, IStaffHandler staffManager, IMedicineHandler medicineManager, IPharmacistHandler pharmacistManager, IDoctorHandler doctorManager, IPrescriptionHandler prescriptionManager, IPatientHandler patientManager, IAppointmentHandler appointmentManager) {
+        List<User> users;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE || size > Integer.MAX_VALUE) {
+                System.out.println("Error: Invalid user file: " + filePath + ".");
+                return false;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION || buffer.getInt((int) size - 4) != MAGIC) {
+                System.out.println("Error: Invalid user file: " + filePath + ".");
+                return false;
+            }
+            int indexOffset = buffer.getInt((int) size - FOOTER_SIZE);
+            int count = buffer.getInt((int) size - 12);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit((int) size - FOOTER_SIZE));
+            if (count < 0 || indexOffset < HEADER_SIZE || indexOffset + (long) count * 4 != size - FOOTER_SIZE
+                    || (int) crc.getValue() != buffer.getInt((int) size - 8)) {
+                System.out.println("Error: Invalid user file: " + filePath + ".");
+                return false;
+            }
+
+            Reader reader = new Reader(buffer);
+            buffer.position(HEADER_SIZE);
+            users = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (buffer.position() != buffer.getInt(indexOffset + i * 4)) {
+                    System.out.println("Error: Invalid user file: " + filePath + ".");
+                    return false;
+                }
+                users.add(readUser(reader, staffManager, medicineManager, pharmacistManager, doctorManager, prescriptionManager, patientManager, appointmentManager));
+            }
+            if (buffer.position() != indexOffset) {
+                System.out.println("Error: Invalid user file: " + filePath + ".");
+                return false;
+            }
+        } catch (NoSuchFileException e) {
+            System.out.println("Error: File not found: " + filePath + ".");
+            return false;
+        } catch (IOException e) {
+            System.out.println("Error: Could not read " + filePath + ": " + e.getMessage());
+            return false;
+        } catch (BufferUnderflowException | IllegalArgumentException | DateTimeException e) {
+            System.out.println("Error: Invalid user file: " + filePath + ".");
+            return false;
+        }
+
+        for (User user : users) {
+            if (user instanceof Patient) {
+                patientManager.addPatient((Patient) user);
+            } else {
+                staffManager.addStaff((Staff) user);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * writes one user record
+     * @param writer the file being written
+     * @param user the user
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeUser(Writer writer, User user) throws IOException {
+        if (user instanceof Patient) {
+            Patient patient = (Patient) user;
+            writer.writeByte(PATIENT);
+            writeCommon(writer, patient);
+            writer.writeVarint(zigzag(patient.getDateOfBirth().toEpochDay()));
+            writer.writeSymbol(patient.getBloodType());
+            writer.writeString(patient.getContactInfo());
+            writer.writeVarint(Integer.toUnsignedLong(patient.getPhoneNumber()));
+        } else {
+            Staff staff = (Staff) user;
+            writer.writeByte(staff instanceof Doctor ? DOCTOR : staff instanceof Pharmacist ? PHARMACIST : ADMINISTRATOR);
+            writeCommon(writer, staff);
+            writer.writeSymbol(staff.getRole());
+            writer.writeVarint(Integer.toUnsignedLong(staff.getAge()));
+        }
+        writer.writeByte(user.isFirstLogin() ? FIRST_LOGIN : 0);
+    }
+
+    /**
+     * writes the fields every user has
+     * @param writer the file being written
+     * @param user the user
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeCommon(Writer writer, User user) throws IOException {
+        writer.writeString(user.getUserId());
+        writer.writeString(user.getPassword());
+        writer.writeString(user.getName());
+        writer.writeSymbol(user.getGender());
+    }
+
+    /**
+     * reads one user record and creates the user, without adding it to any manager
+     * @param reader the file being read
+     * @param staffManager the manager responsible for handling staff-related operations
+     * @param medicineManager the manager responsible for handling medicine-related operations
+     * @param pharmacistManager the manager responsible for handling pharmacist-related operations
+     * @param doctorManager the manager responsible for handling doctor-related operations
+     * @param prescriptionManager the manager responsible for handling prescription-related operations
+     * @param patientManager the manager responsible for handling patient-related operations
+     * @param appointmentManager the manager responsible for handling appointment-related operations
+     * @return the user
+     */
+    private static User readUser(Reader reader, IStaffHandler staffManager, IMedicineHandler medicineManager, IPharmacistHandler pharmacistManager, IDoctorHandler doctorManager, IPrescriptionHandler prescriptionManager, IPatientHandler patientManager, IAppointmentHandler appointmentManager) {
+        byte tag = reader.readByte();
+        String userId = reader.readString();
+        String password = reader.readString();
+        String name = reader.readString();
+        String gender = reader.readSymbol();
+        User user;
+        if (tag == PATIENT) {
+            LocalDate dateOfBirth = LocalDate.ofEpochDay(unzigzag(reader.readVarint()));
+            String bloodType = reader.readSymbol();
+            String contactInfo = reader.readString();
+            int phoneNumber = (int) reader.readVarint();
+            user = new Patient(userId, password, name, gender, dateOfBirth, bloodType, contactInfo, phoneNumber, patientManager, appointmentManager);
+        } else {
+            String role = reader.readSymbol();
+            int age = (int) reader.readVarint();
+            if (tag == DOCTOR) {
+                user = new Doctor(userId, password, name, gender, role, age, doctorManager);
+            } else if (tag == PHARMACIST) {
+                user = new Pharmacist(userId, password, name, gender, role, age, pharmacistManager, prescriptionManager);
+            } else if (tag == ADMINISTRATOR) {
+                user = new Administrator(userId, password, name, gender, role, age, staffManager, medicineManager);
+            } else {
+                throw new IllegalArgumentException("Unknown record tag " + tag);
+            }
+        }
+        user.setFirstLogin((reader.readByte() & FIRST_LOGIN) != 0);
+        return user;
+    }
+
+    /**
+     * maps a signed number to an unsigned one so small negative numbers stay short as varints
+     * @param value the signed number
+     * @return the zigzag encoding
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * reverses the zigzag encoding
+     * @param value the zigzag encoding
+     * @return the signed number
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writer class, buffers output itself and keeps the running checksum and position of what was written
+     */
+    private static final class Writer implements AutoCloseable {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1 << 16];
+        private final CRC32 crc = new CRC32();
+        private final Map<String, Integer> symbols = new HashMap<>();
+        private int buffered;
+        private long position;
+
+        /**
+         * Constructor for Writer
+         * @param out the stream to write to
+         */
+        private Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * get method for position
+         * @return number of bytes written so far
+         * @throws IOException if the file has grown past what can be mapped
+         */
+        private int position() throws IOException {
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("file is larger than 2 GB");
+            }
+            return (int) position;
+        }
+
+        /**
+         * get method for the checksum
+         * @return the CRC32 of every byte written so far
+         * @throws IOException if the stream cannot be written
+         */
+        private int checksum() throws IOException {
+            flush();
+            return (int) crc.getValue();
+        }
+
+        /**
+         * writes the low 8 bits of a value
+         * @param value the byte to write
+         * @throws IOException if the stream cannot be written
+         */
+        private void writeByte(int value) throws IOException {
+            if (buffered == buffer.length) {
+                flush();
+            }
+            buffer[buffered++] = (byte) value;
+            position++;
+        }
+
+        /**
+         * writes a 4 byte big endian number
+         * @param value the number
+         * @throws IOException if the stream cannot be written
+         */
+        private void writeInt(int value) throws IOException {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        /**
+         * writes an unsigned LEB128 varint, 7 bits per byte with the high bit set on every byte but the last
+         * @param value the number, treated as unsigned
+         * @throws IOException if the stream cannot be written
+         */
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        /**
+         * writes a string as its UTF-8 length plus one and its bytes, null as a length of 0
+         * @param value the string, may be null
+         * @throws IOException if the stream cannot be written
+         */
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+
+        /**
+         * writes a value that repeats across users, the first time in full and numbered, after that by its number
+         * the low bit of the leading varint tells which: 1 for a number, 0 for a string followed by its bytes
+         * @param value the value, may be null
+         * @throws IOException if the stream cannot be written
+         */
+        private void writeSymbol(String value) throws IOException {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer number = symbols.get(value);
+            if (number != null) {
+                writeVarint(((long) number << 1) | 1);
+                return;
+            }
+            if (symbols.size() < MAX_SYMBOLS) {
+                symbols.put(value, symbols.size());
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint((bytes.length + 1L) << 1);
+            writeBytes(bytes);
+        }
+
+        /**
+         * writes raw bytes
+         * @param bytes the bytes
+         * @throws IOException if the stream cannot be written
+         */
+        private void writeBytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - buffered) {
+                flush();
+            }
+            if (bytes.length > buffer.length) {
+                crc.update(bytes);
+                out.write(bytes);
+            } else {
+                System.arraycopy(bytes, 0, buffer, buffered, bytes.length);
+                buffered += bytes.length;
+            }
+            position += bytes.length;
+        }
+
+        /**
+         * writes out the buffer and adds it to the checksum
+         * @throws IOException if the stream cannot be written
+         */
+        private void flush() throws IOException {
+            crc.update(buffer, 0, buffered);
+            out.write(buffer, 0, buffered);
+            buffered = 0;
+        }
+
+        /**
+         * writes out the buffer and closes the stream
+         * @throws IOException if the stream cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reader class, decodes fields from the mapped file at its current position
+     */
+    private static final class Reader {
+        private final MappedByteBuffer buffer;
+        private final List<String> symbols = new ArrayList<>();
+        private byte[] scratch = new byte[64];      /**< reused for string bytes, grown when a longer string is read */
+
+        /**
+         * Constructor for Reader
+         * @param buffer the mapped file
+         */
+        private Reader(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * reads one byte
+         * @return the byte
+         */
+        private byte readByte() {
+            return buffer.get();
+        }
+
+        /**
+         * reads an unsigned LEB128 varint
+         * @return the number
+         */
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint too long");
+        }
+
+        /**
+         * reads a string written by writeString
+         * @return the string, or null
+         */
+        private String readString() {
+            return readBytes(readVarint() - 1);
+        }
+
+        /**
+         * reads a value written by writeSymbol
+         * @return the value, or null
+         */
+        private String readSymbol() {
+            long lead = readVarint();
+            if (lead == 0) {
+                return null;
+            }
+            if ((lead & 1) != 0) {
+                long number = lead >>> 1;
+                if (number >= symbols.size()) {
+                    throw new IllegalArgumentException("Unknown symbol " + number);
+                }
+                return symbols.get((int) number);
+            }
+            String value = readBytes((lead >>> 1) - 1);
+            if (symbols.size() < MAX_SYMBOLS) {
+                symbols.add(value);
+            }
+            return value;
+        }
+
+        /**
+         * reads UTF-8 bytes as a string
+         * @param length the number of bytes, negative for null
+         * @return the string, or null
+         */
+        private String readBytes(long length) {
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.remaining()) {
+                throw new IllegalArgumentException("String runs past the end of the file");
+            }
+            if (length > scratch.length) {
+                scratch = new byte[(int) length];
+            }
+            buffer.get(scratch, 0, (int) length);
+            return new String(scratch, 0, (int) length, StandardCharsets.UTF_8);
+        }
+    }
+}
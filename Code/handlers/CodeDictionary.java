@@ -0,0 +1,65 @@
+package handlers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CodeDictionary - dictionary encoding of strings
+ * Each distinct value gets a dense int code in order of first appearance, so columns can hold ints instead of strings
+ */
+public class CodeDictionary {
+    private final Map<String, Integer> codes;   /**< value to code */
+    private final List<String> values;          /**< code to value */
+
+    /**
+     * Constructor for CodeDictionary, starts empty
+     */
+    public CodeDictionary() {
+        this.codes = new HashMap<>();
+        this.values = new ArrayList<>();
+    }
+
+    /**
+     * get the code of a value, assigning the next code if the value is new
+     * @param value the value to encode
+     * @return the code of the value
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * get the code of a value without assigning one
+     * @param value the value to look up
+     * @return the code of the value, or -1 if it was never encoded
+     */
+    public int find(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * get the value of a code
+     * @param code the code to decode
+     * @return the value
+     */
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    /**
+     * get method for the number of distinct values
+     * @return the number of codes assigned
+     */
+    public int size() {
+        return values.size();
+    }
+}
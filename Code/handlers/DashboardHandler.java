@@ -0,0 +1,187 @@
+package handlers;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import interfaces.IDashboardHandler;
+import interfaces.IDoctorHandler;
+import resources.AppointmentEvent;
+import resources.AppointmentStatus;
+import resources.Medicine;
+import resources.Prescription;
+import resources.PrescriptionStatus;
+import resources.ReplenishmentRequest;
+/**
+ * DashboardHandler - the administrator dashboard
+ * Every figure on the dashboard is a rollup counter that the handlers update as events happen, appointment events
+ * are passed on by the appointment handler as each change is made, never through the notification publisher,
+ * so none is dropped, and showing it costs the same however many appointments, prescriptions or requests exist.
+ * The last recorded state of each entity is remembered so a change moves its count from the old bucket to the new one,
+ * and forgotten once the appointment reaches a final status. Days before today are dropped, only today is shown.
+ */
+public class DashboardHandler implements IDashboardHandler {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private IDoctorHandler doctorHandler;
+    private final TreeMap<Long, int[]> appointmentsByDay;               /**< epoch day, from today on, to count per status ordinal */
+    private long bookedSlots;                                           /**< appointments holding a slot, across doctors */
+    private final Map<String, Long> appointmentDays;                    /**< last recorded epoch day per appointment not yet final */
+    private final Map<String, AppointmentStatus> appointmentStatuses;   /**< last recorded status per appointment not yet final */
+    private final Map<String, PrescriptionStatus> prescriptionStatuses; /**< last recorded status per prescription */
+    private int pendingPrescriptions;
+    private final Set<String> pendingRequests;                          /**< Identifiers of unapproved replenishment requests */
+    private final Set<String> lowStockMedicines;                        /**< names of medicines below their alert level, sorted */
+
+    /**
+     * Constructor for DashboardHandler, every counter starts at zero
+     * @param doctorHandler the manager whose running free slot total is used for utilization
+     */
+    public DashboardHandler(IDoctorHandler doctorHandler) {
+        this.doctorHandler = doctorHandler;
+        this.appointmentsByDay = new TreeMap<>();
+        this.appointmentDays = new HashMap<>();
+        this.appointmentStatuses = new HashMap<>();
+        this.prescriptionStatuses = new HashMap<>();
+        this.pendingRequests = new HashSet<>();
+        this.lowStockMedicines = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    }
+
+    /**
+     * set method to set doctor manager (to prevent cyclic in Main)
+     * @param dm the doctor manager
+     */
+    public void setDoctorHandler(IDoctorHandler dm) {
+        this.doctorHandler = dm;
+    }
+
+    /**
+     * Records that an appointment was booked, or that its status or time slot changed
+     * @param event the appointment event
+     */
+    public synchronized void recordAppointment(AppointmentEvent event) {
+        String appointmentIdentifier = event.getAppointmentIdentifier();
+        AppointmentStatus status = event.getStatus();
+        long day = event.getTimeSlot() == null ? Long.MIN_VALUE
+                : Math.floorDiv(event.getTimeSlot().getEpochMinute(), MINUTES_PER_DAY);
+
+        AppointmentStatus previousStatus;
+        Long previousDay;
+        if (status.isFinal()) {
+            previousStatus = appointmentStatuses.remove(appointmentIdentifier);
+            previousDay = appointmentDays.remove(appointmentIdentifier);
+        } else {
+            previousStatus = appointmentStatuses.put(appointmentIdentifier, status);
+            previousDay = appointmentDays.put(appointmentIdentifier, day);
+        }
+        if (previousStatus != null) {
+            int[] previousCounts = appointmentsByDay.get(previousDay);
+            if (previousCounts != null) {
+                previousCounts[previousStatus.ordinal()]--;
+            }
+            if (previousStatus.in(AppointmentStatus.HOLDS_SLOT)) {
+                bookedSlots--;
+            }
+        }
+        dropPastDays();
+        if (day >= LocalDate.now().toEpochDay()) {
+            appointmentsByDay.computeIfAbsent(day, d -> new int[AppointmentStatus.values().length])[status.ordinal()]++;
+        }
+        if (status.in(AppointmentStatus.HOLDS_SLOT)) {
+            bookedSlots++;
+        }
+    }
+
+    /**
+     * drops the counts of days before today, they are never shown again
+     */
+    private void dropPastDays() {
+        appointmentsByDay.headMap(LocalDate.now().toEpochDay()).clear();
+    }
+
+    /**
+     * Records that a prescription was issued or its status changed
+     * @param prescription the prescription
+     */
+    public synchronized void recordPrescription(Prescription prescription) {
+        PrescriptionStatus previousStatus = prescriptionStatuses.put(prescription.getPrescriptionIdentifier(), prescription.getStatus());
+        if (previousStatus == PrescriptionStatus.PENDING) {
+            pendingPrescriptions--;
+        }
+        if (prescription.getStatus() == PrescriptionStatus.PENDING) {
+            pendingPrescriptions++;
+        }
+    }
+
+    /**
+     * Records that a replenishment request was submitted or approved
+     * @param request the replenishment request
+     */
+    public synchronized void recordReplenishmentRequest(ReplenishmentRequest request) {
+        if (request.isApproved()) {
+            pendingRequests.remove(request.getRequestIdentifier());
+        } else {
+            pendingRequests.add(request.getRequestIdentifier());
+        }
+    }
+
+    /**
+     * Records that the stock or alert level of a medicine changed, or that it was added
+     * @param medicine the medicine
+     */
+    public synchronized void recordStock(Medicine medicine) {
+        if (medicine.alertReplenishment()) {
+            lowStockMedicines.add(medicine.getName());
+        } else {
+            lowStockMedicines.remove(medicine.getName());
+        }
+    }
+
+    /**
+     * Records that a medicine was removed from the inventory
+     * @param medicine the medicine removed
+     */
+    public synchronized void recordMedicineRemoved(Medicine medicine) {
+        lowStockMedicines.remove(medicine.getName());
+    }
+
+    /**
+     * Displays the dashboard from the rollup counters
+     */
+    public synchronized void displayDashboard() {
+        LocalDate today = LocalDate.now();
+        dropPastDays();
+        System.out.println("\n===========================");
+        System.out.println("--- Dashboard (" + today + ") ---");
+
+        System.out.println("Today's Appointments by Status:");
+        int[] todayByStatus = appointmentsByDay.get(today.toEpochDay());
+        boolean anyToday = false;
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            if (todayByStatus != null && todayByStatus[status.ordinal()] > 0) {
+                System.out.println("  " + status + ": " + todayByStatus[status.ordinal()]);
+                anyToday = true;
+            }
+        }
+        if (!anyToday) {
+            System.out.println("  Notice: No appointments today.");
+        }
+
+        System.out.println("Doctor Utilization (booked / published slots):");
+        if (doctorHandler != null) {
+            long published = bookedSlots + doctorHandler.getFreeSlotTotal();
+            String rate = published == 0 ? "N/A" : String.format("%.1f%%", bookedSlots * 100.0 / published);
+            System.out.println("  All Doctors: " + bookedSlots + " / " + published + " (" + rate + ")");
+        }
+
+        System.out.println("Pending Prescriptions: " + pendingPrescriptions);
+        System.out.println("Pending Replenishment Requests: " + pendingRequests.size());
+        System.out.println("Low Stock Medicines: " + (lowStockMedicines.isEmpty() ? "None" : String.join(", ", lowStockMedicines)));
+        System.out.println("===========================");
+    }
+}
@@ -1,10 +1,19 @@
 package handlers;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import interfaces.*;
 import resources.*;
@@ -16,6 +25,13 @@ public class DoctorHandler implements IDoctorHandler {
 
     private IStaffHandler staffHandler;
     private IPrescriptionHandler prescriptionHandler; 
+    private IAuditHandler auditHandler;
+    private IInteractionHandler interactionHandler;
+    private IAccessControlHandler accessControlHandler;
+    private volatile Map<String, Doctor> doctorsById = Collections.emptyMap();  /**< copy-on-write Identifier, case folded, to doctor */
+    private volatile List<Doctor> doctors = Collections.emptyList();          /**< immutable snapshot of doctorsById */
+    private final Map<String, Set<String>> careTeams = new ConcurrentHashMap<>();  /**< patient Identifier to the Identifiers of its doctors */
+    private final AtomicLong freeSlotTotal = new AtomicLong();                   /**< free slots of the registered doctors, reported by their calendars */
 
     /**
      * DoctorHandler Constructor
@@ -43,19 +59,100 @@ public class DoctorHandler implements IDoctorHandler {
         this.prescriptionHandler = pm;
     }
 
+    /**
+     * setting AuditHandler (to prevent cyclic in Main)
+     * @param ah set auditHandler
+     */
+    public void setAuditHandler(IAuditHandler ah) {
+        this.auditHandler = ah;
+    }
+
+    /**
+     * setting InteractionHandler (to prevent cyclic in Main)
+     * @param ih set interactionHandler
+     */
+    public void setInteractionHandler(IInteractionHandler ih) {
+        this.interactionHandler = ih;
+    }
+
+    /**
+     * setting AccessControlHandler (to prevent cyclic in Main)
+     * @param ach set accessControlHandler
+     */
+    public void setAccessControlHandler(IAccessControlHandler ach) {
+        this.accessControlHandler = ach;
+    }
     
     /**
-     * get all the doctors from the list
-     * @return a seperate doctorList so operations wont tamper the original information accidentally
+     * get all the doctors from the registry
+     * @return an immutable snapshot so operations wont tamper the original information accidentally
      */
     public List<Doctor> getAllDoctors() {
-        List<Doctor> doctorList = new ArrayList<>();
-        for (Staff staff : staffHandler.getAllStaff()) {
-            if (staff instanceof Doctor) {
-                doctorList.add((Doctor) staff);
+        return doctors;
+    }
+
+    /**
+     * get the number of free slots across all registered doctors, kept running by their calendars
+     * @return the number of free slots
+     */
+    public long getFreeSlotTotal() {
+        return freeSlotTotal.get();
+    }
+
+    /**
+     * adds a doctor to the registry, replacing any doctor with the same Identifier
+     * the map and list are copied on write, so lookups never lock or copy
+     * @param doctor the doctor to register
+     */
+    public synchronized void registerDoctor(Doctor doctor) {
+        Map<String, Doctor> updated = new LinkedHashMap<>(doctorsById);
+        Doctor previous = updated.put(key(doctor.getUserId()), doctor);
+        publish(updated);
+        if (previous != doctor) {
+            if (previous != null) {
+                freeSlotTotal.addAndGet(-previous.getAvailabilityCalendar().setFreeSlotListener(null));
             }
+            freeSlotTotal.addAndGet(doctor.getAvailabilityCalendar().setFreeSlotListener(freeSlotTotal::addAndGet));
+        }
+        for (String patientIdentifier : doctor.getAssignedPatientIdentifiers()) {
+            joinCareTeam(patientIdentifier, doctor.getUserId());
+        }
+    }
+
+    /**
+     * removes a doctor from the registry
+     * @param doctorId the Identifier of the doctor to remove
+     */
+    public synchronized void unregisterDoctor(String doctorId) {
+        if (!doctorsById.containsKey(key(doctorId))) {
+            return;
+        }
+        Map<String, Doctor> updated = new LinkedHashMap<>(doctorsById);
+        Doctor removed = updated.remove(key(doctorId));
+        publish(updated);
+        freeSlotTotal.addAndGet(-removed.getAvailabilityCalendar().setFreeSlotListener(null));
+        for (String patientIdentifier : removed.getAssignedPatientIdentifiers()) {
+            careTeams.computeIfPresent(patientIdentifier, (k, team) -> team.remove(removed.getUserId()) && team.isEmpty() ? null : team);
         }
-        return doctorList;  // copy to prevent direct modification
+    }
+
+    /**
+     * the registry key of a doctor Identifier, case folded so lookups ignore case with a single map get
+     * @param doctorId the Identifier of the doctor
+     * @return the key, or null for a null Identifier
+     */
+    private static String key(String doctorId) {
+        return doctorId == null ? null : doctorId.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * swaps in a new version of the registry
+     * @param updated the new Identifier to doctor map
+     */
+    private void publish(Map<String, Doctor> updated) {
+        List<Doctor> snapshot = Collections.unmodifiableList(new ArrayList<>(updated.values()));
+        doctorsById = Collections.unmodifiableMap(updated);
+        doctors = snapshot;
     }
     
     /**
@@ -64,12 +161,15 @@ public class DoctorHandler implements IDoctorHandler {
      * @param patientIdentifier Identifier to retrieve the patient medical records
      */
     public void viewPatientRecord(Doctor doctor, String patientIdentifier) {
-        if (!doctor.getAssignedPatientIdentifiers().contains(patientIdentifier)) {
+        if (accessControlHandler == null || !accessControlHandler.isAllowed(doctor, Permission.VIEW_MEDICAL_RECORD, patientIdentifier)) {
             System.out.println("Access denied: Patient is not under your care.");
             return;
         }
         MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(patientIdentifier);
         if (record != null) {
+            if (auditHandler != null) {
+                auditHandler.recordRead(doctor.getUserId(), patientIdentifier, "MedicalRecord");
+            }
             System.out.println("Medical Record for Patient Identifier: " + patientIdentifier);
             record.viewMedicalRecord();
         } else {
@@ -82,10 +182,9 @@ public class DoctorHandler implements IDoctorHandler {
      * @param doctorId Identifier to retrieve doctor by
      */
     public Doctor findDoctorById(String doctorId) {
-        for (Doctor doctor : getAllDoctors()) {  
-            if (doctor.getUserId().equalsIgnoreCase(doctorId)) {
-                return doctor;
-            }
+        Doctor doctor = doctorsById.get(key(doctorId));  // Identifiers typed in a different case match too
+        if (doctor != null) {
+            return doctor;
         }
         System.out.println("Error: Doctor:" + doctorId + " not found.");
         return null;
@@ -109,6 +208,36 @@ public class DoctorHandler implements IDoctorHandler {
     public List<TimeSlot> getAvailability(Doctor doctor) {
         return doctor.getAvailability(); 
     }
+
+    /**
+     * Method to publish a recurring availability template for a doctor, e.g. weekdays 09:00 to 17:00
+     * @param doctor the doctor to publish availability for
+     * @param from first date of the template, inclusive
+     * @param to last date of the template, inclusive
+     * @param daysOfWeek the days of the week the template applies to
+     * @param start start of the working hours
+     * @param end end of the working hours, exclusive
+     * @return the number of new slots published
+     */
+    public int publishAvailability(Doctor doctor, LocalDate from, LocalDate to, Set<DayOfWeek> daysOfWeek, LocalTime start, LocalTime end) {
+        if (accessControlHandler == null || !accessControlHandler.isAllowed(doctor, Permission.SET_AVAILABILITY)) {
+            System.out.println("Access denied: Dr. " + doctor.getName() + " is not allowed to set availability.");
+            return 0;
+        }
+        return doctor.publishAvailability(from, to, daysOfWeek, start, end);
+    }
+
+    /**
+     * Method to find the earliest run of consecutive available slots for a doctor
+     * @param doctor the doctor to search
+     * @param from first date to search, inclusive
+     * @param to last date to search, inclusive
+     * @param slotCount the number of consecutive slots needed
+     * @return the first slot of the run, or null if there is none
+     */
+    public TimeSlot findAvailableGap(Doctor doctor, LocalDate from, LocalDate to, int slotCount) {
+        return doctor.findAvailableGap(from, to, slotCount);
+    }
     
 
     /**
@@ -117,14 +246,76 @@ public class DoctorHandler implements IDoctorHandler {
      * @param patientIdentifier the patient to be assigned
      */
     public void assignPatient(Doctor doctor, String patientIdentifier) {
-        if (!doctor.getAssignedPatientIdentifiers().contains(patientIdentifier)) {
-            doctor.getAssignedPatientIdentifiers().add(patientIdentifier);
+        if (addToCareTeam(doctor, patientIdentifier)) {
             System.out.println("Notice: Patient Identifier " + patientIdentifier + " assigned to Dr. " + doctor.getName());
         } else {
             System.out.println("Error: Patient Identifier " + patientIdentifier + " is already assigned to Dr. " + doctor.getName());
         }
     }
     
+    /**
+     * Assign a patient to doctor without any message, e.g. when an appointment is accepted
+     * the doctor is also added to the patient's care team while registered, under the same lock as unregistering,
+     * so a doctor being removed is never put back in a team
+     * @param doctor the doctor that patient is going to be assigned to
+     * @param patientIdentifier the patient to be assigned
+     * @return true if the patient was not already assigned to the doctor
+     */
+    public synchronized boolean addToCareTeam(Doctor doctor, String patientIdentifier) {
+        if (!doctor.addAssignedPatientIdentifier(patientIdentifier)) {
+            return false;
+        }
+        if (doctorsById.get(key(doctor.getUserId())) == doctor) {
+            joinCareTeam(patientIdentifier, doctor.getUserId());
+        }
+        return true;
+    }
+
+    /**
+     * adds a doctor to a patient's care team, atomically with a doctor leaving it
+     * @param patientIdentifier the Identifier of the patient
+     * @param doctorId the Identifier of the doctor
+     */
+    private void joinCareTeam(String patientIdentifier, String doctorId) {
+        careTeams.compute(patientIdentifier, (k, team) -> {
+            Set<String> members = team == null ? ConcurrentHashMap.newKeySet() : team;
+            members.add(doctorId);
+            return members;
+        });
+    }
+
+    /**
+     * Retrieve the doctors a patient is assigned to
+     * @param patientIdentifier the Identifier of the patient
+     * @return the registered doctors caring for the patient, empty if there are none
+     */
+    public List<Doctor> getCareTeam(String patientIdentifier) {
+        Set<String> team = careTeams.get(patientIdentifier);
+        if (team == null) {
+            return Collections.emptyList();
+        }
+        Map<String, Doctor> registry = doctorsById;
+        List<Doctor> members = new ArrayList<>(team.size());
+        for (String doctorId : team) {
+            Doctor doctor = registry.get(key(doctorId));
+            if (doctor != null) {
+                members.add(doctor);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * check if a doctor is in a patient's care team, without scanning the doctors, used by the access control policy
+     * @param doctorId the Identifier of the doctor
+     * @param patientIdentifier the Identifier of the patient
+     * @return true if the patient is assigned to the doctor
+     */
+    public boolean isInCareTeam(String doctorId, String patientIdentifier) {
+        Set<String> team = careTeams.get(patientIdentifier);
+        return team != null && team.contains(doctorId);
+    }
+
     /**
      * Adds an appointment to the doctor's schedule
      * @param doctor the doctor to which the appointment is being added
@@ -158,20 +349,38 @@ public class DoctorHandler implements IDoctorHandler {
      * @return a list of patient that the doctor is assigned to
      */
     public List<String> getAssignedPatientIdentifiers(Doctor doctor) {
-        return new ArrayList<>(doctor.getAssignedPatientIdentifiers()); 
+        return doctor.getAssignedPatientIdentifiers();
+    }
+
+    /**
+     * checks the access control policy before a doctor changes a patient's medical record, denying if no policy is set
+     * @param doctor the doctor changing the record
+     * @param patientIdentifier the Identifier of the patient whose record is changed
+     * @return true if the doctor may change the record
+     */
+    private boolean mayUpdateRecord(Doctor doctor, String patientIdentifier) {
+        if (accessControlHandler == null || !accessControlHandler.isAllowed(doctor, Permission.UPDATE_MEDICAL_RECORD, patientIdentifier)) {
+            System.out.println("Access denied: Patient is not under your care.");
+            return false;
+        }
+        return true;
     }
 
     /**
      * Adds a diagnosis to a patient's medical record
+     * @param doctor the doctor adding the diagnosis
      * @param patientIdentifier the Identifier of the patient that the diagnosis is being added to
      * @param diagnosisIdentifier the Identifier of diagnosis
      * @param details the information of the diagnosis
      */
-    public void addDiagnosis(String patientIdentifier, String diagnosisIdentifier, String details) {
+    public void addDiagnosis(Doctor doctor, String patientIdentifier, String diagnosisIdentifier, String details) {
+        if (!mayUpdateRecord(doctor, patientIdentifier)) {
+            return;
+        }
         MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(patientIdentifier);
         if (record != null) {
             Diagnosis diagnosis = new Diagnosis(diagnosisIdentifier, details, LocalDate.now());
-            record.addDiagnosis(diagnosis);
+            record.addDiagnosis(doctor.getUserId(), diagnosis);
         } else {
             System.out.println("Error: Patient record not found.");
         }
@@ -179,15 +388,19 @@ public class DoctorHandler implements IDoctorHandler {
     
     /**
      * Adds a treatment to a patient's medical record
+     * @param doctor the doctor adding the treatment
      * @param patientIdentifier the Identifier of the patient that the treatment is being added to
      * @param treatmentIdentifier the Identifier of treatment
      * @param details the information of treatment
      */
-    public void addTreatment(String patientIdentifier, String treatmentIdentifier, String details) {
+    public void addTreatment(Doctor doctor, String patientIdentifier, String treatmentIdentifier, String details) {
+        if (!mayUpdateRecord(doctor, patientIdentifier)) {
+            return;
+        }
         MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(patientIdentifier);
         if (record != null) {
             Treatment treatment = new Treatment(treatmentIdentifier, details, LocalDate.now());
-            record.addTreatment(treatment);
+            record.addTreatment(doctor.getUserId(), treatment);
             System.out.println("Notice: Treatment added successfully.");
         } else {
             System.out.println("Error: Patient record not found.");
@@ -196,11 +409,15 @@ public class DoctorHandler implements IDoctorHandler {
     
     /**
      * Adds a prescription to a patient's medical record
+     * @param doctor the doctor adding the prescription
      * @param patientIdentifier the Identifier of patient that the treatment is being added to
      * @param prescriptionIdentifier the Identifier of prescription
      * @param medicineHandler manager responsible for medicine-related logic
      */
-    public void addPrescription(String patientIdentifier, String prescriptionIdentifier, IMedicineHandler medicineHandler) {
+    public void addPrescription(Doctor doctor, String patientIdentifier, String prescriptionIdentifier, IMedicineHandler medicineHandler) {
+        if (!mayUpdateRecord(doctor, patientIdentifier)) {
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         List<Medicine> selectedMedicines = new ArrayList<>();
         List<Integer> quantities = new ArrayList<>();
@@ -253,11 +470,14 @@ public class DoctorHandler implements IDoctorHandler {
             System.out.println("Error: No medicine selected. Prescription not created.");
             return;
         }
+        if (interactionHandler != null && !interactionHandler.confirmPrescription(patientIdentifier, selectedMedicines, scanner)) {
+            return;
+        }
     
-        Prescription prescription = new Prescription(prescriptionIdentifier, selectedMedicines, quantities, "Pending");
+        Prescription prescription = new Prescription(prescriptionIdentifier, selectedMedicines, quantities, PrescriptionStatus.PENDING);
         MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(patientIdentifier);
         if (record != null) {
-            record.addPrescription(prescription);
+            record.addPrescription(doctor.getUserId(), prescription);
             System.out.println("Notice: Prescription added successfully to patient record.");
     
             if (prescriptionHandler != null) {
@@ -0,0 +1,243 @@
+package handlers;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import interfaces.IExportHandler;
+import interfaces.IMedicineHandler;
+import interfaces.IMedicineReloadHandler;
+import interfaces.IPatientHandler;
+import interfaces.IStaffHandler;
+import resources.EntityStore;
+import resources.Medicine;
+import userclasses.Patient;
+import userclasses.Staff;
+import userclasses.User;
+/**
+ * ExportHandler - saves staff, patients and medicines back to Staff.txt, Patient.txt and Medicine.txt
+ * The rows are captured while holding the entity store's state lock, so the three files show one moment even while
+ * other sessions keep working, then a background thread writes each file through a buffer to a temporary file next
+ * to it and renames it over the old one, so a crash mid export leaves the previous file whole.
+ */
+public class ExportHandler implements IExportHandler {
+
+    private static final String STAFF_HEADER = "Staff ID,Name,Password,Role,Gender,Age";
+    private static final String PATIENT_HEADER = "Patient ID,Password,Name,Date of Birth,Gender,Blood Type,Contact Information,Phone Number";
+    private static final String MEDICINE_HEADER = "Medicine Name,Initial Stock,Low Stock Level Alert";
+    private static final int BUFFER_SIZE = 1 << 16;     /**< characters buffered per file before a write */
+
+    private final IStaffHandler staffHandler;
+    private final IPatientHandler patientHandler;
+    private final IMedicineHandler medicineHandler;
+    private final Path staffFilePath;
+    private final Path patientFilePath;
+    private final Path medicineFilePath;
+    private final ExecutorService writer;
+    private final AtomicBoolean running;                /**< true from capture until the files are written */
+    private volatile IMedicineReloadHandler medicineReloadHandler;
+
+    /**
+     * Constructor for ExportHandler
+     * @param staffHandler the manager responsible for handling staff-related operations
+     * @param patientHandler the manager responsible for handling patient-related operations
+     * @param medicineHandler the manager responsible for handling medicine-related operations
+     * @param staffFilePath path to the staff file
+     * @param patientFilePath path to the patient file
+     * @param medicineFilePath path to the medicine file
+     */
+    public ExportHandler(IStaffHandler staffHandler, IPatientHandler patientHandler, IMedicineHandler medicineHandler,
+                         String staffFilePath, String patientFilePath, String medicineFilePath) {
+        this.staffHandler = staffHandler;
+        this.patientHandler = patientHandler;
+        this.medicineHandler = medicineHandler;
+        this.staffFilePath = Paths.get(staffFilePath);
+        this.patientFilePath = Paths.get(patientFilePath);
+        this.medicineFilePath = Paths.get(medicineFilePath);
+        this.running = new AtomicBoolean(false);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "export-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * set method for the medicine reload handler (to prevent cyclic in Main)
+     * @param medicineReloadHandler the watcher of the medicine file, told when the export rewrote it
+     */
+    public void setMedicineReloadHandler(IMedicineReloadHandler medicineReloadHandler) {
+        this.medicineReloadHandler = medicineReloadHandler;
+    }
+
+    /**
+     * captures the staff, patients and medicines as they are now and writes them to the data files in the background
+     * @return true if the export was started, false if one is already running
+     */
+    public boolean exportAll() {
+        if (!running.compareAndSet(false, true)) {
+            System.out.println("Warning: An export is already being written.");
+            return false;
+        }
+        List<String> staffRows;
+        List<String> patientRows;
+        List<String> medicineRows;
+        try {
+            synchronized (EntityStore.getShared().getStateLock()) {
+                staffRows = captureStaff();
+                patientRows = capturePatients();
+                medicineRows = captureMedicines();
+            }
+            writer.execute(() -> writeAll(staffRows, patientRows, medicineRows));
+        } catch (RuntimeException e) {
+            running.set(false);
+            System.out.println("Error: Unable to export data files: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * waits for an export that is still being written, then stops the writer
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * builds the rows of the staff file, caller holds the state lock
+     * @return the rows, without the header
+     */
+    private List<String> captureStaff() {
+        List<Staff> staffList = staffHandler.getAllStaff();
+        List<String> rows = new ArrayList<>(staffList.size());
+        for (Staff staff : staffList) {
+            addRow(rows, staff.getUserId(), staff.getName(), staff.getPassword(), staff.getRole(), staff.getGender(),
+                    String.valueOf(staff.getAge()));
+        }
+        return rows;
+    }
+
+    /**
+     * builds the rows of the patient file, caller holds the state lock
+     * @return the rows, without the header
+     */
+    private List<String> capturePatients() {
+        List<String> rows = new ArrayList<>();
+        for (User user : patientHandler.getAllPatientsInternal()) {
+            if (user instanceof Patient) {
+                Patient patient = (Patient) user;
+                addRow(rows, patient.getUserId(), patient.getPassword(), patient.getName(),
+                        patient.getDateOfBirth() == null ? null : patient.getDateOfBirth().toString(), patient.getGender(), patient.getBloodType(),
+                        patient.getContactInfo(), String.valueOf(patient.getPhoneNumber()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * builds the rows of the medicine file, caller holds the state lock
+     * @return the rows, without the header
+     */
+    private List<String> captureMedicines() {
+        List<Medicine> inventory = medicineHandler.getInventory();
+        List<String> rows = new ArrayList<>(inventory.size());
+        for (Medicine medicine : inventory) {
+            addRow(rows, medicine.getName(), String.valueOf(medicine.getStock()), String.valueOf(medicine.getAlertLevel()));
+        }
+        return rows;
+    }
+
+    /**
+     * joins the fields into a row
+     * a field the importers cannot read back fails the whole export, since a skipped row would be lost at the next
+     * startup, and as rows are captured before any file is written the previous files are left untouched
+     * @param rows the rows to add to
+     * @param fields the fields of the row, the first identifies it
+     * @throws IllegalArgumentException if a field is empty or contains a comma or line break
+     */
+    private static void addRow(List<String> rows, String... fields) {
+        for (String field : fields) {
+            if (field == null || field.isEmpty() || field.indexOf(',') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException(fields[0] + " has a field that is empty or contains a comma or line break, no file was changed.");
+            }
+        }
+        rows.add(String.join(",", fields));
+    }
+
+    /**
+     * writes the three files, runs on the writer thread
+     * @param staffRows the rows of the staff file
+     * @param patientRows the rows of the patient file
+     * @param medicineRows the rows of the medicine file
+     */
+    private void writeAll(List<String> staffRows, List<String> patientRows, List<String> medicineRows) {
+        try {
+            writeFile(staffFilePath, STAFF_HEADER, staffRows);
+            writeFile(patientFilePath, PATIENT_HEADER, patientRows);
+            writeFile(medicineFilePath, MEDICINE_HEADER, medicineRows);
+            IMedicineReloadHandler reloader = medicineReloadHandler;
+            if (reloader != null) {
+                // the file now holds the inventory itself, reloading it would only put back stock dispensed since
+                reloader.rebase();
+            }
+            System.out.println("Notice: Data files saved: " + staffRows.size() + " staff, " + patientRows.size()
+                    + " patients, " + medicineRows.size() + " medicines.");
+        } catch (IOException e) {
+            System.out.println("Error: Unable to save data files: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * writes a file through a buffer to a temporary file in the same directory, forces it to disk and renames it
+     * over the target, the temporary file is removed if anything fails
+     * @param target the file to replace
+     * @param header the header line
+     * @param rows the rows after the header
+     * @throws IOException if the file cannot be written or replaced
+     */
+    private static void writeFile(Path target, String header, List<String> rows) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+                 BufferedWriter out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                out.write(header);
+                out.newLine();
+                for (String row : rows) {
+                    out.write(row);
+                    out.newLine();
+                }
+                out.flush();
+                stream.getFD().sync();
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package handlers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import interfaces.IInteractionHandler;
+import resources.Diagnosis;
+import resources.EntityStore;
+import resources.InteractionWarning;
+import resources.MedicalRecord;
+import resources.Medicine;
+import resources.Prescription;
+/**
+ * InteractionHandler - checks new prescriptions against drug interactions and recorded allergies
+ * Medicine names are numbered as rules are added and each pair of numbers is packed into one long key of an open
+ * addressing table, so checking a pair is one hash probe without boxing or string compares, however many rules
+ * are loaded. A prescription is checked pair by pair against itself and against every prescription on the patient's
+ * medical record, since prescriptions carry no end date. Allergies come from diagnoses that name one, such as
+ * "Penicillin allergy" or "allergic to penicillin".
+ */
+public class InteractionHandler implements IInteractionHandler {
+
+    private static final int INITIAL_CAPACITY = 64;        /**< slots of the pair table, a power of two */
+
+    private final Map<String, Integer> medicineNumbers;     /**< medicine key to its number, from 1 */
+    private long[] pairKeys;                                /**< packed pair of numbers, 0 when the slot is empty */
+    private Rule[] pairRules;                               /**< rule of the pair in the same slot */
+    private int pairCount;
+    private final Map<Integer, List<AllergyRule>> allergyRules;     /**< medicine number to the allergies affecting it */
+    private int allergyCount;
+
+    /**
+     * Rule class, an interaction between two medicines
+     */
+    private static final class Rule {
+        private final InteractionWarning.Severity severity;
+        private final String description;
+
+        /**
+         * Constructor for Rule
+         * @param severity how serious the interaction is
+         * @param description what the interaction does
+         */
+        private Rule(InteractionWarning.Severity severity, String description) {
+            this.severity = severity;
+            this.description = description;
+        }
+    }
+
+    /**
+     * AllergyRule class, an allergen that rules out a medicine and how diagnoses name it
+     */
+    private static final class AllergyRule {
+        private final String allergen;
+        private final Pattern mention;     /**< matches "<allergen> allergy" or "allergic to <allergen>" */
+        private final InteractionWarning.Severity severity;
+        private final String description;
+
+        /**
+         * Constructor for AllergyRule
+         * @param allergen the allergen
+         * @param severity how serious the reaction is
+         * @param description why the medicine is affected
+         */
+        private AllergyRule(String allergen, InteractionWarning.Severity severity, String description) {
+            String quoted = Pattern.quote(allergen);
+            this.allergen = allergen;
+            this.mention = Pattern.compile("\\b" + quoted + "\\s+allerg|allerg\\w*(?:\\s*(?:to|:))*\\s*" + quoted + "\\b",
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            this.severity = severity;
+            this.description = description;
+        }
+    }
+
+    /**
+     * Constructor for InteractionHandler, starts without rules
+     */
+    public InteractionHandler() {
+        this.medicineNumbers = new HashMap<>();
+        this.pairKeys = new long[INITIAL_CAPACITY];
+        this.pairRules = new Rule[INITIAL_CAPACITY];
+        this.allergyRules = new HashMap<>();
+    }
+
+    /**
+     * adds a rule that two medicines interact, a rule already held for the pair is kept if it is more severe
+     * @param firstMedicine one medicine
+     * @param secondMedicine the other medicine
+     * @param severity how serious the interaction is
+     * @param description what the interaction does
+     */
+    public synchronized void addInteraction(String firstMedicine, String secondMedicine, InteractionWarning.Severity severity, String description) {
+        long key = pairKey(number(firstMedicine), number(secondMedicine));
+        if ((pairCount + 1) * 2 > pairKeys.length) {
+            resize();
+        }
+        int slot = find(pairKeys, key);
+        if (pairKeys[slot] == 0) {
+            pairKeys[slot] = key;
+            pairCount++;
+        } else if (pairRules[slot].severity.compareTo(severity) >= 0) {
+            return;
+        }
+        pairRules[slot] = new Rule(severity, description);
+    }
+
+    /**
+     * adds a rule that patients allergic to an allergen should not take a medicine
+     * @param allergen the allergen as written in diagnoses, e.g. Penicillin
+     * @param medicine the medicine
+     * @param severity how serious the reaction is
+     * @param description why the medicine is affected
+     */
+    public synchronized void addAllergy(String allergen, String medicine, InteractionWarning.Severity severity, String description) {
+        allergyRules.computeIfAbsent(number(medicine), k -> new ArrayList<>()).add(new AllergyRule(allergen, severity, description));
+        allergyCount++;
+    }
+
+    /**
+     * checks medicines about to be prescribed to a patient against each other, the patient's prescriptions and the
+     * allergies recorded in the patient's diagnoses
+     * @param patientIdentifier the patient
+     * @param medicines the medicines of the new prescription
+     * @return the findings, most severe first, empty if none
+     */
+    public synchronized List<InteractionWarning> check(String patientIdentifier, List<Medicine> medicines) {
+        List<InteractionWarning> warnings = new ArrayList<>();
+        Set<String> reported = new HashSet<>();
+        int[] numbers = new int[medicines.size()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = lookup(medicines.get(i).getName());
+        }
+
+        for (int i = 0; i < numbers.length; i++) {
+            for (int j = i + 1; j < numbers.length; j++) {
+                report(warnings, reported, numbers[i], numbers[j], medicines.get(i).getName(), medicines.get(j).getName(), "this prescription");
+            }
+        }
+
+        MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(patientIdentifier);
+        if (record == null) {
+            return warnings;
+        }
+        for (Prescription prescription : record.getPrescriptions()) {
+            String source = "Prescription " + prescription.getPrescriptionIdentifier();
+            for (Medicine current : prescription.getMedicines()) {
+                int currentNumber = lookup(current.getName());
+                for (int i = 0; i < numbers.length; i++) {
+                    report(warnings, reported, numbers[i], currentNumber, medicines.get(i).getName(), current.getName(), source);
+                }
+            }
+        }
+
+        List<Diagnosis> diagnoses = record.getDiagnoses();
+        for (int i = 0; i < numbers.length; i++) {
+            List<AllergyRule> rules = numbers[i] == 0 ? null : allergyRules.get(numbers[i]);
+            if (rules == null) {
+                continue;
+            }
+            for (AllergyRule rule : rules) {
+                for (Diagnosis diagnosis : diagnoses) {
+                    if (diagnosis.getDescription() != null && rule.mention.matcher(diagnosis.getDescription()).find()) {
+                        String source = "allergy in Diagnosis " + diagnosis.getDiagnosisIdentifier();
+                        if (reported.add(medicines.get(i).getName() + "|" + rule.allergen + "|" + source)) {
+                            warnings.add(new InteractionWarning(rule.severity, medicines.get(i).getName(), rule.allergen, source, rule.description));
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        warnings.sort(Comparator.comparing(InteractionWarning::getSeverity).reversed());
+        return warnings;
+    }
+
+    /**
+     * shows the findings for medicines about to be prescribed and asks the doctor to confirm any major one
+     * @param patientIdentifier the patient
+     * @param medicines the medicines of the new prescription
+     * @param scanner the scanner that is declared for user input
+     * @return true if the prescription may be created
+     */
+    public boolean confirmPrescription(String patientIdentifier, List<Medicine> medicines, Scanner scanner) {
+        List<InteractionWarning> warnings = check(patientIdentifier, medicines);
+        if (warnings.isEmpty()) {
+            return true;
+        }
+        System.out.println("\n--- Interaction Warnings (" + warnings.size() + ") ---");
+        for (InteractionWarning warning : warnings) {
+            System.out.println(warning);
+        }
+        if (warnings.get(0).getSeverity() != InteractionWarning.Severity.MAJOR) {
+            System.out.println("Warning: Review the interactions above.");
+            return true;
+        }
+        System.out.print("Major interaction found. Prescribe anyway? (Y/N): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("Y")) {
+            return true;
+        }
+        System.out.println("Notice: Prescription was not created.");
+        return false;
+    }
+
+    /**
+     * get method for the number of interaction and allergy rules loaded
+     * @return the number of rules
+     */
+    public synchronized int getRuleCount() {
+        return pairCount + allergyCount;
+    }
+
+    /**
+     * adds a warning for a pair of medicines if they interact and the same finding was not already reported
+     * @param warnings the warnings to add to
+     * @param reported keys of the findings already reported
+     * @param number the number of the medicine being prescribed, 0 if it is in no rule
+     * @param otherNumber the number of the other medicine, 0 if it is in no rule
+     * @param medicine the name of the medicine being prescribed
+     * @param other the name of the other medicine
+     * @param source where the other medicine comes from
+     */
+    private void report(List<InteractionWarning> warnings, Set<String> reported, int number, int otherNumber,
+                        String medicine, String other, String source) {
+        if (number == 0 || otherNumber == 0) {
+            return;
+        }
+        int slot = find(pairKeys, pairKey(number, otherNumber));
+        if (pairKeys[slot] != 0 && reported.add(medicine + "|" + other + "|" + source)) {
+            Rule rule = pairRules[slot];
+            warnings.add(new InteractionWarning(rule.severity, medicine, other, source, rule.description));
+        }
+    }
+
+    /**
+     * get method for the number of a medicine, numbering it if it is new
+     * @param name the name of the medicine
+     * @return the number, from 1
+     */
+    private int number(String name) {
+        return medicineNumbers.computeIfAbsent(EntityStore.medicineKey(name.trim()), k -> medicineNumbers.size() + 1);
+    }
+
+    /**
+     * get method for the number of a medicine
+     * @param name the name of the medicine
+     * @return the number, 0 if the medicine is in no rule
+     */
+    private int lookup(String name) {
+        return medicineNumbers.getOrDefault(EntityStore.medicineKey(name.trim()), 0);
+    }
+
+    /**
+     * packs an unordered pair of medicine numbers into one key
+     * @param first one number
+     * @param second the other number
+     * @return the smaller number in the high half and the larger in the low half, never 0
+     */
+    private static long pairKey(int first, int second) {
+        return ((long) Math.min(first, second) << 32) | Math.max(first, second);
+    }
+
+    /**
+     * finds the slot holding a key, or the empty slot where it would go
+     * @param keys the key array of the table
+     * @param key the key to find
+     * @return the slot
+     */
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * doubles the pair table, keeping it at most half full so probes stay short
+     */
+    private void resize() {
+        long[] keys = new long[pairKeys.length * 2];
+        Rule[] rules = new Rule[keys.length];
+        for (int i = 0; i < pairKeys.length; i++) {
+            if (pairKeys[i] != 0) {
+                int slot = find(keys, pairKeys[i]);
+                keys[slot] = pairKeys[i];
+                rules[slot] = pairRules[i];
+            }
+        }
+        pairKeys = keys;
+        pairRules = rules;
+    }
+}
@@ -5,18 +5,42 @@ import java.util.List;
 import java.util.Scanner;
 
 import resources.*;
+import interfaces.IDashboardHandler;
 import interfaces.IMedicineHandler;
 /**
  * A manager class for managing the medicines
+ * Medicines are changed under the entity store's state lock, by the menus and by the medicine-watch thread that
+ * applies reloads, so views of the whole inventory are taken under the same lock and never see half a reload
  */
 public class MedicineHandler implements IMedicineHandler {
-    private List<Medicine> medicines;
+    private Repository<String, Medicine> medicines;                             /**< medicines by lower case name, from the entity store */
+    private Repository<String, ReplenishmentRequest> replenishmentRequests;     /**< requests by Identifier, from the entity store */
+    private IDashboardHandler dashboardHandler;                                 /**< rollups for the admin dashboard, optional */
 
     /**
-     * Constructing a new MedicineHandler with a empty list 
+     * Constructing a new MedicineHandler over the shared entity store
     */
     public MedicineHandler() {
-        this.medicines = new ArrayList<>();
+        this.medicines = EntityStore.getShared().getMedicines();
+        this.replenishmentRequests = EntityStore.getShared().getReplenishmentRequests();
+    }
+
+    /**
+     * set the dashboard handler
+     * @param dh the dashboard that stock changes are reported to
+     */
+    public void setDashboardHandler(IDashboardHandler dh) {
+        this.dashboardHandler = dh;
+    }
+
+    /**
+     * reports the stock of a medicine to the dashboard, if one is set
+     * @param medicine the medicine whose stock or alert level changed
+     */
+    private void reportStock(Medicine medicine) {
+        if (dashboardHandler != null) {
+            dashboardHandler.recordStock(medicine);
+        }
     }
 
     /**
@@ -32,8 +56,10 @@ public class MedicineHandler implements IMedicineHandler {
             return;
         }
         Medicine medicine = new Medicine(name, stock, alertLevel);
-        medicines.add(medicine);
-        
+        synchronized (EntityStore.getShared().getStateLock()) {
+            medicines.put(medicine);
+        }
+        reportStock(medicine);
     }
 
     /**
@@ -41,7 +67,9 @@ public class MedicineHandler implements IMedicineHandler {
      * @return the list of medicine
      */
     public List<Medicine> getInventory() {
-        return medicines;
+        synchronized (EntityStore.getShared().getStateLock()) {
+            return medicines.list();
+        }
     }
 
     /**
@@ -62,9 +90,15 @@ public class MedicineHandler implements IMedicineHandler {
      * display information of all the medicine
      */
     public void viewMedicines() {
+        List<String> lines = new ArrayList<>();
+        synchronized (EntityStore.getShared().getStateLock()) {
+            for (Medicine med : medicines.values()) {
+                lines.add("Name: " + med.getName() + ", Stock: " + med.getStock() + ", Alert Level: " + med.getAlertLevel());
+            }
+        }
         System.out.println("\n=== All Medicines ===");
-        for (Medicine med : medicines) {
-            System.out.println("Name: " + med.getName() + ", Stock: " + med.getStock() + ", Alert Level: " + med.getAlertLevel());
+        for (String line : lines) {
+            System.out.println(line);
         }
     }
 
@@ -76,7 +110,10 @@ public class MedicineHandler implements IMedicineHandler {
     public void updateMedicineStock(String name, int newStock) {
         Medicine medicine = findMedicineByName(name);
         if (medicine != null) {
-            medicine.setStock(newStock);
+            synchronized (EntityStore.getShared().getStateLock()) {
+                medicine.setStock(newStock);
+            }
+            reportStock(medicine);
             System.out.println("Notice: Updated stock: " + name + " to " + newStock + ".");
         } else {
             System.out.println("Error: " + name + "not found in inventory.");
@@ -91,7 +128,10 @@ public class MedicineHandler implements IMedicineHandler {
     public void updateStockAlertLevel(String name, int newAlertLevel) {
         Medicine medicine = findMedicineByName(name);
         if (medicine != null) {
-            medicine.setAlertLevel(newAlertLevel);
+            synchronized (EntityStore.getShared().getStateLock()) {
+                medicine.setAlertLevel(newAlertLevel);
+            }
+            reportStock(medicine);
             System.out.println("Notice: Updated alert level for " + name + " to " + newAlertLevel + ".");
         } else {
             System.out.println("Warning: " + name + "not found in inventory.");
@@ -105,7 +145,12 @@ public class MedicineHandler implements IMedicineHandler {
     public void removeMedicine(String name) {
         Medicine medicineToRemove = findMedicineByName(name);
         if (medicineToRemove != null) {
-            medicines.remove(medicineToRemove);
+            synchronized (EntityStore.getShared().getStateLock()) {
+                medicines.remove(EntityStore.medicineKey(medicineToRemove.getName()));
+            }
+            if (dashboardHandler != null) {
+                dashboardHandler.recordMedicineRemoved(medicineToRemove);
+            }
             System.out.println("Notice: " + name + " removed.");
         } else {
             System.out.println("Warning: " + name + "not found in inventory.");
@@ -118,12 +163,7 @@ public class MedicineHandler implements IMedicineHandler {
      * @return the medicine
      */
     public Medicine findMedicineByName(String name) {
-        for (Medicine med : medicines) {
-            if (med.getName().equalsIgnoreCase(name)) {
-                return med;
-            }
-        }
-        return null;
+        return medicines.get(EntityStore.medicineKey(name));
     }
 
     /**
@@ -131,7 +171,7 @@ public class MedicineHandler implements IMedicineHandler {
      * @return a list of medicines
      */
     public List<Medicine> getAllMedicines() {
-        return new ArrayList<>(medicines);
+        return getInventory();
     }
 
     /**
@@ -248,7 +288,7 @@ public class MedicineHandler implements IMedicineHandler {
     public void viewReplenishmentRequests() {
         System.out.println("\n===========================");
         System.out.println("Replenishment Requests:");
-        for (ReplenishmentRequest request : ReplenishmentRequest.getRequests()) {
+        for (ReplenishmentRequest request : replenishmentRequests.values()) {
             String status = request.isApproved() ? "Approved" : "Pending";
             System.out.println("Request Identifier: " + request.getRequestIdentifier() 
                                + " | Medicine: " + request.getMedicine().getName() 
@@ -262,12 +302,17 @@ public class MedicineHandler implements IMedicineHandler {
      * @param requestIdentifier the Identifier of the replennishmnet request
      */
     public void approveReplenishment(String requestIdentifier) {
-        for (ReplenishmentRequest request : ReplenishmentRequest.getRequests()) {
-            if (request.getRequestIdentifier().equals(requestIdentifier) && !request.isApproved()) {
+        ReplenishmentRequest request = replenishmentRequests.get(requestIdentifier);
+        if (request != null && !request.isApproved()) {
+            synchronized (EntityStore.getShared().getStateLock()) {
                 request.approve();
-                System.out.println("Notice: Request " + requestIdentifier + " approved.");
-                return;
             }
+            if (dashboardHandler != null) {
+                dashboardHandler.recordReplenishmentRequest(request);
+            }
+            reportStock(request.getMedicine());
+            System.out.println("Notice: Request " + requestIdentifier + " approved.");
+            return;
         }
         System.out.println("Error: Request not found / approved.");
     }
@@ -278,7 +323,7 @@ public class MedicineHandler implements IMedicineHandler {
      */
     public List<ReplenishmentRequest> getPendingReplenishmentRequests() {
         List<ReplenishmentRequest> pendingRequests = new ArrayList<>();
-        for (ReplenishmentRequest request : ReplenishmentRequest.getRequests()) {
+        for (ReplenishmentRequest request : replenishmentRequests.values()) {
             if (!request.isApproved()) {
                 pendingRequests.add(request);
             }
@@ -292,8 +337,7 @@ public class MedicineHandler implements IMedicineHandler {
      * @return a indication if the medicine is available
      */
     public boolean isAvailable(String medicineName) {
-        return medicines.stream()
-                .anyMatch(medicine -> medicine.getName().equalsIgnoreCase(medicineName));
+        return medicines.contains(EntityStore.medicineKey(medicineName));
     }
 
     /**
@@ -301,8 +345,9 @@ public class MedicineHandler implements IMedicineHandler {
      */
     public void displayInventory() {
         System.out.println("\n=== Inventory ===");
-        for (int i = 0; i < medicines.size(); i++) {
-            Medicine med = medicines.get(i);
+        List<Medicine> inventory = getInventory();
+        for (int i = 0; i < inventory.size(); i++) {
+            Medicine med = inventory.get(i);
             System.out.println(i + ": Name: " + med.getName());
         }
     }
@@ -313,8 +358,9 @@ public class MedicineHandler implements IMedicineHandler {
      * @return the medicine
      */
     public Medicine getMedicineByIndex(int index) {
-        if (index >= 0 && index < medicines.size()) {
-            return medicines.get(index);
+        List<Medicine> inventory = getInventory();
+        if (index >= 0 && index < inventory.size()) {
+            return inventory.get(index);
         }
         System.out.println("Error: Invalid index. Please select a valid medicine.");
         return null;
@@ -0,0 +1,268 @@
+package handlers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.IDashboardHandler;
+import interfaces.IMedicineHandler;
+import interfaces.IMedicineReloadHandler;
+import resources.EntityStore;
+import resources.Medicine;
+/**
+ * MedicineReloadHandler - applies out of band edits of Medicine.txt to the running inventory
+ * A background thread watches the file's directory and, once writes to the file settle, reads it and compares it with
+ * the version read last time rather than with the inventory, so stock dispensed since then is not put back by an
+ * edit to another row. New medicines are added and changed stock or alert levels are set, all under the entity
+ * store's state lock in one go, so an export, dispense or inventory view never sees half a reload. The file is read and compared
+ * outside the lock, dispensing only waits while the changes are applied. Rows removed from the file are left in
+ * the inventory, medicines are removed through the admin menu.
+ */
+public class MedicineReloadHandler implements IMedicineReloadHandler {
+
+    private static final long SETTLE_MS = 250;     /**< quiet time after the last write before the file is read */
+
+    private final Path filePath;
+    private final IMedicineHandler medicineHandler;
+    private volatile IDashboardHandler dashboardHandler;
+    private Map<String, Row> lastRead;              /**< medicine key to the row as last read, guarded by this */
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    /**
+     * Row class, one medicine line of the file
+     */
+    private static final class Row {
+        private final String name;
+        private final int stock;
+        private final int alertLevel;
+
+        /**
+         * Constructor for Row
+         * @param name the name of the medicine
+         * @param stock the stock in the file
+         * @param alertLevel the alert level in the file
+         */
+        private Row(String name, int stock, int alertLevel) {
+            this.name = name;
+            this.stock = stock;
+            this.alertLevel = alertLevel;
+        }
+    }
+
+    /**
+     * Constructor for MedicineReloadHandler, reads the file as it was imported and starts watching it
+     * @param filePath path to the medicine file
+     * @param medicineHandler the manager responsible for handling medicine-related operations
+     */
+    public MedicineReloadHandler(String filePath, IMedicineHandler medicineHandler) {
+        this.filePath = Paths.get(filePath).toAbsolutePath();
+        this.medicineHandler = medicineHandler;
+        Map<String, Row> rows = read();
+        this.lastRead = rows != null ? rows : new HashMap<>();
+        startWatching();
+    }
+
+    /**
+     * set method for the dashboard handler (to prevent cyclic in Main)
+     * @param dashboardHandler the dashboard that reloaded stock is reported to
+     */
+    public void setDashboardHandler(IDashboardHandler dashboardHandler) {
+        this.dashboardHandler = dashboardHandler;
+    }
+
+    /**
+     * reads the medicine file and applies the rows that changed since it was last read
+     * @return true if the file was read, false if it could not be
+     */
+    public synchronized boolean reload() {
+        Map<String, Row> rows = read();
+        if (rows == null) {
+            return false;
+        }
+        List<Row> changed = new ArrayList<>();
+        for (Map.Entry<String, Row> entry : rows.entrySet()) {
+            Row previous = lastRead.get(entry.getKey());
+            Row row = entry.getValue();
+            if (previous == null || previous.stock != row.stock || previous.alertLevel != row.alertLevel) {
+                changed.add(row);
+            }
+        }
+        lastRead = rows;
+        if (changed.isEmpty()) {
+            return true;
+        }
+
+        int added = 0;
+        int stockCorrections = 0;
+        int alertChanges = 0;
+        List<Medicine> touched = new ArrayList<>(changed.size());
+        synchronized (EntityStore.getShared().getStateLock()) {
+            for (Row row : changed) {
+                Medicine medicine = medicineHandler.findMedicineByName(row.name);
+                if (medicine == null) {
+                    medicineHandler.addMedicine(row.name, row.stock, row.alertLevel);
+                    added++;
+                    continue;
+                }
+                boolean updated = false;
+                if (medicine.getStock() != row.stock) {
+                    medicine.setStock(row.stock);
+                    stockCorrections++;
+                    updated = true;
+                }
+                if (medicine.getAlertLevel() != row.alertLevel) {
+                    medicine.setAlertLevel(row.alertLevel);
+                    alertChanges++;
+                    updated = true;
+                }
+                if (updated) {
+                    touched.add(medicine);
+                }
+            }
+        }
+
+        IDashboardHandler dashboard = dashboardHandler;
+        if (dashboard != null) {
+            for (Medicine medicine : touched) {
+                dashboard.recordStock(medicine);
+            }
+        }
+        if (added + stockCorrections + alertChanges > 0) {
+            System.out.println("Notice: " + filePath.getFileName() + " reloaded: " + added + " added, " + stockCorrections
+                    + " stock corrections, " + alertChanges + " alert level changes.");
+        }
+        return true;
+    }
+
+    /**
+     * reads the medicine file as the new starting point without applying it, used after the application wrote it itself
+     */
+    public synchronized void rebase() {
+        Map<String, Row> rows = read();
+        if (rows != null) {
+            lastRead = rows;
+        }
+    }
+
+    /**
+     * stops watching the medicine file
+     */
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // closing only fails if already closed
+            }
+        }
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+        }
+    }
+
+    /**
+     * reads the rows of the medicine file, rows that cannot be parsed are skipped with a warning
+     * @return medicine key to row in file order, or null if the file could not be read
+     */
+    private Map<String, Row> read() {
+        Map<String, Row> rows = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();    // header
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] data = line.split(",");
+                try {
+                    if (data.length < 3) {
+                        throw new NumberFormatException("expected 3 fields");
+                    }
+                    String name = data[0].trim();
+                    int stock = Integer.parseInt(data[1].trim());
+                    int alertLevel = Integer.parseInt(data[2].trim());
+                    if (name.isEmpty() || stock < 0 || alertLevel < 0) {
+                        throw new NumberFormatException("empty name or negative number");
+                    }
+                    rows.put(EntityStore.medicineKey(name), new Row(name, stock, alertLevel));
+                } catch (NumberFormatException e) {
+                    System.out.println("Warning: " + filePath.getFileName() + " line " + lineNumber + " skipped: " + e.getMessage() + ".");
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error: Unable to read " + filePath + ": " + e.getMessage());
+            return null;
+        }
+        return rows;
+    }
+
+    /**
+     * registers the file's directory with a watch service and starts the background thread that reloads on change
+     */
+    private void startWatching() {
+        try {
+            watchService = filePath.getFileSystem().newWatchService();
+            filePath.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Warning: " + filePath.getFileName() + " will not be reloaded while running: " + e.getMessage());
+            watchService = null;
+            return;
+        }
+        watcherThread = new Thread(this::runWatcher, "medicine-watch");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * waits for writes to the file, lets them settle and reloads, runs on the watcher thread until shutdown
+     */
+    private void runWatcher() {
+        try {
+            while (true) {
+                if (!concernsFile(watchService.take())) {
+                    continue;
+                }
+                // editors and copies write in several steps, wait until the file has been quiet for a while
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    concernsFile(key);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shut down
+        }
+    }
+
+    /**
+     * checks whether the events of a key include the medicine file, then resets the key for further events
+     * @param key the signalled key of the watched directory
+     * @return true if the medicine file was created or modified
+     */
+    private boolean concernsFile(WatchKey key) {
+        boolean concerns = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || filePath.getFileName().equals(event.context())) {
+                concerns = true;
+            }
+        }
+        key.reset();
+        return concerns;
+    }
+}
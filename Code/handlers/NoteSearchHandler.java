@@ -0,0 +1,310 @@
+package handlers;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import interfaces.INoteSearchHandler;
+import resources.NoteMatch;
+/**
+ * NoteSearchHandler - in process full text index of clinical notes ranked with BM25
+ * Every note is a document with an increasing number. Its text is split into case folded words without accents,
+ * common words dropped and plurals folded, and each word keeps a posting list of the documents holding it and how
+ * often, stored as variable length deltas of the document numbers since notes are only ever appended. A query walks
+ * the posting lists of its words together in document order, scoring each document that holds any of them and is
+ * one of the allowed patients, and keeps the best K in a heap.
+ */
+public class NoteSearchHandler implements INoteSearchHandler {
+
+    private static final double K1 = 1.2;          /**< how quickly repeated words stop adding to the score */
+    private static final double B = 0.75;          /**< how much long notes are penalised */
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have", "in", "is", "it", "of",
+            "on", "or", "the", "to", "was", "were", "with", "patient", "patients", "notes", "mentioning");
+
+    private final Map<String, Postings> postings;   /**< word to the documents holding it */
+    private final List<String> sources;             /**< document number to where the note came from */
+    private final List<String> texts;               /**< document number to the text of the note */
+    private int[] documentPatients;                 /**< document number to patient slot */
+    private int[] documentLengths;                  /**< document number to words indexed */
+    private final Map<String, Integer> patientSlots;
+    private final List<String> patientIdentifiers;  /**< patient slot to Identifier */
+    private int documentCount;
+    private long totalLength;                       /**< words indexed over every document, for the average length */
+
+    /**
+     * Postings class, the documents holding a word as variable length deltas of document number followed by frequency
+     */
+    private static final class Postings {
+        private byte[] data = new byte[4];
+        private int length;
+        private int lastDocument = -1;
+        private int documentFrequency;
+
+        /**
+         * appends a document, which must be numbered after every document already held
+         * @param document the document number
+         * @param frequency how often the word occurs in the document
+         */
+        private void add(int document, int frequency) {
+            write(document - lastDocument);
+            write(frequency);
+            lastDocument = document;
+            documentFrequency++;
+        }
+
+        /**
+         * appends a positive number seven bits at a time, lowest first
+         * @param value the number to append
+         */
+        private void write(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * Cursor class, a position in the posting list of one query word
+     */
+    private static final class Cursor {
+        private final Postings postings;
+        private final double idf;
+        private int position;
+        private int document = -1;  /**< current document, Integer.MAX_VALUE once exhausted */
+        private int frequency;
+
+        /**
+         * Constructor for Cursor, positioned on the first document
+         * @param postings the posting list to walk
+         * @param idf inverse document frequency of the word
+         */
+        private Cursor(Postings postings, double idf) {
+            this.postings = postings;
+            this.idf = idf;
+            next();
+        }
+
+        /**
+         * moves to the next document of the list
+         */
+        private void next() {
+            if (position >= postings.length) {
+                document = Integer.MAX_VALUE;
+                return;
+            }
+            document += read();
+            frequency = read();
+        }
+
+        /**
+         * reads one number written by Postings.write
+         * @return the number
+         */
+        private int read() {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = postings.data[position++];
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+    }
+
+    /**
+     * Constructor for NoteSearchHandler, starts empty
+     */
+    public NoteSearchHandler() {
+        this.postings = new HashMap<>();
+        this.sources = new ArrayList<>();
+        this.texts = new ArrayList<>();
+        this.documentPatients = new int[16];
+        this.documentLengths = new int[16];
+        this.patientSlots = new HashMap<>();
+        this.patientIdentifiers = new ArrayList<>();
+    }
+
+    /**
+     * adds a note to the index, a note without any searchable word is left out
+     * @param patientIdentifier the patient the note belongs to
+     * @param source where the note came from, e.g. Diagnosis D1
+     * @param text the text of the note
+     */
+    public synchronized void indexNote(String patientIdentifier, String source, String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        int length = 0;
+        for (String word : words(text)) {
+            frequencies.merge(word, 1, Integer::sum);
+            length++;
+        }
+        if (length == 0) {
+            return;
+        }
+
+        int document = documentCount++;
+        if (document == documentPatients.length) {
+            documentPatients = Arrays.copyOf(documentPatients, document * 2);
+            documentLengths = Arrays.copyOf(documentLengths, document * 2);
+        }
+        documentPatients[document] = patientSlots.computeIfAbsent(patientIdentifier, k -> {
+            patientIdentifiers.add(k);
+            return patientIdentifiers.size() - 1;
+        });
+        documentLengths[document] = length;
+        totalLength += length;
+        sources.add(source);
+        texts.add(text);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(document, entry.getValue());
+        }
+    }
+
+    /**
+     * finds the notes best matching a query among the notes of some patients, ranked by BM25
+     * a note matching more of the query's words, rarer words or the same word more often ranks higher
+     * @param query the words to search for
+     * @param patientIdentifiers the patients whose notes may be returned
+     * @param limit the most notes to return
+     * @return the matching notes, best first
+     */
+    public synchronized List<NoteMatch> search(String query, Collection<String> patientIdentifiers, int limit) {
+        List<NoteMatch> results = new ArrayList<>();
+        if (limit <= 0 || documentCount == 0) {
+            return results;
+        }
+        BitSet allowed = new BitSet(this.patientIdentifiers.size());
+        for (String patientIdentifier : patientIdentifiers) {
+            Integer slot = patientSlots.get(patientIdentifier);
+            if (slot != null) {
+                allowed.set(slot);
+            }
+        }
+        if (allowed.isEmpty()) {
+            return results;
+        }
+
+        List<Cursor> cursors = new ArrayList<>();
+        for (String word : new LinkedHashSet<>(words(query))) {
+            Postings list = postings.get(word);
+            if (list != null) {
+                double idf = Math.log(1 + (documentCount - list.documentFrequency + 0.5) / (list.documentFrequency + 0.5));
+                cursors.add(new Cursor(list, idf));
+            }
+        }
+        if (cursors.isEmpty()) {
+            return results;
+        }
+
+        double averageLength = (double) totalLength / documentCount;
+        Comparator<double[]> byScore = Comparator.comparingDouble(entry -> entry[1]);
+        // {document, score} of the best so far, worst first so it is the one dropped
+        PriorityQueue<double[]> best = new PriorityQueue<>(limit + 1, byScore);
+        while (true) {
+            int document = Integer.MAX_VALUE;
+            for (Cursor cursor : cursors) {
+                document = Math.min(document, cursor.document);
+            }
+            if (document == Integer.MAX_VALUE) {
+                break;
+            }
+            boolean include = allowed.get(documentPatients[document]);
+            double norm = K1 * (1 - B + B * documentLengths[document] / averageLength);
+            double score = 0;
+            for (Cursor cursor : cursors) {
+                if (cursor.document == document) {
+                    if (include) {
+                        score += cursor.idf * cursor.frequency * (K1 + 1) / (cursor.frequency + norm);
+                    }
+                    cursor.next();
+                }
+            }
+            if (include && (best.size() < limit || score > best.peek()[1])) {
+                best.offer(new double[] {document, score});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<double[]> ranked = new ArrayList<>(best);
+        ranked.sort(byScore.reversed());
+        for (double[] entry : ranked) {
+            int document = (int) entry[0];
+            results.add(new NoteMatch(this.patientIdentifiers.get(documentPatients[document]), sources.get(document),
+                    texts.get(document), entry[1]));
+        }
+        return results;
+    }
+
+    /**
+     * get method for the number of notes indexed
+     * @return the number of notes
+     */
+    public synchronized int getNoteCount() {
+        return documentCount;
+    }
+
+    /**
+     * splits text into the words it is indexed and searched by
+     * words are case folded without accents, common words are dropped and plurals folded so allergies finds allergy
+     * @param text the text to split
+     * @return the words in order, with repeats
+     */
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        if (!Normalizer.isNormalized(folded, Normalizer.Form.NFD)) {
+            folded = MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        }
+        Matcher matcher = WORD.matcher(folded);
+        while (matcher.find()) {
+            String word = matcher.group();
+            if (!STOP_WORDS.contains(word)) {
+                words.add(singular(word));
+            }
+        }
+        return words;
+    }
+
+    /**
+     * folds a plural word to its singular, applied the same way to notes and queries so it only has to be consistent
+     * @param word the folded word
+     * @return the word without a plural ending
+     */
+    private static String singular(String word) {
+        int length = word.length();
+        if (length > 4 && word.endsWith("ies")) {
+            return word.substring(0, length - 3) + "y";
+        }
+        if (length > 3 && word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, length - 1);
+        }
+        return word;
+    }
+}
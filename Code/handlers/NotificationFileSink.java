@@ -0,0 +1,90 @@
+package handlers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Flow;
+
+import resources.AppointmentEvent;
+
+/**
+ * NotificationFileSink - appends every appointment event as one line to a local file
+ * External reminder systems can follow the file, each line is flushed as soon as it is written.
+ */
+public class NotificationFileSink implements Flow.Subscriber<AppointmentEvent> {
+
+    private final Path filePath;
+    private BufferedWriter writer;
+    private Flow.Subscription subscription;
+
+    /**
+     * Constructor for NotificationFileSink, the file is opened when the sink is subscribed
+     * @param filePath path to the file events are appended to
+     */
+    public NotificationFileSink(String filePath) {
+        this.filePath = Paths.get(filePath);
+    }
+
+    /**
+     * opens the file and requests the first event
+     * @param subscription the subscription to the publisher
+     */
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        try {
+            writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.out.println("Error: Unable to open notification file " + filePath + ".");
+            subscription.cancel();
+            return;
+        }
+        subscription.request(1);
+    }
+
+    /**
+     * writes one event and requests the next, so the publisher never buffers more than the sink can take
+     * @param event the event published
+     */
+    public void onNext(AppointmentEvent event) {
+        try {
+            writer.write(event.toRecord());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            System.out.println("Error: Unable to write notification file " + filePath + ".");
+        }
+        subscription.request(1);
+    }
+
+    /**
+     * closes the file when the publisher fails
+     * @param throwable the failure
+     */
+    public void onError(Throwable throwable) {
+        close();
+    }
+
+    /**
+     * closes the file once every event is written
+     */
+    public void onComplete() {
+        close();
+    }
+
+    /**
+     * closes the file if it is open
+     */
+    private void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.out.println("Error: Unable to close notification file " + filePath + ".");
+            }
+        }
+    }
+}
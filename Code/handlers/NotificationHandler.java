@@ -0,0 +1,199 @@
+package handlers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.INotificationHandler;
+import resources.AppointmentEvent;
+/**
+ * NotificationHandler - in process publish/subscribe of appointment lifecycle events
+ * Events go through a SubmissionPublisher whose buffer per subscriber is bounded, and subscribers request one
+ * event at a time, so a slow subscriber holds the publisher back for a short while instead of growing a queue.
+ * Every event is delivered to the inboxes of the patient and doctor that did not make the change, shown at login.
+ */
+public class NotificationHandler implements INotificationHandler {
+
+    private static final int BUFFER_SIZE = 256;             /**< events buffered per subscriber */
+    private static final long PUBLISH_TIMEOUT_MS = 1000;    /**< how long publish waits for a full buffer */
+    private static final int INBOX_SIZE = 50;               /**< notifications kept per user, oldest dropped first */
+    private static final long INBOX_WAIT_MS = 500;          /**< how long displayInbox waits for events still in flight */
+
+    private final ExecutorService dispatcher;
+    private final SubmissionPublisher<AppointmentEvent> publisher;
+    private final Map<String, Deque<String>> inboxes;       /**< user Identifier to unread notifications, guarded by itself */
+    private long publishedEvents;                           /**< events queued to the inboxes, guarded by inboxes */
+    private long deliveredEvents;                           /**< events filed in the inboxes, guarded by inboxes */
+
+    /**
+     * Constructor for NotificationHandler, subscribes the user inboxes
+     */
+    public NotificationHandler() {
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher = new SubmissionPublisher<>(dispatcher, BUFFER_SIZE);
+        this.inboxes = new HashMap<>();
+        publisher.subscribe(new InboxSubscriber());
+    }
+
+    /**
+     * Constructor for NotificationHandler that also appends every event to a local file
+     * @param sinkFilePath path to the file external reminder systems read events from
+     */
+    public NotificationHandler(String sinkFilePath) {
+        this();
+        publisher.subscribe(new NotificationFileSink(sinkFilePath));
+    }
+
+    /**
+     * publishes an event to every subscriber, an event a subscriber cannot take within the timeout is dropped for it
+     * The event is counted for the inboxes before it is offered, so it cannot be filed before it is counted, and
+     * uncounted again if the inboxes drop it, so displayInbox never waits for an event that will not come
+     * Callers must not hold locks the subscribers wait for, or a full buffer waits out the timeout and drops
+     * @param event the event to publish
+     */
+    public void publish(AppointmentEvent event) {
+        if (publisher.isClosed()) {
+            return;
+        }
+        synchronized (inboxes) {
+            publishedEvents++;
+        }
+        publisher.offer(event, PUBLISH_TIMEOUT_MS, TimeUnit.MILLISECONDS, (subscriber, dropped) -> {
+            System.out.println("Warning: Notification for appointment " + dropped.getAppointmentIdentifier() + " dropped by a slow subscriber.");
+            if (subscriber instanceof InboxSubscriber) {
+                synchronized (inboxes) {
+                    publishedEvents--;
+                    inboxes.notifyAll();
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * adds a subscriber that receives every event published from now on
+     * @param subscriber the subscriber to add
+     */
+    public void subscribe(Flow.Subscriber<? super AppointmentEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * displays and clears the notifications waiting for a user, nothing is shown if there are none
+     * Events published before the call are waited for briefly, so a change made just before login is not missed
+     * @param userIdentifier the Identifier of the user
+     */
+    public void displayInbox(String userIdentifier) {
+        List<String> messages;
+        synchronized (inboxes) {
+            long deadline = System.currentTimeMillis() + INBOX_WAIT_MS;
+            long remaining = INBOX_WAIT_MS;
+            while (deliveredEvents < publishedEvents && remaining > 0) {
+                try {
+                    inboxes.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            Deque<String> inbox = inboxes.remove(userIdentifier);
+            if (inbox == null) {
+                return;
+            }
+            messages = new ArrayList<>(inbox);
+        }
+        System.out.println("\n--- Notifications (" + messages.size() + ") ---");
+        for (String message : messages) {
+            System.out.println(message);
+        }
+    }
+
+    /**
+     * stops accepting events and waits until the subscribers have received every published event
+     */
+    public void shutdown() {
+        publisher.close();
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * adds a message to the inbox of a user, dropping the oldest once the inbox is full
+     * @param userIdentifier the Identifier of the user
+     * @param message the message to add
+     */
+    private void deliver(String userIdentifier, String message) {
+        synchronized (inboxes) {
+            Deque<String> inbox = inboxes.computeIfAbsent(userIdentifier, k -> new ArrayDeque<>());
+            if (inbox.size() == INBOX_SIZE) {
+                inbox.pollFirst();
+            }
+            inbox.addLast(message);
+        }
+    }
+
+    /**
+     * InboxSubscriber - files each event in the inboxes of the participants that did not make the change
+     */
+    private class InboxSubscriber implements Flow.Subscriber<AppointmentEvent> {
+        private Flow.Subscription subscription;
+
+        /**
+         * requests the first event
+         * @param subscription the subscription to the publisher
+         */
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        /**
+         * delivers one event and requests the next
+         * @param event the event published
+         */
+        public void onNext(AppointmentEvent event) {
+            if (!event.getPatientIdentifier().equals(event.getActorIdentifier())) {
+                deliver(event.getPatientIdentifier(), event.getMessage());
+            }
+            if (!event.getDoctorIdentifier().equals(event.getActorIdentifier())) {
+                deliver(event.getDoctorIdentifier(), event.getMessage());
+            }
+            synchronized (inboxes) {
+                deliveredEvents++;
+                inboxes.notifyAll();
+            }
+            subscription.request(1);
+        }
+
+        /**
+         * reports that the publisher failed
+         * @param throwable the failure
+         */
+        public void onError(Throwable throwable) {
+            System.out.println("Error: Notification inbox stopped: " + throwable.getMessage());
+        }
+
+        /**
+         * nothing to release, inboxes stay readable after the publisher closes
+         */
+        public void onComplete() {
+        }
+    }
+}
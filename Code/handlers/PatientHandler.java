@@ -1,19 +1,24 @@
 package handlers;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import interfaces.*;
+import resources.EntityStore;
 import resources.MedicalRecord;
+import resources.Permission;
+import resources.Repository;
 import userclasses.*;
 /**
  * Class that manages patient related operations
  */
 public class PatientHandler implements IPatientHandler {
 
-    private List<Patient> patientList;
+    private Repository<String, Patient> patientList;    /**< patients by Identifier, from the entity store */
+    private final PatientIndex patientIndex;            /**< search by name, date of birth and email, guarded by the state lock */
     private IAppointmentHandler appointmentHandler;
+    private IAuditHandler auditHandler;
+    private IAccessControlHandler accessControlHandler;
 
     /**
      * Constructor for PatientHandler
@@ -21,7 +26,8 @@ public class PatientHandler implements IPatientHandler {
      * @param appointmentHandler the manager used for managing appointment-related operations
      */
     public PatientHandler(AppointmentHandler appointmentHandler) {
-        this.patientList = new ArrayList<>();
+        this.patientList = EntityStore.getShared().getPatients();
+        this.patientIndex = new PatientIndex();
         this.appointmentHandler = appointmentHandler;
     }
 
@@ -32,14 +38,37 @@ public class PatientHandler implements IPatientHandler {
     public void setAppointmentHandler(IAppointmentHandler am){
         this.appointmentHandler = am;
     }
+
+    /**
+     * set the audit handler
+     * @param ah the audit handler to set
+     */
+    public void setAuditHandler(IAuditHandler ah){
+        this.auditHandler = ah;
+    }
+
+    /**
+     * set the access control handler
+     * @param ach the access control policy to consult
+     */
+    public void setAccessControlHandler(IAccessControlHandler ach){
+        this.accessControlHandler = ach;
+    }
     
     /**
      * Display medical record of a patient
      * @param patient the patient which medical record is being retrieved
      */
     public void viewMedicalRecord(Patient patient) {
+        if (accessControlHandler == null || !accessControlHandler.isAllowed(patient, Permission.VIEW_MEDICAL_RECORD, patient.getUserId())) {
+            System.out.println("Access denied: You are not allowed to view this medical record.");
+            return;
+        }
         MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(patient.getUserId());
         if (record != null) {
+            if (auditHandler != null) {
+                auditHandler.recordRead(patient.getUserId(), patient.getUserId(), "MedicalRecord");
+            }
             record.viewMedicalRecord();
         } else {
             System.out.println("Error: No medical record found Patient: " + patient.getName());
@@ -53,9 +82,16 @@ public class PatientHandler implements IPatientHandler {
      * @param phone the phone number of the patient
      */
     public void updateContactInfo(Patient patient, String newContactInfo, int phone) {
+        if (accessControlHandler == null || !accessControlHandler.isAllowed(patient, Permission.UPDATE_CONTACT_INFO, patient.getUserId())) {
+            System.out.println("Access denied: You are not allowed to update this contact information.");
+            return;
+        }
         if (newContactInfo != null && !newContactInfo.trim().isEmpty()) {
-            patient.setContactInfo(newContactInfo);
-            patient.setPhoneNumber(phone);
+            synchronized (EntityStore.getShared().getStateLock()) {
+                patient.setContactInfo(newContactInfo);
+                patient.setPhoneNumber(phone);
+                patientIndex.update(patient);
+            }
             System.out.println("Notice: Updated contact information.");
         } else {
             System.out.println("Error: Invalid contact information.");
@@ -68,8 +104,8 @@ public class PatientHandler implements IPatientHandler {
      * @return a list of patient
      */
     public List<Patient> getAllPatients(Staff caller) { //
-    if ("Doctor".equals(caller.getRole()) || "Administrator".equals(caller.getRole())) {
-        return new ArrayList<>(patientList);
+    if (accessControlHandler != null && accessControlHandler.isAllowed(caller, Permission.VIEW_ALL_PATIENTS)) {
+        return patientList.list();
     } else {
         System.out.println("Access denied. Only doctors or administrators can access all patient records.");
         return Collections.emptyList();
@@ -81,7 +117,7 @@ public class PatientHandler implements IPatientHandler {
      * @return a list of patients
      */
     public List<Patient> getAllPatientsInternal() {
-        return patientList;
+        return patientList.list();
     }
 
     /**
@@ -90,22 +126,32 @@ public class PatientHandler implements IPatientHandler {
      * @return the patient
      */
     public Patient findPatientById(String patientIdentifier) {
-        for (Patient patient : getAllPatientsInternal()) {
-            if (patient.getPatientIdentifier().equals(patientIdentifier)) {
-                return patient;
-            }
-        }
-        return null;
+        return patientList.get(patientIdentifier);
     }
     
+    /**
+     * Finds the patients best matching part of a name, date of birth or email
+     * @param query words of a name, a date of birth (yyyy, yyyy-mm or yyyy-mm-dd) or an email, in any order
+     * @param limit the most patients to return
+     * @return the matching patients, best first
+     */
+    public List<Patient> searchPatients(String query, int limit) {
+        synchronized (EntityStore.getShared().getStateLock()) {
+            return patientIndex.search(query, limit);
+        }
+    }
+
     /**
      * Adds a new patient to the patient list
      * @param patient the patient to be added
      */
     public void addPatient(Patient patient) {
-        if (!patientList.contains(patient)) {
-            patientList.add(patient);
-            //System.out.println("Patient added: " + patient.getName() + " (Identifier: " + patient.getUserId() + ")");
+        synchronized (EntityStore.getShared().getStateLock()) {
+            if (!patientList.contains(patient.getPatientIdentifier())) {
+                patientList.put(patient);
+                patientIndex.add(patient);
+                //System.out.println("Patient added: " + patient.getName() + " (Identifier: " + patient.getUserId() + ")");
+            }
         }
     }
     
@@ -0,0 +1,455 @@
+package handlers;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import userclasses.Patient;
+/**
+ * PatientIndex - prefix search over patient names, dates of birth and email addresses
+ * Names and the part of an email before the @ are split into case folded words of letters without accents, and those
+ * words and the ISO date of birth are keys of one sorted map to the slots of the patients holding them, so a prefix is
+ * a range of that map. Whole emails are kept in a hash map instead, since nearly every one is unique and would
+ * crowd the sorted map. A query word that is a date prefix (1990, 1990-07) or contains an @ is kept whole, other
+ * query words are split like names, and numbers in them are checked against the numbers of the email. Every query
+ * word has to match, the candidates of the word with the fewest matches are checked against the others and the best
+ * K are kept in a heap, so a search costs about the matches of its most selective word however many patients there are.
+ * Not thread safe, callers synchronize.
+ */
+public class PatientIndex {
+
+    private static final Pattern DATE_PREFIX = Pattern.compile("\\d{4}(-\\d{0,2}(-\\d{0,2})?)?");
+    private static final Pattern LETTERS = Pattern.compile("\\p{L}+");
+    private static final Pattern DIGITS = Pattern.compile("\\p{N}+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final List<Entry> slots;                        /**< slot number to indexed patient, null when free */
+    private final Deque<Integer> freeSlots;                 /**< slots released by re-indexed patients */
+    private final Map<String, Integer> slotById;            /**< patient Identifier to slot */
+    private final NavigableMap<String, Postings> keys;      /**< word or date of birth to the slots holding it, sorted for prefixes */
+    private final Map<String, Postings> emails;             /**< whole email to the slots holding it */
+
+    /**
+     * Kind enum, how a query word is looked up and matched
+     */
+    private enum Kind {
+        WORD,       /**< prefix of a name or email word */
+        DATE,       /**< prefix of the date of birth */
+        EMAIL,      /**< the whole email, or a prefix of it */
+        NUMBER      /**< prefix of a number in the email, only checked on candidates */
+    }
+
+    /**
+     * Term class, one word of a query
+     */
+    private static final class Term {
+        private final Kind kind;
+        private final String text;
+
+        /**
+         * Constructor for Term
+         * @param kind how the word is looked up and matched
+         * @param text the folded word
+         */
+        private Term(Kind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Entry class, a patient and the keys it was indexed under
+     */
+    private static final class Entry {
+        private final Patient patient;
+        private final String[] nameWords;
+        private final String[] emailWords;      /**< words of letters before the @ */
+        private final String[] emailNumbers;    /**< numbers before the @ */
+        private final String email;             /**< the whole folded email, empty if none */
+        private final String dateOfBirth;       /**< ISO date of birth, or null */
+
+        /**
+         * Constructor for Entry, splits the patient's name and email into the words it is indexed under
+         * @param patient the patient
+         */
+        private Entry(Patient patient) {
+            this.patient = patient;
+            this.email = fold(patient.getContactInfo());
+            int at = email.indexOf('@');
+            String local = at >= 0 ? email.substring(0, at) : email;
+            this.nameWords = runs(LETTERS, fold(patient.getName())).toArray(new String[0]);
+            this.emailWords = runs(LETTERS, local).toArray(new String[0]);
+            this.emailNumbers = runs(DIGITS, local).toArray(new String[0]);
+            this.dateOfBirth = patient.getDateOfBirth() == null ? null : patient.getDateOfBirth().toString();
+        }
+
+        /**
+         * get method for the keys of the sorted map this patient is held under, without repeats
+         * @return the words and date of birth
+         */
+        private List<String> sortedKeys() {
+            List<String> entryKeys = new ArrayList<>(nameWords.length + emailWords.length + 1);
+            for (String word : nameWords) {
+                if (!entryKeys.contains(word)) {
+                    entryKeys.add(word);
+                }
+            }
+            for (String word : emailWords) {
+                if (!entryKeys.contains(word)) {
+                    entryKeys.add(word);
+                }
+            }
+            if (dateOfBirth != null) {
+                entryKeys.add(dateOfBirth);
+            }
+            return entryKeys;
+        }
+    }
+
+    /**
+     * Postings class, a growable list of the slots holding a key
+     */
+    private static final class Postings {
+        private int[] slots = new int[1];     /**< starts small, most emails are held by one patient */
+        private int size;
+
+        /**
+         * adds a slot
+         * @param slot the slot to add
+         */
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        /**
+         * removes a slot, moving the last one into its place
+         * @param slot the slot to remove
+         */
+        private void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Match class, a patient found by a search and its score
+     */
+    private static final class Match {
+        private final Patient patient;
+        private final int score;
+
+        /**
+         * Constructor for Match
+         * @param patient the patient found
+         * @param score how well the query matched, higher is better
+         */
+        private Match(Patient patient, int score) {
+            this.patient = patient;
+            this.score = score;
+        }
+    }
+
+    /**
+     * best matches first: higher score, then name, then Identifier
+     */
+    private static final Comparator<Match> RANKING = Comparator.<Match>comparingInt(match -> -match.score)
+            .thenComparing(match -> String.valueOf(match.patient.getName()), String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(match -> match.patient.getUserId());
+
+    /**
+     * Constructor for PatientIndex, starts empty
+     */
+    public PatientIndex() {
+        this.slots = new ArrayList<>();
+        this.freeSlots = new ArrayDeque<>();
+        this.slotById = new HashMap<>();
+        this.keys = new TreeMap<>();
+        this.emails = new HashMap<>();
+    }
+
+    /**
+     * indexes a patient, replacing the keys it was indexed under before
+     * @param patient the patient to index
+     */
+    public void add(Patient patient) {
+        remove(patient.getUserId());
+        Entry entry = new Entry(patient);
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = slots.size();
+            slots.add(entry);
+        } else {
+            slot = freeSlots.pop();
+            slots.set(slot, entry);
+        }
+        slotById.put(patient.getUserId(), slot);
+        for (String key : entry.sortedKeys()) {
+            keys.computeIfAbsent(key, k -> new Postings()).add(slot);
+        }
+        if (!entry.email.isEmpty()) {
+            emails.computeIfAbsent(entry.email, k -> new Postings()).add(slot);
+        }
+    }
+
+    /**
+     * re-indexes a patient after its name or contact information changed
+     * the keys it was indexed under are remembered per slot, so this works after the change
+     * @param patient the patient to re-index
+     */
+    public void update(Patient patient) {
+        add(patient);
+    }
+
+    /**
+     * removes a patient from the index
+     * @param patientIdentifier the Identifier of the patient
+     */
+    public void remove(String patientIdentifier) {
+        Integer slot = slotById.remove(patientIdentifier);
+        if (slot == null) {
+            return;
+        }
+        Entry entry = slots.get(slot);
+        for (String key : entry.sortedKeys()) {
+            clear(keys, key, slot);
+        }
+        clear(emails, entry.email, slot);
+        slots.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    /**
+     * get method for the number of patients indexed
+     * @return the number of patients
+     */
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * finds the patients matching every word of a query, best matches first
+     * a word matches a name word, an email word, the email or the date of birth it is a prefix of, and scores more
+     * for a whole word than for a prefix and for the name or date of birth than for the email
+     * @param query words of a name, a date of birth (yyyy, yyyy-mm or yyyy-mm-dd) or an email, in any order
+     * @param limit the most patients to return
+     * @return up to limit patients, best first
+     */
+    public List<Patient> search(String query, int limit) {
+        List<Term> terms = queryTerms(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // the word matching the fewest slots drives the search, counting stops once a word is no better
+        Collection<Postings> driver = null;
+        long fewest = Long.MAX_VALUE;
+        for (Term term : terms) {
+            Collection<Postings> candidates;
+            if (term.kind == Kind.EMAIL) {
+                Postings exact = emails.get(term.text);
+                if (exact == null) {
+                    continue;       // a partial email is only checked, its words are terms of their own
+                }
+                candidates = List.of(exact);
+            } else if (term.kind == Kind.NUMBER) {
+                continue;
+            } else {
+                candidates = keys.subMap(term.text, true, term.text + Character.MAX_VALUE, false).values();
+            }
+            long count = 0;
+            for (Postings postings : candidates) {
+                count += postings.size;
+                if (count >= fewest) {
+                    break;
+                }
+            }
+            if (count < fewest) {
+                fewest = count;
+                driver = candidates;
+            }
+        }
+        if (driver == null || fewest == 0) {
+            return new ArrayList<>();
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        BitSet seen = new BitSet(slots.size());
+        for (Postings postings : driver) {
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.slots[i];
+                if (seen.get(slot)) {
+                    continue;
+                }
+                seen.set(slot);
+                Entry entry = slots.get(slot);
+                int score = score(entry, terms);
+                if (score == 0 || (best.size() == limit && score < best.peek().score)) {
+                    continue;
+                }
+                best.offer(new Match(entry.patient, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<Patient> patients = new ArrayList<>(ranked.size());
+        for (Match match : ranked) {
+            patients.add(match.patient);
+        }
+        return patients;
+    }
+
+    /**
+     * scores an indexed patient against every word of a query
+     * @param entry the indexed patient
+     * @param terms the words of the query
+     * @return the sum of the best score of each word, or 0 if a word matches nothing
+     */
+    private static int score(Entry entry, List<Term> terms) {
+        int total = 0;
+        for (Term term : terms) {
+            int best = 0;
+            switch (term.kind) {
+                case WORD:
+                    best = Math.max(bestOf(entry.nameWords, term.text, 4, 2), bestOf(entry.emailWords, term.text, 3, 1));
+                    break;
+                case DATE:
+                    best = entry.dateOfBirth == null ? 0 : entry.dateOfBirth.equals(term.text) ? 4 : entry.dateOfBirth.startsWith(term.text) ? 2 : 0;
+                    break;
+                case EMAIL:
+                    best = entry.email.equals(term.text) ? 6 : entry.email.startsWith(term.text) ? 3 : 0;
+                    break;
+                case NUMBER:
+                    best = bestOf(entry.emailNumbers, term.text, 2, 1);
+                    break;
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * scores a query word against the words of one field
+     * @param words the words of the field
+     * @param text the query word
+     * @param whole the score for a word equal to the query word
+     * @param prefix the score for a word starting with the query word
+     * @return the best score, 0 if no word starts with the query word
+     */
+    private static int bestOf(String[] words, String text, int whole, int prefix) {
+        int best = 0;
+        for (String word : words) {
+            if (word.equals(text)) {
+                return whole;
+            }
+            if (word.startsWith(text)) {
+                best = prefix;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * clears a slot from the postings of one key and drops the key once no slot holds it
+     * @param index the map holding the postings
+     * @param key the key
+     * @param slot the slot to clear
+     */
+    private static void clear(Map<String, Postings> index, String key, int slot) {
+        Postings postings = index.get(key);
+        if (postings != null) {
+            postings.remove(slot);
+            if (postings.size == 0) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * splits a query into the words it is searched by
+     * @param query the query as typed
+     * @return the words, date prefixes and emails kept whole
+     */
+    private static List<Term> queryTerms(String query) {
+        List<Term> terms = new ArrayList<>();
+        for (String part : fold(query).split("\\s+")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            if (DATE_PREFIX.matcher(part).matches()) {
+                terms.add(new Term(Kind.DATE, part));
+                continue;
+            }
+            int at = part.indexOf('@');
+            if (at >= 0) {
+                terms.add(new Term(Kind.EMAIL, part));
+                part = part.substring(0, at);
+            }
+            for (String word : runs(LETTERS, part)) {
+                terms.add(new Term(Kind.WORD, word));
+            }
+            for (String number : runs(DIGITS, part)) {
+                terms.add(new Term(Kind.NUMBER, number));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * finds the runs of a pattern in folded text
+     * @param pattern the pattern of a run, letters or digits
+     * @param text the folded text
+     * @return the runs in order
+     */
+    private static List<String> runs(Pattern pattern, String text) {
+        List<String> runs = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            runs.add(matcher.group());
+        }
+        return runs;
+    }
+
+    /**
+     * folds text so searches ignore case and accents
+     * @param text the text to fold
+     * @return the lower case text without accents, empty for null
+     */
+    private static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = text.trim().toLowerCase(Locale.ROOT);
+        if (!Normalizer.isNormalized(folded, Normalizer.Form.NFD)) {
+            folded = MARKS.matcher(Normalizer.normalize(folded, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return folded;
+    }
+}
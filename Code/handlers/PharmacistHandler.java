@@ -1,6 +1,5 @@
 package handlers;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -14,7 +13,8 @@ public class PharmacistHandler implements IPharmacistHandler {
 
     private IPrescriptionHandler prescriptionHandler;
     private IMedicineHandler medicineHandler;
-    private List<ReplenishmentRequest> replenishmentRequests;
+    private Repository<String, ReplenishmentRequest> replenishmentRequests;    /**< requests by Identifier, from the entity store */
+    private IDashboardHandler dashboardHandler;                                /**< rollups for the admin dashboard, optional */
 
     /**
      * Constructor for PharmacistHandler
@@ -24,7 +24,15 @@ public class PharmacistHandler implements IPharmacistHandler {
     public PharmacistHandler(IPrescriptionHandler prescriptionHandler, IMedicineHandler medicineHandler) {
         this.prescriptionHandler = prescriptionHandler;
         this.medicineHandler = medicineHandler;
-        this.replenishmentRequests = new ArrayList<>();
+        this.replenishmentRequests = EntityStore.getShared().getReplenishmentRequests();
+    }
+
+    /**
+     * set method to set dashboard handler
+     * @param dh the dashboard that replenishment requests are reported to
+     */
+    public void setDashboardHandler(IDashboardHandler dh){
+        this.dashboardHandler = dh;
     }
 
     /**
@@ -82,8 +90,45 @@ public class PharmacistHandler implements IPharmacistHandler {
      * @param prescriptionIdentifier the Identifier of the prescription to be udpated
      */
     public void updatePrescriptionStatus(String prescriptionIdentifier) {
-        if (!prescriptionHandler.updatePrescriptionStatus(prescriptionIdentifier)) {
+        if (prescriptionHandler.findPrescriptionById(prescriptionIdentifier) == null) {
             System.out.println("Error: Prescription: " + prescriptionIdentifier + " not found.");
+            return;
+        }
+        prescriptionHandler.updatePrescriptionStatus(prescriptionIdentifier);
+    }
+
+    /**
+     * claim the oldest pending prescription from the work queue and display it
+     * @param pharmacistIdentifier the Identifier of the pharmacist claiming
+     * @return the claimed prescription, or null if none is waiting
+     */
+    public Prescription claimNextPrescription(String pharmacistIdentifier) {
+        Prescription claimed = prescriptionHandler.claimNextPrescription(pharmacistIdentifier);
+        if (claimed == null) {
+            System.out.println("Notice: No prescriptions waiting to be dispensed.");
+        } else {
+            System.out.println("\n--- Claimed Prescription ---");
+            System.out.println(claimed);
+        }
+        return claimed;
+    }
+
+    /**
+     * dispense the prescription claimed by a pharmacist
+     * @param pharmacistIdentifier the Identifier of the pharmacist dispensing
+     */
+    public void dispenseClaimedPrescription(String pharmacistIdentifier) {
+        prescriptionHandler.dispenseClaimedPrescription(pharmacistIdentifier);
+    }
+
+    /**
+     * return the prescription claimed by a pharmacist to the work queue
+     * @param pharmacistIdentifier the Identifier of the pharmacist releasing
+     */
+    public void releaseClaimedPrescription(String pharmacistIdentifier) {
+        Prescription released = prescriptionHandler.releasePrescription(pharmacistIdentifier);
+        if (released != null) {
+            System.out.println("Notice: Prescription: " + released.getPrescriptionIdentifier() + " returned to the queue.");
         }
     }
 
@@ -102,8 +147,8 @@ public class PharmacistHandler implements IPharmacistHandler {
 
         if (medicineHandler.needsReplenishment(medicine.getName())) {
             boolean alreadyRequested = false;
-            for (ReplenishmentRequest request : replenishmentRequests) {
-                if (request.getMedicine().equals(medicine) && !request.isApproved()) {
+            for (ReplenishmentRequest request : replenishmentRequests.findBy("medicine", EntityStore.medicineKey(medicine.getName()))) {
+                if (!request.isApproved()) {
                     alreadyRequested = true;
                     break;
                 }
@@ -119,7 +164,13 @@ public class PharmacistHandler implements IPharmacistHandler {
             String requestIdentifier = "R" + LocalDateTime.now().format(formatter);
             ReplenishmentRequest request = new ReplenishmentRequest(requestIdentifier, medicine, amt, "pharmacistIdentifier", "pharmacistName");
 
-            replenishmentRequests.add(request);  // Track this request locally for the pharmacist
+            if (!replenishmentRequests.put(request)) {
+                System.out.println("Error: Request " + requestIdentifier + " already exists, please submit it again.");
+                return;
+            }
+            if (dashboardHandler != null) {
+                dashboardHandler.recordReplenishmentRequest(request);
+            }
             System.out.println("Notice: Request Submitted: " + amt + " units of " + medicine.getName());
         } else {
             System.out.println("Notice: Replenishment not needed for " + medicine.getName() + ".");
@@ -140,7 +191,7 @@ public class PharmacistHandler implements IPharmacistHandler {
     public void viewReplenishmentRequests() {
         System.out.println("\n===========================\n");
         System.out.println("Replenishment Requests by Pharmacist:");
-        for (ReplenishmentRequest request : replenishmentRequests) {
+        for (ReplenishmentRequest request : replenishmentRequests.values()) {
             String status = request.isApproved() ? "Approved" : "Pending";
             System.out.println("Request Identifier: " + request.getRequestIdentifier() + ", Medicine: " 
                                + request.getMedicine().getName() + ", Amount: " + request.getRequestedAmount()
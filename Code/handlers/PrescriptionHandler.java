@@ -1,7 +1,9 @@
 package handlers;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import resources.*;
 import interfaces.*;
@@ -10,15 +12,19 @@ import interfaces.*;
  */
 public class PrescriptionHandler implements IPrescriptionHandler {
 
-    private List<Prescription> prescriptions;
+    private Repository<String, Prescription> prescriptions;    /**< prescriptions by Identifier, from the entity store */
+    private final PrescriptionQueue pendingQueue;               /**< pending prescriptions in the order they were issued */
     private IMedicineHandler medicineHandler;
+    private IAnalyticsHandler analyticsHandler;
+    private IDashboardHandler dashboardHandler;
 
     /**
      * Constructor for PrescriptionHandler
      * @param medicineHandler the manager responsible for handling medicine-related operations
      */
     public PrescriptionHandler(IMedicineHandler medicineHandler) {
-        this.prescriptions = new ArrayList<>();
+        this.prescriptions = EntityStore.getShared().getPrescriptions();
+        this.pendingQueue = new PrescriptionQueue();
         this.medicineHandler = medicineHandler;
     }
 
@@ -31,11 +37,39 @@ public class PrescriptionHandler implements IPrescriptionHandler {
     }
 
     /**
-     * adds prescription to a list of all prescription
+     * set analytics handler
+     * @param ah the handler that issued prescriptions are reported to
+     */
+    public void setAnalyticsHandler(IAnalyticsHandler ah){
+        this.analyticsHandler = ah;
+    }
+
+    /**
+     * set dashboard handler
+     * @param dh the dashboard that prescription status and stock changes are reported to
+     */
+    public void setDashboardHandler(IDashboardHandler dh){
+        this.dashboardHandler = dh;
+    }
+
+    /**
+     * adds prescription to a list of all prescription, and to the back of the work queue if it is pending
      * @param prescription the prescription to be added
      */
-    public void addPrescription(Prescription prescription) {
-        prescriptions.add(prescription);
+    public synchronized void addPrescription(Prescription prescription) {
+        if (!prescriptions.put(prescription)) {
+            System.out.println("Error: Prescription " + prescription.getPrescriptionIdentifier() + " already exists.");
+            return;
+        }
+        if (prescription.getStatus() == PrescriptionStatus.PENDING) {
+            pendingQueue.enqueue(prescription);
+        }
+        if (analyticsHandler != null) {
+            analyticsHandler.recordPrescription(prescription);
+        }
+        if (dashboardHandler != null) {
+            dashboardHandler.recordPrescription(prescription);
+        }
         System.out.println("Notice: Prescription added: " + prescription);
     }
 
@@ -44,65 +78,121 @@ public class PrescriptionHandler implements IPrescriptionHandler {
      * @return the list of prescriptions
      */
     public List<Prescription> getAllPrescriptions() {
-        return new ArrayList<>(prescriptions);  // return a copy to prevent direct modification
+        return prescriptions.list();  // return a copy to prevent direct modification
     }
 
 
     /**
-     * Retrieves all pending prescrpition in the system
+     * Retrieves all pending prescrpition in the system, from the status index
      * @return the list of pending prescriptions
      */
     public List<Prescription> getPendingPrescriptions() {
-        List<Prescription> pendingPrescriptions = new ArrayList<>();
-        for (Prescription prescription : prescriptions) {
-            if ("Pending".equalsIgnoreCase(prescription.getStatus())) {
-                pendingPrescriptions.add(prescription);
-            }
-        }
-        return pendingPrescriptions;
+        return new ArrayList<>(prescriptions.findBy("status", PrescriptionStatus.PENDING));
     }
 
     /**
-     * Updates a prescription status
+     * Updates a prescription status, refused while another pharmacist has claimed it
      * @param prescriptionIdentifier the Identifier of prescription that is to be updated
      * @return a boolean indicating if the status has been successfully updated
      */
     public boolean updatePrescriptionStatus(String prescriptionIdentifier) {
         Prescription prescription = findPrescriptionById(prescriptionIdentifier);
-        if (prescription != null) {
-            if ("Pending".equalsIgnoreCase(prescription.getStatus())) {
-                //dispensed
-                prescription.updateStatus();
-
-                List<Medicine> medicines = prescription.getMedicines();
-                List<Integer> quantities = prescription.getQuantities();
-
-                for (int i = 0; i < medicines.size(); i++) {
-                    Medicine medicine = medicines.get(i);
-                    int quantity = quantities.get(i);
-                    //check stock and deduct when dispensed
-                    if (medicine.getStock() >= quantity) {
-                        medicine.deductStock(quantity);
-                        System.out.println("Notie: Deducted " + quantity + " units of " + medicine.getName() + ". Remaining stock: " + medicine.getStock());
-                        if(medicine.alertReplenishment()){
-                            System.out.println("Warning: " + medicine.getName() + " requires replenishment.");
-                        };
-                    } else {
-                        System.out.println("Error: Insufficient stock for " + medicine.getName() + ". Prescription update cancelled.");
-                        return false;
-                    }
-                }
+        if (prescription == null) {
+            return false;
+        }
+        if (pendingQueue.getClaimant(prescriptionIdentifier) != null) {
+            System.out.println("Error: Prescription: " + prescriptionIdentifier + " is claimed by pharmacist " + pendingQueue.getClaimant(prescriptionIdentifier) + ".");
+            return false;
+        }
+        return dispense(prescription);
+    }
+
+    /**
+     * Claims the oldest pending prescription for a pharmacist, no other pharmacist can dispense it until it is released
+     * @param pharmacistIdentifier the pharmacist claiming
+     * @return the prescription already claimed by the pharmacist, else the oldest waiting one, or null if none is waiting
+     */
+    public Prescription claimNextPrescription(String pharmacistIdentifier) {
+        return pendingQueue.claim(pharmacistIdentifier);
+    }
+
+    /**
+     * Dispenses the prescription a pharmacist has claimed, on success it leaves the work queue
+     * @param pharmacistIdentifier the pharmacist dispensing
+     * @return a boolean indicating if the prescription was dispensed
+     */
+    public boolean dispenseClaimedPrescription(String pharmacistIdentifier) {
+        Prescription prescription = pendingQueue.getClaim(pharmacistIdentifier);
+        if (prescription == null) {
+            System.out.println("Error: No prescription claimed.");
+            return false;
+        }
+        return dispense(prescription);
+    }
 
-                return true;
-            } else {
+    /**
+     * Returns the prescription a pharmacist has claimed to the head of the work queue
+     * @param pharmacistIdentifier the pharmacist releasing
+     * @return the released prescription, or null if the pharmacist held no claim
+     */
+    public Prescription releasePrescription(String pharmacistIdentifier) {
+        return pendingQueue.release(pharmacistIdentifier);
+    }
+
+    /**
+     * Marks a prescription dispensed and deducts its medicines, only if every medicine is in stock
+     * The stock check, the deductions and the status change run under the entity store's state lock, so a
+     * medicine reload or an export never sees part of a prescription and the status only changes once every
+     * medicine has been deducted
+     * @param prescription the prescription to dispense
+     * @return a boolean indicating if the prescription was dispensed
+     */
+    private boolean dispense(Prescription prescription) {
+        List<Medicine> medicines = prescription.getMedicines();
+        List<Integer> quantities = prescription.getQuantities();
+
+        synchronized (EntityStore.getShared().getStateLock()) {
+            if (!prescription.getStatus().canTransitionTo(PrescriptionStatus.DISPENSED)) {
                 System.out.println("Error: Prescription already dispensed.");
                 return false;
             }
-        } else {
-            return false;
+
+            //check all stock first so a failed dispense leaves the prescription pending
+            Map<Medicine, Integer> required = new LinkedHashMap<>();
+            for (int i = 0; i < medicines.size(); i++) {
+                required.merge(medicines.get(i), quantities.get(i), Integer::sum);
+            }
+            for (Map.Entry<Medicine, Integer> entry : required.entrySet()) {
+                if (entry.getKey().getStock() < entry.getValue()) {
+                    System.out.println("Error: Insufficient stock for " + entry.getKey().getName() + ". Prescription update cancelled.");
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < medicines.size(); i++) {
+                Medicine medicine = medicines.get(i);
+                int quantity = quantities.get(i);
+                medicine.deductStock(quantity);
+                System.out.println("Notice: Deducted " + quantity + " units of " + medicine.getName() + ". Remaining stock: " + medicine.getStock());
+                if (medicine.alertReplenishment()) {
+                    System.out.println("Warning: " + medicine.getName() + " requires replenishment.");
+                }
+            }
+
+            //dispensed
+            prescription.updateStatus();
+            pendingQueue.complete(prescription);
         }
-    }
 
+        //reported after the state lock is released, the dashboard reads stock under that lock
+        if (dashboardHandler != null) {
+            dashboardHandler.recordPrescription(prescription);
+            for (Medicine medicine : medicines) {
+                dashboardHandler.recordStock(medicine);
+            }
+        }
+        return true;
+    }
 
     /**
      * Retrieve prescription based on prescription Identifier
@@ -110,12 +200,7 @@ public class PrescriptionHandler implements IPrescriptionHandler {
      * @return the prescription
      */
     public Prescription findPrescriptionById(String prescriptionIdentifier) {
-        for (Prescription prescription : prescriptions) {
-            if (prescription.getPrescriptionIdentifier().equals(prescriptionIdentifier)) {
-                return prescription;
-            }
-        }
-        return null;
+        return prescriptions.get(prescriptionIdentifier);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package handlers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import resources.Prescription;
+
+/**
+ * PrescriptionQueue - first in, first out work queue of prescriptions waiting to be dispensed
+ * A pharmacist claims the prescription at the head, which hides it from every other pharmacist until it is
+ * completed (dispensed) or released back to the head of the queue. Each pharmacist holds at most one claim,
+ * and every operation is synchronized so two terminals can never claim the same prescription.
+ */
+public class PrescriptionQueue {
+    private final Deque<Prescription> waiting;                  /**< unclaimed prescriptions, oldest first */
+    private final Map<String, Prescription> claims;             /**< pharmacist Identifier to claimed prescription */
+    private final Map<String, String> claimedBy;                /**< prescription Identifier to pharmacist Identifier */
+
+    /**
+     * Constructor for PrescriptionQueue, starts empty
+     */
+    public PrescriptionQueue() {
+        this.waiting = new ArrayDeque<>();
+        this.claims = new HashMap<>();
+        this.claimedBy = new HashMap<>();
+    }
+
+    /**
+     * adds a prescription to the back of the queue
+     * @param prescription the prescription waiting to be dispensed
+     */
+    public synchronized void enqueue(Prescription prescription) {
+        waiting.addLast(prescription);
+    }
+
+    /**
+     * claims the prescription at the head of the queue for a pharmacist
+     * @param pharmacistIdentifier the pharmacist claiming
+     * @return the prescription already claimed by the pharmacist, else the head of the queue, or null if the queue is empty
+     */
+    public synchronized Prescription claim(String pharmacistIdentifier) {
+        Prescription claimed = claims.get(pharmacistIdentifier);
+        if (claimed != null) {
+            return claimed;
+        }
+        claimed = waiting.pollFirst();
+        if (claimed != null) {
+            claims.put(pharmacistIdentifier, claimed);
+            claimedBy.put(claimed.getPrescriptionIdentifier(), pharmacistIdentifier);
+        }
+        return claimed;
+    }
+
+    /**
+     * get method to retrieve the prescription a pharmacist has claimed
+     * @param pharmacistIdentifier the pharmacist
+     * @return the claimed prescription, or null if the pharmacist holds no claim
+     */
+    public synchronized Prescription getClaim(String pharmacistIdentifier) {
+        return claims.get(pharmacistIdentifier);
+    }
+
+    /**
+     * get method to retrieve who claimed a prescription
+     * @param prescriptionIdentifier the prescription
+     * @return the pharmacist Identifier, or null if the prescription is not claimed
+     */
+    public synchronized String getClaimant(String prescriptionIdentifier) {
+        return claimedBy.get(prescriptionIdentifier);
+    }
+
+    /**
+     * returns the claim of a pharmacist to the head of the queue, so it is the next one claimed
+     * @param pharmacistIdentifier the pharmacist releasing
+     * @return the released prescription, or null if the pharmacist held no claim
+     */
+    public synchronized Prescription release(String pharmacistIdentifier) {
+        Prescription released = claims.remove(pharmacistIdentifier);
+        if (released != null) {
+            claimedBy.remove(released.getPrescriptionIdentifier());
+            waiting.addFirst(released);
+        }
+        return released;
+    }
+
+    /**
+     * removes a prescription from the queue once it is dispensed, whether it was claimed or still waiting
+     * @param prescription the dispensed prescription
+     */
+    public synchronized void complete(Prescription prescription) {
+        String pharmacistIdentifier = claimedBy.remove(prescription.getPrescriptionIdentifier());
+        if (pharmacistIdentifier != null) {
+            claims.remove(pharmacistIdentifier);
+        } else {
+            waiting.remove(prescription);
+        }
+    }
+
+    /**
+     * get method to retrieve the unclaimed prescriptions
+     * @return a copy of the waiting prescriptions, oldest first
+     */
+    public synchronized List<Prescription> getWaiting() {
+        return new ArrayList<>(waiting);
+    }
+
+    /**
+     * get method for the number of prescriptions not yet dispensed
+     * @return the number of waiting and claimed prescriptions
+     */
+    public synchronized int size() {
+        return waiting.size() + claims.size();
+    }
+}
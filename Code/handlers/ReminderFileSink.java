@@ -0,0 +1,42 @@
+package handlers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import interfaces.IReminderSink;
+import resources.Reminder;
+
+/**
+ * ReminderFileSink - appends each due reminder as one line to a local file, for a gateway to send on
+ */
+public class ReminderFileSink implements IReminderSink {
+
+    private final Path filePath;
+
+    /**
+     * Constructor for ReminderFileSink
+     * @param filePath path to the file reminders are appended to
+     */
+    public ReminderFileSink(String filePath) {
+        this.filePath = Paths.get(filePath);
+    }
+
+    /**
+     * appends a reminder as patient,appointment,epoch minute of the appointment,lead minutes,message
+     * @param reminder the reminder
+     */
+    public synchronized void deliver(Reminder reminder) {
+        try (BufferedWriter writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(reminder.getPatientIdentifier() + "," + reminder.getAppointmentIdentifier() + ","
+                    + reminder.getTimeSlot().getEpochMinute() + "," + reminder.getLeadMinutes() + "," + reminder);
+            writer.newLine();
+        } catch (IOException e) {
+            System.out.println("Error: Unable to write reminder file " + filePath + ".");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package handlers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.IReminderHandler;
+import interfaces.IReminderSink;
+import resources.Appointment;
+import resources.AppointmentEvent;
+import resources.EntityStore;
+import resources.Reminder;
+import resources.TimeSlot;
+/**
+ * ReminderHandler - reminds patients of confirmed appointments 24 hours and 1 hour before
+ * Reminders are timers in a hierarchical timing wheel ticking once a minute, so scheduling or cancelling one is O(1)
+ * however many are pending, and a single background task advances the wheel instead of one task per reminder.
+ * Reminders are scheduled when an appointment is accepted, moved when it is rescheduled and dropped when it is
+ * cancelled, by following the appointment events published by the notification handler.
+ */
+public class ReminderHandler implements IReminderHandler {
+
+    private static final int[] LEAD_MINUTES = {24 * 60, 60};       /**< how long before an appointment reminders are sent */
+
+    private final TimingWheel<Reminder> wheel;                      /**< ticks are TimeSlot epoch minutes, guarded by this */
+    private final Map<String, List<TimingWheel.Timer<Reminder>>> pending;  /**< appointment Identifier to its timers, guarded by this */
+    private final ScheduledExecutorService ticker;
+    private volatile IReminderSink sink;
+    private Flow.Subscription subscription;
+
+    /**
+     * Constructor for ReminderHandler, starts the background task that advances the wheel every second
+     * @param sink where due reminders are delivered
+     */
+    public ReminderHandler(IReminderSink sink) {
+        this.sink = sink;
+        this.wheel = new TimingWheel<>(nowMinute());
+        this.pending = new HashMap<>();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reminder-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticker.scheduleAtFixedRate(() -> advanceTo(nowMinute()), 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * set method for the sink (to prevent cyclic in Main)
+     * @param sink where due reminders are delivered
+     */
+    public void setSink(IReminderSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * schedules the reminders of an appointment, replacing any it already had
+     * reminders whose time has already passed are skipped
+     * @param appointment the confirmed appointment
+     */
+    public synchronized void scheduleReminders(Appointment appointment) {
+        cancelReminders(appointment.getAppointmentIdentifier());
+        if (appointment.getTimeSlot() == null) {
+            return;
+        }
+        List<TimingWheel.Timer<Reminder>> timers = new ArrayList<>(LEAD_MINUTES.length);
+        for (int lead : LEAD_MINUTES) {
+            Reminder reminder = new Reminder(appointment, lead);
+            if (reminder.getDueMinute() > wheel.getCurrentTick()) {
+                timers.add(wheel.schedule(reminder, reminder.getDueMinute()));
+            }
+        }
+        if (!timers.isEmpty()) {
+            pending.put(appointment.getAppointmentIdentifier(), timers);
+        }
+    }
+
+    /**
+     * cancels the pending reminders of an appointment
+     * @param appointmentIdentifier the Identifier of the appointment
+     */
+    public synchronized void cancelReminders(String appointmentIdentifier) {
+        List<TimingWheel.Timer<Reminder>> timers = pending.remove(appointmentIdentifier);
+        if (timers != null) {
+            for (TimingWheel.Timer<Reminder> timer : timers) {
+                wheel.cancel(timer);
+            }
+        }
+    }
+
+    /**
+     * get method for the number of reminders not yet delivered
+     * @return the number of pending reminders
+     */
+    public synchronized int getPendingReminderCount() {
+        return wheel.size();
+    }
+
+    /**
+     * stops the background task and the event subscription
+     */
+    public void shutdown() {
+        ticker.shutdownNow();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * advances the wheel and delivers the reminders that fell due, outside the lock so a slow sink does not block scheduling
+     * @param minute the minute to advance to
+     */
+    void advanceTo(long minute) {
+        List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(minute, due::add);
+            for (Reminder reminder : due) {
+                List<TimingWheel.Timer<Reminder>> timers = pending.get(reminder.getAppointmentIdentifier());
+                if (timers != null) {
+                    timers.removeIf(timer -> !timer.isPending());
+                    if (timers.isEmpty()) {
+                        pending.remove(reminder.getAppointmentIdentifier());
+                    }
+                }
+            }
+        }
+        IReminderSink target = sink;
+        for (Reminder reminder : due) {
+            if (target != null) {
+                target.deliver(reminder);
+            }
+        }
+    }
+
+    /**
+     * requests the first appointment event
+     * @param subscription the subscription to the notification publisher
+     */
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    /**
+     * schedules, moves or cancels reminders to follow an appointment event, then requests the next event
+     * @param event the appointment event
+     */
+    public void onNext(AppointmentEvent event) {
+        switch (event.getType()) {
+            case ACCEPTED:
+                scheduleFromStore(event.getAppointmentIdentifier());
+                break;
+            case RESCHEDULED:
+                boolean hadReminders;
+                synchronized (this) {
+                    hadReminders = pending.containsKey(event.getAppointmentIdentifier());
+                }
+                if (hadReminders) {
+                    scheduleFromStore(event.getAppointmentIdentifier());
+                }
+                break;
+            case DECLINED:
+            case CANCELLED:
+            case COMPLETED:
+                cancelReminders(event.getAppointmentIdentifier());
+                break;
+            default:
+                break;
+        }
+        subscription.request(1);
+    }
+
+    /**
+     * reports that the notification publisher failed, pending reminders are kept
+     * @param throwable the failure
+     */
+    public void onError(Throwable throwable) {
+        System.out.println("Error: Reminder scheduling stopped following appointments: " + throwable.getMessage());
+    }
+
+    /**
+     * nothing to release, pending reminders are still delivered until shutdown
+     */
+    public void onComplete() {
+    }
+
+    /**
+     * schedules reminders for an appointment looked up in the entity store, so its current time slot is used
+     * @param appointmentIdentifier the Identifier of the appointment
+     */
+    private void scheduleFromStore(String appointmentIdentifier) {
+        Appointment appointment = EntityStore.getShared().getAppointments().get(appointmentIdentifier);
+        if (appointment != null) {
+            scheduleReminders(appointment);
+        }
+    }
+
+    /**
+     * get method for the current minute
+     * @return minutes since epoch, in the encoding of TimeSlot
+     */
+    private static long nowMinute() {
+        return TimeSlot.toEpochMinute(LocalDate.now(), LocalTime.now());
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Scanner;
 import java.util.function.Predicate;
 
 import interfaces.*;
+import resources.EntityStore;
 import userclasses.*;
 /**
  * StaffHandler - logic implementation for Staff class
@@ -21,7 +22,9 @@ public class StaffHandler implements IStaffHandler{
     private IPharmacistHandler pharmacistHandler; 
     private UserHandler userHandler;
     private IDoctorHandler doctorHandler;
+    private StaffIndex staffIndex;      /**< role, gender, age and Identifier indexes over staffList */
 
+    private static final int PAGE_SIZE = 10;   /**< staff shown per page when filtering */
 
     public List<Staff> getAllStaff() {
         return new ArrayList<>(staffList); 
@@ -37,16 +40,26 @@ public class StaffHandler implements IStaffHandler{
      * @param doctorHandler the manager for handling doctor-related operations
      */
     public StaffHandler(List<Staff> initialStaffList, List<User> userList, UserHandler userHandler, IMedicineHandler inventoryHandler, IPrescriptionHandler prescriptionHandler, IDoctorHandler doctorHandler) {
-        this.staffList = new ArrayList<>(initialStaffList);
+        this.staffList = new ArrayList<>();
         this.userList = userList; 
         this.inventoryHandler = inventoryHandler;
         this.prescriptionHandler = prescriptionHandler;
         this.pharmacistHandler = pharmacistHandler;
         this.userHandler = userHandler;
         this.doctorHandler = doctorHandler;
+        this.staffIndex = new StaffIndex();
 
         for (Staff staff : initialStaffList) {
+            if (this.staffIndex.findById(staff.getUserId()) != null) {
+                System.out.println("Warning: Staff Identifier " + staff.getUserId() + " is duplicated, only the first is kept.");
+                continue;
+            }
+            this.staffList.add(staff);
             this.userList.add(staff);
+            this.staffIndex.add(staff);
+            if (staff instanceof Doctor && doctorHandler != null) {
+                doctorHandler.registerDoctor((Doctor) staff);
+            }
         }
     }
 
@@ -125,12 +138,32 @@ public class StaffHandler implements IStaffHandler{
     }
 
     /**
-     * Add new staff member to the system.
+     * Add new staff member to the system, a staff member whose Identifier is already taken is rejected
      * @param staff staff member to add
      */
     public void addStaff(Staff staff) {
-        userList.add(staff);
-        staffList.add(staff);
+        register(staff);
+    }
+
+    /**
+     * adds a staff member to the lists and indexes unless the Identifier is already taken
+     * @param staff staff member to add
+     * @return true if the staff member was added
+     */
+    private boolean register(Staff staff) {
+        synchronized (EntityStore.getShared().getStateLock()) {
+            if (staffIndex.findById(staff.getUserId()) != null) {
+                System.out.println("Error: Staff Identifier " + staff.getUserId() + " already exists.");
+                return false;
+            }
+            userList.add(staff);
+            staffList.add(staff);
+            staffIndex.add(staff);
+            if (staff instanceof Doctor) {
+                doctorHandler.registerDoctor((Doctor) staff);
+            }
+        }
+        return true;
     }
     
    
@@ -142,7 +175,11 @@ public class StaffHandler implements IStaffHandler{
 
         try {
             System.out.print("Enter User Identifier: ");
-            String userId = scanner.nextLine();
+            String userId = scanner.nextLine().trim();
+            if (userId.isEmpty() || isUserIdentifierTaken(userId)) {
+                System.out.println("Error: User Identifier " + userId + " is empty or already exists.");
+                return;
+            }
 
             System.out.print("Enter Password: ");
             String password = scanner.nextLine();
@@ -171,7 +208,9 @@ public class StaffHandler implements IStaffHandler{
                 throw new InvalidRoleException("Error: Invalid role. Only 'Doctor' or 'Pharmacist' is allowed.");
             }
 
-            addStaff(newStaff);
+            if (!register(newStaff)) {
+                return;
+            }
             System.out.println("Notice: Staff member added: " + newStaff.getName() + " (Identifier: " + newStaff.getUserId() + ")");
 
         } catch (InvalidRoleException | InvalidGenderException e) {
@@ -236,14 +275,24 @@ public class StaffHandler implements IStaffHandler{
                     throw new InvalidRoleException("Error: Invalid role provided.");
                 }
     
-                staffList.set(index, newStaff);
-                userList.set(userList.indexOf(staff), newStaff);
+                synchronized (EntityStore.getShared().getStateLock()) {
+                    staffList.set(index, newStaff);
+                    userList.set(userList.indexOf(staff), newStaff);
+                    staffIndex.update(newStaff);
+                    if (newStaff instanceof Doctor) {
+                        doctorHandler.registerDoctor((Doctor) newStaff);
+                    } else {
+                        doctorHandler.unregisterDoctor(newStaff.getUserId());
+                    }
+                }
     
                 System.out.println("Notice: Role updated. Staff member changed to: " + newStaff.getName() + " (ID: " + newStaff.getUserId() + ", Role: " + newStaff.getRole() + ")");
             }
     
             if (!name.isEmpty()) {
-                staff.setName(name);
+                synchronized (EntityStore.getShared().getStateLock()) {
+                    staff.setName(name);
+                }
             }
     
             System.out.print("Enter New Age (SPACE for unchanged): ");
@@ -251,7 +300,10 @@ public class StaffHandler implements IStaffHandler{
             if (!ageInput.isEmpty()) {
                 int age = Integer.parseInt(ageInput);
                 if (age > 0) {
-                    staff.setAge(age);
+                    synchronized (EntityStore.getShared().getStateLock()) {
+                        staff.setAge(age);
+                        staffIndex.update(staffList.get(index));
+                    }
                 }
             }
     
@@ -299,8 +351,12 @@ public class StaffHandler implements IStaffHandler{
         Staff staff = staffList.get(index);
         String userId = staff.getUserId();
         
-        staffList.remove(index);
-        userHandler.getUsers().removeIf(user -> user.getUserId().equals(userId));
+        synchronized (EntityStore.getShared().getStateLock()) {
+            staffList.remove(index);
+            staffIndex.remove(staff);
+            doctorHandler.unregisterDoctor(userId);
+            userHandler.getUsers().removeIf(user -> user.getUserId().equals(userId));
+        }
     
         System.out.println("Notice: Staff member: " + userId + " removed.");
         
@@ -330,12 +386,13 @@ public class StaffHandler implements IStaffHandler{
                 System.out.println("2. Gender");
                 System.out.println("3. Age");
                 System.out.println("4. Show All");
-                System.out.println("5. Return");
-                System.out.print("Choose an option (1-5): ");
+                System.out.println("5. Combined (Role, Gender and Age Range)");
+                System.out.println("6. Return");
+                System.out.print("Choose an option (1-6): ");
                 
                 String input = scanner.nextLine(); 
     
-                if (input.equalsIgnoreCase("5")) {
+                if (input.equalsIgnoreCase("6")) {
                     
                     return; 
                 }
@@ -344,7 +401,7 @@ public class StaffHandler implements IStaffHandler{
                 try {
                     choice = Integer.parseInt(input);
                 } catch (NumberFormatException e) {
-                    System.out.println("Error: Invalid input. Please enter a number between 1 and 5.");
+                    System.out.println("Error: Invalid input. Please enter a number between 1 and 6.");
                     continue; 
                 }
     
@@ -352,7 +409,7 @@ public class StaffHandler implements IStaffHandler{
                     case 1 -> {
                         System.out.print("Enter role to filter by (e.g., Doctor, Pharmacist): ");
                         String role = scanner.nextLine();
-                        filterStaff(staff -> staff.getRole().equalsIgnoreCase(role), "Role: " + role);
+                        displayStaffPaged(staffIndex.query(role, null, null, null), "Role: " + role, scanner);
                     }
                     case 2 -> {
                         System.out.print("Enter gender to filter by (Male/Female): ");
@@ -362,7 +419,7 @@ public class StaffHandler implements IStaffHandler{
                             System.out.println("Error: Invalid gender. Please enter 'Male' or 'Female'.");
                             continue; 
                         }
-                        filterStaff(staff -> staff.getGender().equalsIgnoreCase(gender), "Gender: " + gender);
+                        displayStaffPaged(staffIndex.query(null, gender, null, null), "Gender: " + gender, scanner);
                     }
                     case 3 -> {
                         System.out.print("Enter age to filter by: ");
@@ -373,10 +430,34 @@ public class StaffHandler implements IStaffHandler{
                             System.out.println("Error: Invalid input. Please enter a valid age.");
                             continue; 
                         }
-                        filterStaff(staff -> staff.getAge() == age, "Age: " + age);
+                        displayStaffPaged(staffIndex.query(null, null, age, age), "Age: " + age, scanner);
                     }
                     case 4 -> viewAllStaff();
-                    default -> System.out.println("Error: Invalid choice. Please enter a number between 1 and 5.");
+                    case 5 -> {
+                        System.out.print("Enter role (empty for any): ");
+                        String role = scanner.nextLine().trim();
+                        System.out.print("Enter gender (empty for any): ");
+                        String gender = scanner.nextLine().trim();
+                        Integer minAge;
+                        Integer maxAge;
+                        try {
+                            System.out.print("Enter minimum age (empty for any): ");
+                            String minInput = scanner.nextLine().trim();
+                            minAge = minInput.isEmpty() ? null : Integer.parseInt(minInput);
+                            System.out.print("Enter maximum age (empty for any): ");
+                            String maxInput = scanner.nextLine().trim();
+                            maxAge = maxInput.isEmpty() ? null : Integer.parseInt(maxInput);
+                        } catch (NumberFormatException e) {
+                            System.out.println("Error: Invalid input. Please enter a valid age.");
+                            continue;
+                        }
+                        String description = "Role: " + (role.isEmpty() ? "Any" : role)
+                                           + ", Gender: " + (gender.isEmpty() ? "Any" : gender)
+                                           + ", Age: " + (minAge == null ? "Any" : minAge) + " - " + (maxAge == null ? "Any" : maxAge);
+                        displayStaffPaged(staffIndex.query(role.isEmpty() ? null : role, gender.isEmpty() ? null : gender, minAge, maxAge),
+                                          description, scanner);
+                    }
+                    default -> System.out.println("Error: Invalid choice. Please enter a number between 1 and 6.");
                 }
             } catch (InputMismatchException e) {
                 System.out.println("Error: Invalid input. Please enter a valid number.");
@@ -392,27 +473,65 @@ public class StaffHandler implements IStaffHandler{
      * @return staff member if found, otherwise null
      */
     public Staff findStaffById(String userId) {
-        for (Staff staff : staffList) {
-            if (staff.getUserId().equals(userId)) {
-                return staff;
+        return staffIndex.findById(userId);
+    }
+    
+    /**
+     * checks whether any user, staff or not, already has an Identifier
+     * @param userId the user Identifier to check
+     * @return true if the Identifier is taken
+     */
+    private boolean isUserIdentifierTaken(String userId) {
+        synchronized (EntityStore.getShared().getStateLock()) {
+            if (staffIndex.findById(userId) != null) {
+                return true;
+            }
+            for (User user : userList) {
+                if (user.getUserId().equals(userId)) {
+                    return true;
+                }
             }
         }
-        return null;
+        return false;
     }
-    
+
     /**
      * Filters staff based on a specified criterion and displays matching results.
      * @param criteria the filter criterion
      * @param filterDescription name of the filter
+     * @param scanner the caller's scanner for paging
      */
-    public void filterStaff(Predicate<Staff> criteria, String filterDescription) {
-        System.out.println("\nFiltered Staff by " + filterDescription + ":");
+    public void filterStaff(Predicate<Staff> criteria, String filterDescription, Scanner scanner) {
+        List<Staff> matches = new ArrayList<>();
         for (Staff staff : staffList) {
             if (criteria.test(staff)) {
+                matches.add(staff);
+            }
+        }
+        displayStaffPaged(matches, filterDescription, scanner);
+    }
+
+    /**
+     * Displays filtered staff one page at a time.
+     * @param matches the staff to display
+     * @param filterDescription name of the filter
+     * @param scanner scanner used to ask for the next page
+     */
+    private void displayStaffPaged(List<Staff> matches, String filterDescription, Scanner scanner) {
+        System.out.println("\nFiltered Staff by " + filterDescription + ": " + matches.size() + " found");
+        for (int start = 0; start < matches.size(); start += PAGE_SIZE) {
+            int end = Math.min(start + PAGE_SIZE, matches.size());
+            for (Staff staff : matches.subList(start, end)) {
                 System.out.println("Name: " + staff.getName() + ", Identifier: " + staff.getUserId() +
                                    ", Role: " + staff.getRole() + ", Gender: " + staff.getGender() +
                                    ", Age: " + staff.getAge());
             }
+            if (end < matches.size()) {
+                System.out.print("-- Showing " + end + " of " + matches.size() + ", press Enter for more or 'Q' to stop: ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("Q")) {
+                    return;
+                }
+            }
         }
     }
 
@@ -0,0 +1,197 @@
+package handlers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import userclasses.Staff;
+/**
+ * StaffIndex - secondary indexes over the staff list
+ * Each staff member gets a slot number, and role, gender and age each map to a bitmap of slots,
+ * so combined filters are answered by intersecting bitmaps instead of testing every staff member
+ */
+public class StaffIndex {
+    private final List<Staff> slots;                        /**< slot number to staff, null when free */
+    private final List<String> slotRoles;                   /**< role each slot was indexed under */
+    private final List<String> slotGenders;                 /**< gender each slot was indexed under */
+    private final List<Integer> slotAges;                   /**< age each slot was indexed under */
+    private final Deque<Integer> freeSlots;                 /**< slots released by removed staff */
+    private final Map<String, Integer> slotById;            /**< user Identifier to slot */
+    private final Map<String, BitSet> roleIndex;            /**< lower case role to slots */
+    private final Map<String, BitSet> genderIndex;          /**< lower case gender to slots */
+    private final NavigableMap<Integer, BitSet> ageIndex;   /**< age to slots, sorted for ranges */
+
+    /**
+     * Constructor for StaffIndex, starts empty
+     */
+    public StaffIndex() {
+        this.slots = new ArrayList<>();
+        this.slotRoles = new ArrayList<>();
+        this.slotGenders = new ArrayList<>();
+        this.slotAges = new ArrayList<>();
+        this.freeSlots = new ArrayDeque<>();
+        this.slotById = new HashMap<>();
+        this.roleIndex = new HashMap<>();
+        this.genderIndex = new HashMap<>();
+        this.ageIndex = new TreeMap<>();
+    }
+
+    /**
+     * indexes a staff member, replacing any staff member with the same Identifier
+     * @param staff the staff member to index
+     */
+    public void add(Staff staff) {
+        Staff existing = findById(staff.getUserId());
+        if (existing != null) {
+            remove(existing);
+        }
+        String role = key(staff.getRole());
+        String gender = key(staff.getGender());
+        int age = staff.getAge();
+
+        int slot;
+        if (freeSlots.isEmpty()) {
+            slot = slots.size();
+            slots.add(staff);
+            slotRoles.add(role);
+            slotGenders.add(gender);
+            slotAges.add(age);
+        } else {
+            slot = freeSlots.pop();
+            slots.set(slot, staff);
+            slotRoles.set(slot, role);
+            slotGenders.set(slot, gender);
+            slotAges.set(slot, age);
+        }
+        slotById.put(staff.getUserId(), slot);
+        roleIndex.computeIfAbsent(role, k -> new BitSet()).set(slot);
+        genderIndex.computeIfAbsent(gender, k -> new BitSet()).set(slot);
+        ageIndex.computeIfAbsent(age, k -> new BitSet()).set(slot);
+    }
+
+    /**
+     * removes a staff member from every index
+     * @param staff the staff member to remove
+     */
+    public void remove(Staff staff) {
+        Integer slot = slotById.remove(staff.getUserId());
+        if (slot == null) {
+            return;
+        }
+        clear(roleIndex, slotRoles.get(slot), slot);
+        clear(genderIndex, slotGenders.get(slot), slot);
+        clear(ageIndex, slotAges.get(slot), slot);
+        slots.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    /**
+     * re-indexes a staff member after its role, gender or age changed
+     * the keys it was indexed under are remembered per slot, so this works after the change
+     * @param staff the staff member to re-index
+     */
+    public void update(Staff staff) {
+        add(staff);
+    }
+
+    /**
+     * finds a staff member by Identifier
+     * @param userId the Identifier to look up
+     * @return the staff member, or null if not indexed
+     */
+    public Staff findById(String userId) {
+        Integer slot = slotById.get(userId);
+        return slot == null ? null : slots.get(slot);
+    }
+
+    /**
+     * finds staff matching every given criterion, any criterion left null is ignored
+     * @param role role to match, case insensitive
+     * @param gender gender to match, case insensitive
+     * @param minAge lowest age to match, inclusive
+     * @param maxAge highest age to match, inclusive
+     * @return matching staff in slot order
+     */
+    public List<Staff> query(String role, String gender, Integer minAge, Integer maxAge) {
+        BitSet result = null;
+        if (role != null) {
+            result = intersect(result, roleIndex.get(key(role)));
+        }
+        if (gender != null) {
+            result = intersect(result, genderIndex.get(key(gender)));
+        }
+        if (minAge != null || maxAge != null) {
+            int low = minAge == null ? Integer.MIN_VALUE : minAge;
+            int high = maxAge == null ? Integer.MAX_VALUE : maxAge;
+            BitSet ages = new BitSet();
+            if (low <= high) {
+                for (BitSet bucket : ageIndex.subMap(low, true, high, true).values()) {
+                    ages.or(bucket);
+                }
+            }
+            result = intersect(result, ages);
+        }
+
+        List<Staff> matches = new ArrayList<>();
+        if (result == null) {
+            for (Staff staff : slots) {
+                if (staff != null) {
+                    matches.add(staff);
+                }
+            }
+            return matches;
+        }
+        for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+            matches.add(slots.get(slot));
+        }
+        return matches;
+    }
+
+    /**
+     * intersects the running result with a bitmap without changing the index itself
+     * @param result the running result, or null if no criterion applied yet
+     * @param bitmap the bitmap to intersect with, or null if nothing matches
+     * @return the new running result
+     */
+    private static BitSet intersect(BitSet result, BitSet bitmap) {
+        if (bitmap == null) {
+            return new BitSet();
+        }
+        if (result == null) {
+            return (BitSet) bitmap.clone();
+        }
+        result.and(bitmap);
+        return result;
+    }
+
+    /**
+     * clears a slot from one bitmap and drops the bitmap once empty
+     * @param index the index holding the bitmap
+     * @param key the key of the bitmap
+     * @param slot the slot to clear
+     */
+    private static <K> void clear(Map<K, BitSet> index, K key, int slot) {
+        BitSet bits = index.get(key);
+        if (bits != null) {
+            bits.clear(slot);
+            if (bits.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * normalises a role or gender so lookups are case insensitive
+     * @param value the value to normalise
+     * @return the lower case, trimmed value
+     */
+    private static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+}
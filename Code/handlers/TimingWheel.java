@@ -0,0 +1,213 @@
+package handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * TimingWheel - hierarchical timing wheel of timers keyed by an integer tick (e.g. epoch minute)
+ * Four levels of 64 buckets cover 64, 64^2, 64^3 and 64^4 ticks ahead. A timer is linked into the bucket of the
+ * level its distance falls in, so scheduling and cancelling cost O(1) however many timers are pending. When the
+ * lower level wraps, the next bucket of the level above is cascaded down, until timers reach level 0 and fire.
+ * Not thread safe, callers synchronize.
+ * @param <T> type of the value carried by a timer
+ */
+public class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;    /**< farthest distance a timer can be placed */
+
+    private final List<Timer<T>> buckets;   /**< sentinel of a circular doubly linked list per bucket, level by level */
+    private long currentTick;               /**< last tick advanced to, timers at or before it have fired */
+    private int size;
+
+    /**
+     * Timer class, a scheduled value and its links in a bucket
+     * @param <T> type of the value carried
+     */
+    public static final class Timer<T> {
+        private final T value;
+        private final long deadline;
+        private Timer<T> previous;
+        private Timer<T> next;
+
+        /**
+         * Constructor for Timer
+         * @param value the value carried, null for a bucket sentinel
+         * @param deadline the tick the timer fires at
+         */
+        private Timer(T value, long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+            this.previous = this;
+            this.next = this;
+        }
+
+        /**
+         * get method for value
+         * @return the value carried by the timer
+         */
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * get method for deadline
+         * @return the tick the timer fires at
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * check if the timer is still waiting to fire
+         * @return true until the timer fires or is cancelled
+         */
+        public boolean isPending() {
+            return next != this;
+        }
+    }
+
+    /**
+     * Constructor for TimingWheel, starts empty
+     * @param startTick the current tick, timers are placed relative to it
+     */
+    public TimingWheel(long startTick) {
+        this.buckets = new ArrayList<>(LEVELS * SLOTS);
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            buckets.add(new Timer<>(null, 0));
+        }
+        this.currentTick = startTick;
+    }
+
+    /**
+     * schedules a value to fire at a tick, a deadline already passed fires on the next advance
+     * @param value the value to carry
+     * @param deadline the tick to fire at
+     * @return the timer, used to cancel it
+     */
+    public Timer<T> schedule(T value, long deadline) {
+        Timer<T> timer = new Timer<>(value, deadline);
+        place(timer, currentTick + 1);
+        size++;
+        return timer;
+    }
+
+    /**
+     * cancels a timer
+     * @param timer the timer to cancel
+     * @return true if the timer was pending, false if it had already fired or been cancelled
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (!timer.isPending()) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * advances the wheel tick by tick, firing every timer whose deadline is reached
+     * @param tick the tick to advance to, ignored if it is not after the current tick
+     * @param expired receives the value of each timer that fires, in deadline order
+     */
+    public void advanceTo(long tick, Consumer<T> expired) {
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                return;
+            }
+            currentTick++;
+            // cascade each level whose lower level just wrapped, timers cascaded from a higher level
+            // never land in a bucket already emptied this tick
+            for (int level = 1; level < LEVELS && ((currentTick >> (SLOT_BITS * (level - 1))) & MASK) == 0; level++) {
+                cascade(level, (int) ((currentTick >> (SLOT_BITS * level)) & MASK));
+            }
+            Timer<T> sentinel = bucket(0, (int) (currentTick & MASK));
+            while (sentinel.next != sentinel) {
+                Timer<T> timer = sentinel.next;
+                unlink(timer);
+                size--;
+                expired.accept(timer.value);
+            }
+        }
+    }
+
+    /**
+     * get method for the number of pending timers
+     * @return the number of timers that have not fired or been cancelled
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * get method for currentTick
+     * @return the last tick advanced to
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * links a timer into the bucket for its distance from the current tick
+     * @param timer the timer to place
+     * @param earliest the earliest tick the timer may fire at
+     */
+    private void place(Timer<T> timer, long earliest) {
+        long deadline = Math.max(timer.deadline, earliest);
+        long delta = Math.min(deadline - currentTick, MAX_DELTA);
+        deadline = currentTick + delta;
+        int level = 0;
+        while (delta >= (1L << (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        Timer<T> sentinel = bucket(level, (int) ((deadline >> (SLOT_BITS * level)) & MASK));
+        timer.previous = sentinel.previous;
+        timer.next = sentinel;
+        sentinel.previous.next = timer;
+        sentinel.previous = timer;
+    }
+
+    /**
+     * moves every timer of one bucket down to the level its distance now falls in
+     * @param level the level of the bucket
+     * @param slot the slot of the bucket
+     */
+    private void cascade(int level, int slot) {
+        Timer<T> sentinel = bucket(level, slot);
+        Timer<T> timer = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.previous = sentinel;
+        while (timer != sentinel) {
+            Timer<T> next = timer.next;
+            place(timer, currentTick);
+            timer = next;
+        }
+    }
+
+    /**
+     * get method for the sentinel of a bucket
+     * @param level the level of the bucket
+     * @param slot the slot of the bucket
+     * @return the sentinel of the bucket's list
+     */
+    private Timer<T> bucket(int level, int slot) {
+        return buckets.get(level * SLOTS + slot);
+    }
+
+    /**
+     * removes a timer from its bucket and marks it as no longer pending
+     * @param timer the timer to remove
+     */
+    private void unlink(Timer<T> timer) {
+        timer.previous.next = timer.next;
+        timer.next.previous = timer.previous;
+        timer.previous = timer;
+        timer.next = timer;
+    }
+}
@@ -1,18 +1,67 @@
 package handlers;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 
 import userclasses.*;
 import interfaces.*;
+import resources.Appointment;
+import resources.AppointmentStatus;
+import resources.AvailabilityCalendar;
+import resources.InteractionWarning;
+import resources.TimeSlot;
 /**
  * A class made just to import the information of the CSV files for this project.
- * Medicine_List.csv, Patient_List.csv, Staff_List.csv
+ * Medicine_List.csv, Patient_List.csv, Staff_List.csv, Roster.txt
  * The files are indicated in Main.java
  */
 public class TxtImport {
+
+    /**
+     * RosterRow class, one validated line of a roster file, a weekly template of availability for a doctor
+     */
+    private static final class RosterRow {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final Set<DayOfWeek> daysOfWeek;
+        private final LocalTime start;
+        private final LocalTime end;
+        private final int capacity;     /**< patients each slot takes, sessions when above 1 */
+
+        /**
+         * Constructor for RosterRow
+         * @param from first date, inclusive
+         * @param to last date, inclusive
+         * @param daysOfWeek the days of the week the template applies to
+         * @param start start of the working hours
+         * @param end end of the working hours, exclusive
+         * @param capacity patients each slot takes
+         */
+        private RosterRow(LocalDate from, LocalDate to, Set<DayOfWeek> daysOfWeek, LocalTime start, LocalTime end, int capacity) {
+            this.from = from;
+            this.to = to;
+            this.daysOfWeek = daysOfWeek;
+            this.start = start;
+            this.end = end;
+            this.capacity = capacity;
+        }
+    }
     
     /**
      * Default constructor for CSVImportManager.
@@ -79,7 +128,7 @@ public class TxtImport {
                 String line = scanner.nextLine();
                 String[] data = line.split(",");
 
-                if (data.length >= 6) {
+                if (data.length >= 7) {
                     String userId = data[0];
                     String password = data[1];
                     String name = data[2];
@@ -87,9 +136,17 @@ public class TxtImport {
                     String gender = data[4];
                     String bloodType = data[5];
                     String contactInfo = data[6];
+                    int phoneNumber = 0;
+                    if (data.length > 7 && !data[7].isBlank()) {
+                        try {
+                            phoneNumber = Integer.parseInt(data[7].trim());
+                        } catch (NumberFormatException e) {
+                            System.out.println("Warning: Phone number of patient " + userId + " is invalid and was not loaded.");
+                        }
+                    }
 
                     Patient newPatient;
-                    newPatient = new Patient(userId, password, name, gender, dateOfBirth, bloodType, contactInfo, 0, patientManager, appointmentManager);
+                    newPatient = new Patient(userId, password, name, gender, dateOfBirth, bloodType, contactInfo, phoneNumber, patientManager, appointmentManager);
 
                     patientManager.addPatient(newPatient);
                 }
@@ -129,5 +186,238 @@ public class TxtImport {
         }
     }
 
+    /**
+     * Method to import drug interactions and allergies from the CSV into the prescription checker
+     * Format: Type,First,Second,Severity,Description where Type is INTERACTION (two medicines) or ALLERGY (an
+     * allergen then the medicine it rules out), e.g. ALLERGY,Penicillin,Amoxicillin,Major,Amoxicillin is a penicillin
+     * @param filePath the filepath to the CSV
+     * @param interactionManager the manager responsible for checking prescriptions
+     * @return the number of rules imported
+     */
+    public static int importInteractionData(String filePath, IInteractionHandler interactionManager) {
+        int imported = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line = reader.readLine();    // header
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] data = line.split(",", 5);
+                if (data.length < 5 || data[1].isBlank() || data[2].isBlank()) {
+                    System.out.println("Warning: Interaction line " + lineNumber + " skipped: expected 5 fields.");
+                    continue;
+                }
+                InteractionWarning.Severity severity;
+                try {
+                    severity = InteractionWarning.Severity.parse(data[3]);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Warning: Interaction line " + lineNumber + " skipped: unknown severity " + data[3].trim() + ".");
+                    continue;
+                }
+                String type = data[0].trim();
+                if (type.equalsIgnoreCase("INTERACTION")) {
+                    interactionManager.addInteraction(data[1].trim(), data[2].trim(), severity, data[4].trim());
+                } else if (type.equalsIgnoreCase("ALLERGY")) {
+                    interactionManager.addAllergy(data[1].trim(), data[2].trim(), severity, data[4].trim());
+                } else {
+                    System.out.println("Warning: Interaction line " + lineNumber + " skipped: unknown type " + type + ".");
+                    continue;
+                }
+                imported++;
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println("Error: File not found: " + filePath + ".");
+        } catch (IOException e) {
+            System.out.println("Error: Could not read " + filePath + ": " + e.getMessage());
+        }
+        return imported;
+    }
+
+    /**
+     * Method to import doctor rosters from the CSV and publish them as availability
+     * Lines are streamed and validated one at a time, then grouped so each doctor's calendar is published in one
+     * pass per template. Slots held by a doctor's existing appointments are never made free, and a session keeps
+     * only the places its existing appointments leave.
+     * Format: Doctor ID,From,To,Days,Start,End,Capacity e.g. S1,2026-01-05,2026-03-27,MON;WED;FRI,09:00,17:00,1
+     * @param filePath the filepath to the CSV
+     * @param doctorManager the manager responsible for handling doctor-related operations
+     * @return the number of slots published
+     */
+    public static int importRosterData(String filePath, IDoctorHandler doctorManager) {
+        Map<String, Doctor> doctors = new HashMap<>();
+        Set<String> unknownDoctors = new HashSet<>();
+        Map<Doctor, List<RosterRow>> rosters = new LinkedHashMap<>();
+        int skipped = 0;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line = reader.readLine();    // header
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] data = line.split(",");
+                if (data.length < 6) {
+                    System.out.println("Warning: Roster line " + lineNumber + " skipped: expected at least 6 fields.");
+                    skipped++;
+                    continue;
+                }
+
+                String doctorId = data[0].trim();
+                Doctor doctor = doctors.get(doctorId);
+                if (doctor == null && !unknownDoctors.contains(doctorId)) {
+                    doctor = doctorManager.findDoctorById(doctorId);
+                    if (doctor == null) {
+                        unknownDoctors.add(doctorId);
+                    } else {
+                        doctors.put(doctorId, doctor);
+                    }
+                }
+                if (doctor == null) {
+                    System.out.println("Warning: Roster line " + lineNumber + " skipped: unknown doctor " + doctorId + ".");
+                    skipped++;
+                    continue;
+                }
+
+                RosterRow row = parseRosterRow(data, lineNumber);
+                if (row == null) {
+                    skipped++;
+                    continue;
+                }
+                rosters.computeIfAbsent(doctor, k -> new ArrayList<>()).add(row);
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println("Error: File not found: " + filePath + ".");
+            return 0;
+        } catch (IOException e) {
+            System.out.println("Error: Could not read " + filePath + ": " + e.getMessage());
+            return 0;
+        }
+
+        int published = 0;
+        for (Map.Entry<Doctor, List<RosterRow>> roster : rosters.entrySet()) {
+            published += applyRoster(roster.getKey(), roster.getValue());
+        }
+        System.out.println("Notice: Roster imported, " + published + " slots published for " + rosters.size() + " doctors"
+                + (skipped > 0 ? ", " + skipped + " lines skipped." : "."));
+        return published;
+    }
+
+    /**
+     * validates the fields of one roster line
+     * @param data the fields of the line
+     * @param lineNumber the line number, used in warnings
+     * @return the row, or null if the line is invalid, a warning is printed
+     */
+    private static RosterRow parseRosterRow(String[] data, int lineNumber) {
+        LocalDate from;
+        LocalDate to;
+        LocalTime start;
+        LocalTime end;
+        int capacity;
+        try {
+            from = LocalDate.parse(data[1].trim());
+            to = LocalDate.parse(data[2].trim());
+            start = LocalTime.parse(data[4].trim());
+            end = LocalTime.parse(data[5].trim());
+            capacity = data.length > 6 && !data[6].isBlank() ? Integer.parseInt(data[6].trim()) : 1;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            System.out.println("Warning: Roster line " + lineNumber + " skipped: invalid date, time or capacity.");
+            return null;
+        }
 
-}
\ No newline at end of file
+        Set<DayOfWeek> daysOfWeek = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : data[3].split(";")) {
+            DayOfWeek match = parseDayOfWeek(day.trim());
+            if (match == null) {
+                System.out.println("Warning: Roster line " + lineNumber + " skipped: invalid day of week " + day.trim() + ".");
+                return null;
+            }
+            daysOfWeek.add(match);
+        }
+
+        if (to.isBefore(from) || !start.isBefore(end)) {
+            System.out.println("Warning: Roster line " + lineNumber + " skipped: end is not after start.");
+            return null;
+        }
+        if (capacity < 1) {
+            System.out.println("Warning: Roster line " + lineNumber + " skipped: capacity must be at least 1.");
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        if (to.isBefore(today)) {
+            System.out.println("Warning: Roster line " + lineNumber + " skipped: roster has already ended.");
+            return null;
+        }
+        return new RosterRow(from.isBefore(today) ? today : from, to, daysOfWeek, start, end, capacity);
+    }
+
+    /**
+     * matches a day of week by its first three letters or more, e.g. MON or Monday
+     * @param name the name entered
+     * @return the day of week, or null if it does not match
+     */
+    private static DayOfWeek parseDayOfWeek(String name) {
+        String upper = name.toUpperCase();
+        if (upper.length() < 3) {
+            return null;
+        }
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek.name().startsWith(upper)) {
+                return dayOfWeek;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * publishes every roster row of one doctor, around the slots the doctor's appointments already hold
+     * @param doctor the doctor
+     * @param rows the validated rows of the doctor
+     * @return the number of slots published
+     */
+    private static int applyRoster(Doctor doctor, List<RosterRow> rows) {
+        List<TimeSlot> booked = new ArrayList<>();
+        Map<Long, Integer> bookedCount = new HashMap<>();
+        for (Appointment appointment : doctor.getAppointments()) {
+            if (appointment.getTimeSlot() != null && appointment.getStatus().in(AppointmentStatus.HOLDS_SLOT)) {
+                booked.add(appointment.getTimeSlot());
+                bookedCount.merge(appointment.getTimeSlot().getEpochMinute(), 1, Integer::sum);
+            }
+        }
+
+        AvailabilityCalendar calendar = doctor.getAvailabilityCalendar();
+        int published = 0;
+        for (RosterRow row : rows) {
+            if (row.capacity == 1) {
+                published += calendar.publish(row.from, row.to, row.daysOfWeek, row.start, row.end, booked);
+                continue;
+            }
+            // sessions are opened one slot at a time, each keeps the places its existing appointments leave
+            int slotMinutes = calendar.getSlotMinutes();
+            for (LocalDate date = row.from; !date.isAfter(row.to); date = date.plusDays(1)) {
+                if (!row.daysOfWeek.contains(date.getDayOfWeek())) {
+                    continue;
+                }
+                long dayStart = TimeSlot.toEpochMinute(date, LocalTime.MIDNIGHT);
+                long first = dayStart + ((row.start.toSecondOfDay() / 60 + slotMinutes - 1) / slotMinutes) * slotMinutes;
+                long end = dayStart + row.end.toSecondOfDay() / 60;
+                for (long minute = first; minute + slotMinutes <= end; minute += slotMinutes) {
+                    int taken = bookedCount.getOrDefault(minute, 0);
+                    TimeSlot slot = TimeSlot.ofEpochMinute(minute);
+                    if (taken >= row.capacity || !calendar.openSession(slot, row.capacity)) {
+                        continue;
+                    }
+                    for (int i = 0; i < taken; i++) {
+                        calendar.remove(slot);
+                    }
+                    published++;
+                }
+            }
+        }
+        return published;
+    }
+}
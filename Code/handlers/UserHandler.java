@@ -1,11 +1,17 @@
 package handlers;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.InputMismatchException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -22,9 +28,39 @@ public class UserHandler {
     private IAppointmentHandler appointmentHandler;
     private IMedicineHandler medicineHandler;
     private IPrescriptionHandler prescriptionHandler;
+    private IAuditHandler auditHandler;
+    private IAnalyticsHandler analyticsHandler;
+    private IDashboardHandler dashboardHandler;
+    private INotificationHandler notificationHandler;
+    private IWaitlistHandler waitlistHandler;
+    private IExportHandler exportHandler;
+    private IPatientHandler patientHandler;
+    private INoteSearchHandler noteSearchHandler;
+    private IInteractionHandler interactionHandler;
+    private IAccessControlHandler accessControlHandler;
+    private String userFilePath;
+    private final Scanner scanner;          /**< the one console reader shared by every session */
 
     //delcaring a regex to detect email for contactInfo update
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+    private static final int SEARCH_LIMIT = 10;     /**< patients listed per search */
+
+    //permission each menu option needs, indexed by the option number, null for options anyone may choose
+    private static final Permission[] DOCTOR_MENU = {null,
+            Permission.VIEW_MEDICAL_RECORD, Permission.UPDATE_MEDICAL_RECORD, Permission.VIEW_SCHEDULE, Permission.SET_AVAILABILITY,
+            Permission.RESPOND_TO_APPOINTMENT, Permission.VIEW_SCHEDULE, Permission.RESPOND_TO_APPOINTMENT, Permission.VIEW_ALL_PATIENTS,
+            Permission.SEARCH_NOTES, null};
+    private static final Permission[] ADMIN_MENU = {null,
+            Permission.MANAGE_STAFF, Permission.MANAGE_INVENTORY, Permission.MANAGE_INVENTORY, Permission.VIEW_ALL_APPOINTMENTS,
+            Permission.VIEW_REPORTS, Permission.VIEW_REPORTS, Permission.VIEW_REPORTS, Permission.EXPORT_DATA, Permission.EXPORT_DATA,
+            Permission.VIEW_ALL_PATIENTS, null};
+    private static final Permission[] PHARMACIST_MENU = {null,
+            Permission.VIEW_ALL_OUTCOMES, Permission.VIEW_ALL_OUTCOMES, Permission.DISPENSE_PRESCRIPTION, Permission.VIEW_INVENTORY,
+            Permission.REQUEST_REPLENISHMENT, Permission.REQUEST_REPLENISHMENT, null};
+    private static final Permission[] PATIENT_MENU = {null,
+            Permission.VIEW_MEDICAL_RECORD, Permission.UPDATE_CONTACT_INFO, Permission.VIEW_SCHEDULE, Permission.BOOK_APPOINTMENT,
+            Permission.CHANGE_APPOINTMENT, Permission.CHANGE_APPOINTMENT, Permission.VIEW_SCHEDULE, Permission.VIEW_MEDICAL_RECORD,
+            Permission.BOOK_APPOINTMENT, null};
 
     /**
      * Constructor for UserHandler
@@ -41,6 +77,7 @@ public class UserHandler {
         this.appointmentHandler = appointmentHandler;
         this.medicineHandler = medicineHandler;
         this.prescriptionHandler = prescriptionHandler;
+        this.scanner = new Scanner(System.in);
     }
 
     /**
@@ -68,52 +105,205 @@ public class UserHandler {
     }
 
     /**
-     * prompts user for login userId and password and initiate the session based on the role of the credentials
-     * it will require the user to change password upon the first logon
-     * displaying the menu bsaed on the user role
+     * set method to set audit manager
+     * @param ah the audit manager
+     */
+    public void setAuditHandler(IAuditHandler ah){
+        this.auditHandler = ah;
+    }
+
+    /**
+     * set method to set analytics manager
+     * @param ah the analytics manager
+     */
+    public void setAnalyticsHandler(IAnalyticsHandler ah){
+        this.analyticsHandler = ah;
+    }
+
+    /**
+     * set method to set dashboard manager
+     * @param dh the dashboard manager
+     */
+    public void setDashboardHandler(IDashboardHandler dh){
+        this.dashboardHandler = dh;
+    }
+
+    /**
+     * set method to set notification manager
+     * @param nh the notification manager, whose inboxes are shown at login
+     */
+    public void setNotificationHandler(INotificationHandler nh){
+        this.notificationHandler = nh;
+    }
+
+    /**
+     * set method to set waitlist manager
+     * @param wh the waitlist manager, whose held slots are offered to patients
+     */
+    public void setWaitlistHandler(IWaitlistHandler wh){
+        this.waitlistHandler = wh;
+    }
+
+    /**
+     * set method to set patient manager
+     * @param pm the patient manager, used to search patients
+     */
+    public void setPatientHandler(IPatientHandler pm){
+        this.patientHandler = pm;
+    }
+
+    /**
+     * set method for the note search handler (to prevent cyclic in Main)
+     * @param nsh the full text index of clinical notes doctors search
+     */
+    public void setNoteSearchHandler(INoteSearchHandler nsh){
+        this.noteSearchHandler = nsh;
+    }
+
+    /**
+     * set method for the interaction handler (to prevent cyclic in Main)
+     * @param ih the checker of new prescriptions for interactions and allergies
+     */
+    public void setInteractionHandler(IInteractionHandler ih){
+        this.interactionHandler = ih;
+    }
+
+    /**
+     * set method for the access control handler (to prevent cyclic in Main)
+     * @param ach the access control policy consulted for every menu option
+     */
+    public void setAccessControlHandler(IAccessControlHandler ach){
+        this.accessControlHandler = ach;
+    }
+
+    /**
+     * set method for the export handler (to prevent cyclic in Main)
+     * @param eh the export manager, which saves the hospital state back to the data files
+     */
+    public void setExportHandler(IExportHandler eh){
+        this.exportHandler = eh;
+    }
+
+    /**
+     * set method to set where admins export the binary user file
+     * @param filePath the binary user file loaded at boot instead of the CSV files
+     */
+    public void setUserFilePath(String filePath){
+        this.userFilePath = filePath;
+    }
+
+
+    /**
+     * runs login sessions one after another until the user chooses to exit
+     * each session is login, the role menu, then logout, and the loop returns to the login prompt without
+     * growing the call stack, so any number of sessions can cycle through
      */
     public void startApp() {
-        Scanner scanner = new Scanner(System.in);
-    
-        System.out.print("Enter User Identifier (or 'E' to exit): ");
-        String userId = scanner.nextLine();
-        if (userId.equalsIgnoreCase("E")) {
-            System.out.println("~~~~~Exiting login~~~~~");
-            return;
+        while (true) {
+            System.out.print("Enter User Identifier (or 'E' to exit): ");
+            if (!scanner.hasNextLine()) {
+                return;
+            }
+            String userId = scanner.nextLine();
+            if (userId.equalsIgnoreCase("E")) {
+                System.out.println("~~~~~Exiting login~~~~~");
+                return;
+            }
+        
+            System.out.print("Enter Password: ");
+            String password = scanner.nextLine();
+
+            User user = authenticate(userId, password);
+            if (user == null) {
+                System.out.println("Error: Invalid credentials. Please try again.");
+                continue;
+            }
+            runSession(user);
         }
-    
-        System.out.print("Enter Password: ");
-        String password = scanner.nextLine();
-    
+    }
+
+    /**
+     * finds the user matching the given credentials
+     * @param userId the User Identifier entered
+     * @param password the password entered
+     * @return the matching user, or null if the credentials are invalid
+     */
+    private User authenticate(String userId, String password) {
         for (User user : users) {
             //used for debugging
             //System.out.println("Checking User Identifier: " + user.getUserId()); 
             //System.out.println("Stored Password: " + user.getPassword()); 
             if (user.getUserId().equals(userId) && user.checkPassword(password)) {
-                user.setLoggedIn(true);
-                System.out.println("Login successful for user: " + user.getName());
-                
-                //users must change password on their first login
-                if (user.isFirstLogin()) {
-                    System.out.println("This is your first login. You need to change your password.");
-                    promptPasswordChange(user);
-                }
+                return user;
+            }
+        }
+        return null;
+    }
 
-                // display appropriate menu based on user type
-                if (user instanceof Doctor) {
-                    handleDoctorMenu((Doctor) user);
-                } else if (user instanceof Administrator) {
-                    handleAdminMenu((Administrator) user);
-                } else if (user instanceof Pharmacist) {
-                    handlePharmacistMenu((Pharmacist) user);
-                } else if (user instanceof Patient) {
-                    handlePatientMenu((Patient) user);
-                }
-                return; 
+    /**
+     * a single session, it will require the user to change password upon the first logon
+     * and display the menu based on the user role until the user logs out
+     * @param user the user that logged in
+     */
+    private void runSession(User user) {
+        user.setLoggedIn(true);
+        System.out.println("Login successful for user: " + user.getName());
+        if (accessControlHandler != null) {
+            accessControlHandler.openSession(user);
+        }
+        try {
+            //users must change password on their first login
+            if (user.isFirstLogin()) {
+                System.out.println("This is your first login. You need to change your password.");
+                promptPasswordChange(user);
+            }
+            if (notificationHandler != null) {
+                notificationHandler.displayInbox(user.getUserId());
+            }
+            if (waitlistHandler != null && user instanceof Patient) {
+                waitlistHandler.displayOffer(user.getUserId());
             }
+
+            // display appropriate menu based on user type
+            if (user instanceof Doctor) {
+                handleDoctorMenu((Doctor) user);
+            } else if (user instanceof Administrator) {
+                handleAdminMenu((Administrator) user);
+            } else if (user instanceof Pharmacist) {
+                handlePharmacistMenu((Pharmacist) user);
+            } else if (user instanceof Patient) {
+                handlePatientMenu((Patient) user);
+            }
+        } finally {
+            // release the session even if the menu ended abnormally
+            if (user instanceof Pharmacist) {
+                prescriptionHandler.releasePrescription(user.getUserId());
+            }
+            if (user.isLoggedIn()) {
+                user.setLoggedIn(false);
+            }
+            if (accessControlHandler != null) {
+                accessControlHandler.closeSession(user);
+            }
+        }
+    }
+
+    /**
+     * checks the access control policy before a menu option is run
+     * @param user the logged in user
+     * @param menu the permission each option of the user's menu needs
+     * @param choice the option chosen
+     * @return true if the option may run, options outside the menu are left to the menu to reject
+     */
+    private boolean permitsOption(User user, Permission[] menu, int choice) {
+        if (choice < 0 || choice >= menu.length || menu[choice] == null) {
+            return true;
         }
-        System.out.println("Error: Invalid credentials. Please try again.");
-        startApp(); // repeat logins if failed
+        if (accessControlHandler != null && accessControlHandler.isAllowed(user, menu[choice])) {
+            return true;
+        }
+        System.out.println("Access Denied: You are not authorized to use this option.");
+        return false;
     }
 
     /**
@@ -121,13 +311,15 @@ public class UserHandler {
      * @param doctor the logged in doctor
      */
     private void handleDoctorMenu(Doctor doctor) {
-        Scanner scanner = new Scanner(System.in);
         while (doctor.isLoggedIn()) {
             try {
                 doctor.displayMenu();
                 System.out.print("Choose an option: ");
                 int choice = scanner.nextInt();
                 scanner.nextLine();  // Consume newline
+                if (!permitsOption(doctor, DOCTOR_MENU, choice)) {
+                    continue;
+                }
 
                 switch (choice) {
                     case 1:
@@ -179,6 +371,10 @@ public class UserHandler {
                     
                         if (patientIndex >= 0 && patientIndex < patientIdentifiersForUpdate.size()) {
                             String selectedPatientIdentifier = patientIdentifiersForUpdate.get(patientIndex);
+                            if (!accessControlHandler.isAllowed(doctor, Permission.UPDATE_MEDICAL_RECORD, selectedPatientIdentifier)) {
+                                System.out.println("Access denied: Patient is not under your care.");
+                                break;
+                            }
                             
                             System.out.print("1. Add Diagnosis\n2. Add Treatment\n3. Add Prescription\nChoose an option: ");
                             int recordType = scanner.nextInt();
@@ -190,38 +386,38 @@ public class UserHandler {
                                     String diagnosisIdentifier = scanner.nextLine().trim();
                                     if (diagnosisIdentifier.isEmpty()) {
                                         System.out.println("Error: Diagnosis Identifier cannot be empty.");
-                                        return; 
+                                        break; 
                                     }
                             
                                     System.out.print("Enter Diagnosis Details: ");
                                     String details = scanner.nextLine().trim();
                                     if (details.isEmpty()) {
                                         System.out.println("Error: Diagnosis Details cannot be empty.");
-                                        return; 
+                                        break; 
                                     }
                             
-                                    doctorHandler.addDiagnosis(selectedPatientIdentifier, diagnosisIdentifier, details);
+                                    doctorHandler.addDiagnosis(doctor, selectedPatientIdentifier, diagnosisIdentifier, details);
                                 }
                                 case 2 -> {
                                     System.out.print("Enter Treatment Identifier: ");
                                     String treatmentIdentifier = scanner.nextLine().trim();
                                     if (treatmentIdentifier.isEmpty()) {
                                         System.out.println("Error: Treatment Identifier cannot be empty");
-                                        return; 
+                                        break; 
                                     }
                             
                                     System.out.print("Enter Treatment Details: ");
                                     String details = scanner.nextLine().trim();
                                     if (details.isEmpty()) {
                                         System.out.println("Error: Treatment Details cannot be empty.");
-                                        return; 
+                                        break; 
                                     }
                             
-                                    doctorHandler.addTreatment(selectedPatientIdentifier, treatmentIdentifier, details);
+                                    doctorHandler.addTreatment(doctor, selectedPatientIdentifier, treatmentIdentifier, details);
                                 }
                                 case 3 -> {
                                     String prescriptionIdentifier = "Pres" + System.currentTimeMillis();
-                                    doctorHandler.addPrescription(selectedPatientIdentifier, prescriptionIdentifier, medicineHandler);
+                                    doctorHandler.addPrescription(doctor, selectedPatientIdentifier, prescriptionIdentifier, medicineHandler);
                                 }
                                 default -> System.out.println("Error: Invalid choice.");
                             }
@@ -231,12 +427,12 @@ public class UserHandler {
                         break;
                     
                     case 3:
-                        List<TimeSlot> availableSlots = doctor.getAvailability();
+                        List<SlotCapacity> availableSlots = doctor.getOpenSlots();
                         System.out.println("\n--- Available Timeslots ---");
                         if (availableSlots.isEmpty()) {
                             System.out.println("Notice: No available timeslots.");
                         } else {
-                            for (TimeSlot slot : availableSlots) {
+                            for (SlotCapacity slot : availableSlots) {
                                 System.out.println(slot);
                             }
                         }
@@ -258,6 +454,13 @@ public class UserHandler {
                         }
                     break;
                     case 4:
+                        System.out.println("1. Add Single Slot");
+                        System.out.println("2. Publish Weekly Template");
+                        System.out.print("Choose an option: ");
+                        if ("2".equals(scanner.nextLine().trim())) {
+                            publishAvailabilityTemplate(doctor, scanner);
+                            break;
+                        }
                         System.out.print("Enter availability date (YYYY-MM-DD): ");
                         String dateInput = scanner.nextLine();
                     
@@ -289,14 +492,25 @@ public class UserHandler {
                             break;
                         }
                     
+                        System.out.print("Enter number of patients the slot takes (empty for 1): ");
+                        String capacityInput = scanner.nextLine().trim();
+                        int capacity;
+                        try {
+                            capacity = capacityInput.isEmpty() ? 1 : Integer.parseInt(capacityInput);
+                        } catch (NumberFormatException e) {
+                            System.out.println("Error: Invalid input. Please enter a number.");
+                            break;
+                        }
+
                         TimeSlot newSlot = new TimeSlot(date, time);
-                        doctor.addAvailability(newSlot);
-                        System.out.println("Notice: Availability added for Dr." + doctor.getName() + ": " + newSlot);
+                        if (doctor.addCapacitySlot(newSlot, capacity)) {
+                            System.out.println("Notice: Availability added for Dr." + doctor.getName() + ": " + newSlot);
+                        }
                         break;
 
                     case 5:
                         List<Appointment> appointmentReq = doctor.getAppointments().stream()
-                        .filter(appointment -> "Pending".equalsIgnoreCase(appointment.getStatus()))
+                        .filter(appointment -> appointment.getStatus() == AppointmentStatus.PENDING)
                         .toList();
             
                         if (appointmentReq.isEmpty()) {
@@ -333,7 +547,7 @@ public class UserHandler {
                         break;
                     case 7:
                         List<Appointment> confirmedAppointments = doctor.getAppointments().stream()
-                            .filter(appointment -> "Confirmed".equalsIgnoreCase(appointment.getStatus()))
+                            .filter(appointment -> appointment.getStatus() == AppointmentStatus.CONFIRMED)
                             .toList();
                     
                         if (confirmedAppointments.isEmpty()) {
@@ -363,81 +577,87 @@ public class UserHandler {
                             String prescriptionYN = scanner.nextLine();
                             
                             if (prescriptionYN.equalsIgnoreCase("Y")) {
-                                String prescriptionIdentifier = "Pres" + System.currentTimeMillis();
-                                List<Medicine> medicines = new ArrayList<>();
-                                List<Integer> qty = new ArrayList<>();
-                    
-                                while (true) {
-                                    medicineHandler.displayInventory();
-                    
-                                    System.out.print("Enter the index of the medicine to add (or -1 to finish): ");
-                                    int medicineIndex;
-                                    try {
-                                        medicineIndex = scanner.nextInt();
-                                        scanner.nextLine(); 
-                                    } catch (InputMismatchException e) {
-                                        System.out.println("Error: Invalid input. Please enter a valid number.");
-                                        scanner.nextLine();
-                                        continue;
-                                    }
+                                boolean choosingMedicines = true;
+                                while (choosingMedicines) {
+                                    String prescriptionIdentifier = "Pres" + System.currentTimeMillis();
+                                    List<Medicine> medicines = new ArrayList<>();
+                                    List<Integer> qty = new ArrayList<>();
                     
-                                    if (medicineIndex == -1) {
-                                        break; 
-                                    }
+                                    while (true) {
+                                        medicineHandler.displayInventory();
+                    
+                                        System.out.print("Enter the index of the medicine to add (or -1 to finish): ");
+                                        int medicineIndex;
+                                        try {
+                                            medicineIndex = scanner.nextInt();
+                                            scanner.nextLine(); 
+                                        } catch (InputMismatchException e) {
+                                            System.out.println("Error: Invalid input. Please enter a valid number.");
+                                            scanner.nextLine();
+                                            continue;
+                                        }
+                    
+                                        if (medicineIndex == -1) {
+                                            break; 
+                                        }
+                    
+                                        List<Medicine> inventory = medicineHandler.getInventory();
+                                        if (medicineIndex >= 0 && medicineIndex < inventory.size()) {
+                                            Medicine selectedMedicine = inventory.get(medicineIndex);
+                                            int quantity;
                     
-                                    List<Medicine> inventory = medicineHandler.getInventory();
-                                    if (medicineIndex >= 0 && medicineIndex < inventory.size()) {
-                                        Medicine selectedMedicine = inventory.get(medicineIndex);
-                                        int quantity;
-                    
-                                        while (true) {
-                                            System.out.print("Enter quantity for " + selectedMedicine.getName() + ": ");
-                                            try {
-                                                quantity = scanner.nextInt();
-                                                scanner.nextLine();
-                                                if (quantity > 0) { 
-                                                    break; 
-                                                } else {
-                                                    System.out.println("Error: Quantity must be greater than 0. Please try again.");
+                                            while (true) {
+                                                System.out.print("Enter quantity for " + selectedMedicine.getName() + ": ");
+                                                try {
+                                                    quantity = scanner.nextInt();
+                                                    scanner.nextLine();
+                                                    if (quantity > 0) { 
+                                                        break; 
+                                                    } else {
+                                                        System.out.println("Error: Quantity must be greater than 0. Please try again.");
+                                                    }
+                                                } catch (InputMismatchException e) {
+                                                    System.out.println("Error: Invalid quantity. Please enter a valid number.");
+                                                    scanner.nextLine();
                                                 }
-                                            } catch (InputMismatchException e) {
-                                                System.out.println("Error: Invalid quantity. Please enter a valid number.");
-                                                scanner.nextLine();
                                             }
-                                        }
                     
-                                        if (selectedMedicine.getStock() >= quantity) {
-                                            medicines.add(selectedMedicine);
-                                            qty.add(quantity);
-                                            System.out.println("Added " + quantity + " units of " + selectedMedicine.getName() + " to prescription.");
+                                            if (selectedMedicine.getStock() >= quantity) {
+                                                medicines.add(selectedMedicine);
+                                                qty.add(quantity);
+                                                System.out.println("Added " + quantity + " units of " + selectedMedicine.getName() + " to prescription.");
+                                            } else {
+                                                System.out.println("Insufficient stock for " + selectedMedicine.getName() + ". Available: " + selectedMedicine.getStock());
+                                            }
                                         } else {
-                                            System.out.println("Insufficient stock for " + selectedMedicine.getName() + ". Available: " + selectedMedicine.getStock());
+                                            System.out.println("Error: Invalid index. Please select a valid medicine from the inventory.");
                                         }
-                                    } else {
-                                        System.out.println("Error: Invalid index. Please select a valid medicine from the inventory.");
                                     }
-                                }
                     
-                                if (medicines.isEmpty()) {
-                                    System.out.println("Notice: No valid medicines selected. Prescription was not created.");
-                                } else {
-                                    Prescription prescription = new Prescription(prescriptionIdentifier, medicines, qty, "Pending");
+                                    if (medicines.isEmpty()) {
+                                        System.out.println("Notice: No valid medicines selected. Prescription was not created.");
+                                        choosingMedicines = false;
+                                    } else if (interactionHandler != null && !interactionHandler.confirmPrescription(selectedAppointment.getPatientIdentifier(), medicines, scanner)) {
+                                        //the appointment stays open so a safer alternative can be prescribed
+                                        System.out.println("Notice: Prescription not issued. Choose the medicines again, or -1 to leave the outcome unrecorded.");
+                                    } else {
+                                        Prescription prescription = new Prescription(prescriptionIdentifier, medicines, qty, PrescriptionStatus.PENDING);
                     
-                                    appointmentHandler.recordAppointmentOutcome(
-                                        doctor, selectedAppointment.getPatientIdentifier(), selectedAppointment.getAppointmentIdentifier(),
-                                        services, notes, prescription
-                                    );
+                                        appointmentHandler.recordAppointmentOutcome(
+                                            doctor, selectedAppointment.getPatientIdentifier(), selectedAppointment.getAppointmentIdentifier(),
+                                            services, notes, prescription
+                                        );
                     
-                                    prescriptionHandler.addPrescription(prescription);
-                                    selectedAppointment.setStatus("Completed");
-                                    System.out.println("Notie: Outcome recorded successfully.");
+                                        prescriptionHandler.addPrescription(prescription);
+                                        System.out.println("Notie: Outcome recorded successfully.");
+                                        choosingMedicines = false;
+                                    }
                                 }
                             } else if (prescriptionYN.equalsIgnoreCase("N")) {
                                 appointmentHandler.recordAppointmentOutcome(
                                     doctor, selectedAppointment.getPatientIdentifier(), selectedAppointment.getAppointmentIdentifier(),
                                     services, notes, null
                                 );
-                                selectedAppointment.setStatus("Completed");
                                 System.out.println("Notice: Outcome recorded successfully (no prescription).");
                             } else {
                                 System.out.println("Error: Invalid input.");
@@ -448,8 +668,13 @@ public class UserHandler {
                         }
                     break;
                     case 8:
+                        handlePatientSearch();
+                        break;
+                    case 9:
+                        handleNoteSearch(doctor);
+                        break;
+                    case 10:
                         doctor.logout();
-                        startApp();
                         return;
                     default:
                         System.out.println("Error: Invalid choice. Please try again.");
@@ -467,13 +692,15 @@ public class UserHandler {
      * @param admin the logged in admin
      */
     private void handleAdminMenu(Administrator admin) {
-        Scanner scanner = new Scanner(System.in);
         while (admin.isLoggedIn()) {
             try {
                 admin.displayMenu();
                 System.out.print("Choose an option: ");
                 int choice = scanner.nextInt();
                 scanner.nextLine();  // Consume newline
+                if (!permitsOption(admin, ADMIN_MENU, choice)) {
+                    continue;
+                }
 
                 switch (choice) {
                     case 1:
@@ -489,8 +716,48 @@ public class UserHandler {
                         admin.viewAppointmentDetails();
                         break;
                     case 5:
+                        if (auditHandler != null) {
+                            auditHandler.verifyAuditTrail();
+                        } else {
+                            System.out.println("Notice: Audit trail is not enabled.");
+                        }
+                        break;
+                    case 6:
+                        if (analyticsHandler != null) {
+                            analyticsHandler.displayReports();
+                        } else {
+                            System.out.println("Notice: Reports are not enabled.");
+                        }
+                        break;
+                    case 7:
+                        if (dashboardHandler != null) {
+                            dashboardHandler.displayDashboard();
+                        } else {
+                            System.out.println("Notice: Dashboard is not enabled.");
+                        }
+                        break;
+                    case 8:
+                        if (userFilePath == null) {
+                            System.out.println("Notice: User export is not enabled.");
+                        } else {
+                            List<User> exported = getUsersToExport();
+                            if (BinaryUserFile.exportUsers(userFilePath, exported)) {
+                                System.out.println("Notice: " + exported.size() + " users exported to " + userFilePath + ".");
+                            }
+                        }
+                        break;
+                    case 9:
+                        if (exportHandler == null) {
+                            System.out.println("Notice: Saving data files is not enabled.");
+                        } else if (exportHandler.exportAll()) {
+                            System.out.println("Notice: Saving data files in the background.");
+                        }
+                        break;
+                    case 10:
+                        handlePatientSearch();
+                        break;
+                    case 11:
                         admin.logout();   
-                        startApp(); 
                         return;
                     default:
                         System.out.println("Error: Invalid choice. Please try again.");
@@ -508,13 +775,15 @@ public class UserHandler {
      * @param pharmacist the logged in pharmacist
      */
     private void handlePharmacistMenu(Pharmacist pharmacist) {
-        Scanner scanner = new Scanner(System.in);
         while (pharmacist.isLoggedIn()) {
             try {
                 pharmacist.displayMenu();
                 System.out.print("Choose an option: ");
                 int choice = scanner.nextInt();
                 scanner.nextLine();  // Consume newline
+                if (!permitsOption(pharmacist, PHARMACIST_MENU, choice)) {
+                    continue;
+                }
 
                 switch (choice) {
                     case 1:
@@ -524,24 +793,15 @@ public class UserHandler {
                         pharmacist.viewPendingPrescriptionRecords();
                         break;
                     case 3:
-                        List<Prescription> prescriptions = pharmacist.getPrescriptionHandler().getAllPrescriptions().stream()
-                        .filter(prescription -> "Pending".equalsIgnoreCase(prescription.getStatus()))
-                        .toList();;
-                        if (prescriptions.isEmpty()) {
-                            System.out.println("Notice: No prescriptions available.");
-                        } else {
-                            System.out.println("\n--- Prescription Records ---");
-                            for (int i = 0; i < prescriptions.size(); i++) {
-                                System.out.println(i + ": " + prescriptions.get(i));
-                            }
-                            System.out.print("Enter the index of the prescription to update status: ");
-                            int prescriptionIndex = getValidIntInput(scanner);
-
-                            if (prescriptionIndex >= 0 && prescriptionIndex < prescriptions.size()) {
-                                Prescription selectedPrescription = prescriptions.get(prescriptionIndex);
-                                pharmacist.updatePrescriptionStatus(selectedPrescription.getPrescriptionIdentifier());
+                        if (pharmacist.claimNextPrescription() != null) {
+                            System.out.print("Dispense (D) or Release back to queue (R): ");
+                            String action = scanner.nextLine().trim();
+                            if ("D".equalsIgnoreCase(action)) {
+                                pharmacist.dispenseClaimedPrescription();
+                            } else if ("R".equalsIgnoreCase(action)) {
+                                pharmacist.releaseClaimedPrescription();
                             } else {
-                                System.out.println("Error: Invalid index. Please select a valid prescription index.");
+                                System.out.println("Error: Invalid choice. The prescription stays claimed until you dispense, release or log out.");
                             }
                         }
                         break;
@@ -579,8 +839,7 @@ public class UserHandler {
                         break;
                     case 7:
                         pharmacist.logout();     
-                        startApp();
-                        break;
+                        return;
                     default:
                         System.out.println("Error: Invalid choice. Please try again.");
                         continue;
@@ -597,7 +856,6 @@ public class UserHandler {
      * @param patient the logged in patient
      */
     private void handlePatientMenu(Patient patient) {
-        Scanner scanner = new Scanner(System.in);
         while (patient.isLoggedIn()) {
             patient.displayMenu();
             System.out.print("Choose an option: ");
@@ -611,10 +869,18 @@ public class UserHandler {
                 scanner.nextLine();
                 continue;
             }
+            if (!permitsOption(patient, PATIENT_MENU, choice)) {
+                continue;
+            }
     
             switch (choice) {
                 case 1:
                     patient.viewMedicalRecord();
+                    List<String> careTeam = new ArrayList<>();
+                    for (Doctor member : doctorHandler.getCareTeam(patient.getUserId())) {
+                        careTeam.add("Dr. " + member.getName() + " (" + member.getUserId() + ")");
+                    }
+                    System.out.println("Care Team: " + (careTeam.isEmpty() ? "None" : String.join(", ", careTeam)));
                     break;
     
                 case 2:
@@ -671,7 +937,7 @@ public class UserHandler {
 
                         if (doctorIndex >= 0 && doctorIndex < allDoctors.size()) {
                             Doctor selectedDoctor = allDoctors.get(doctorIndex);
-                            List<TimeSlot> availableSlots = selectedDoctor.getAvailability();
+                            List<SlotCapacity> availableSlots = selectedDoctor.getOpenSlots();
 
                             if (availableSlots.isEmpty()) {
                                 System.out.println("Notie: No available slots for Dr. " + selectedDoctor.getName());
@@ -720,7 +986,7 @@ public class UserHandler {
                 
                         if (validDoctorSelected) {
                             Doctor selectedDoctor = doctors.get(doctorIdx);
-                            List<TimeSlot> slots = selectedDoctor.getAvailability();
+                            List<SlotCapacity> slots = selectedDoctor.getOpenSlots();
                 
                             if (slots.isEmpty()) {
                                 System.out.println("Notie: No available slots for Dr. " + selectedDoctor.getName());
@@ -737,10 +1003,11 @@ public class UserHandler {
                 
                             
                                     if (slotIndex >= 0 && slotIndex < slots.size()) {
-                                        TimeSlot selectedSlot = slots.get(slotIndex);
-                                        patient.scheduleAppointment(selectedDoctor, selectedSlot);
-                                        System.out.println("Scheduled appointment for " + patient.getName() + 
-                                                           " with Dr. " + selectedDoctor.getName() + " at " + selectedSlot);
+                                        TimeSlot selectedSlot = slots.get(slotIndex).getTimeSlot();
+                                        if (patient.scheduleAppointment(selectedDoctor, selectedSlot)) {
+                                            System.out.println("Scheduled appointment for " + patient.getName() + 
+                                                               " with Dr. " + selectedDoctor.getName() + " at " + selectedSlot);
+                                        }
                                     } else {
                                         System.out.println("Error: Invalid slot index. Returning to the previous menu.");
                                     }
@@ -756,7 +1023,7 @@ public class UserHandler {
                 case 5:
                     // reschedule appointment
                     List<Appointment> appointments = patient.getAppointments().stream()
-                    .filter(appointment -> "Pending".equalsIgnoreCase(appointment.getStatus()))
+                    .filter(appointment -> appointment.getStatus() == AppointmentStatus.PENDING)
                     .toList();
 
                     if (appointments.isEmpty()) {
@@ -774,7 +1041,7 @@ public class UserHandler {
                             Doctor doctorForReschedule = doctorHandler.findDoctorById(appointmentToReschedule.getDoctorIdentifier());
                 
                             if (doctorForReschedule != null) {
-                                List<TimeSlot> availableSlots = doctorForReschedule.getAvailability();
+                                List<SlotCapacity> availableSlots = doctorForReschedule.getOpenSlots();
                                 if (availableSlots.isEmpty()) {
                                     System.out.println("Notice: No available slots for Dr. " + doctorForReschedule.getName());
                                 } else {
@@ -787,7 +1054,7 @@ public class UserHandler {
                                     int newSlotIndex = getValidIntInput(scanner);
                 
                                     if (newSlotIndex >= 0 && newSlotIndex < availableSlots.size()) {
-                                        TimeSlot newTimeSlot = availableSlots.get(newSlotIndex);
+                                        TimeSlot newTimeSlot = availableSlots.get(newSlotIndex).getTimeSlot();
                                         patient.rescheduleAppointment(appointmentToReschedule, newTimeSlot, doctorForReschedule);
                                         System.out.println("Scheduled appointment for " + patient.getName() + " with Dr. " + doctorForReschedule.getName() + " at " + newTimeSlot);
                                     } else {
@@ -845,10 +1112,13 @@ public class UserHandler {
                     break;
     
                 case 9:
-                    patient.logout();
-                    startApp();
+                    handlePatientWaitlist(patient);
                     break;
     
+                case 10:
+                    patient.logout();
+                    return;
+    
                 default:
                     System.out.println("Error: Invalid choice. Please try again.");
                     continue;
@@ -856,6 +1126,232 @@ public class UserHandler {
         }
     }
 
+    /**
+     * answers the slot held for a patient, or adds the patient to a doctor's waitlist if no slot is held
+     * @param patient the logged in patient
+     */
+    private void handlePatientWaitlist(Patient patient) {
+        if (waitlistHandler == null) {
+            System.out.println("Notice: Waitlists are not available.");
+            return;
+        }
+        WaitlistOffer offer = waitlistHandler.getOffer(patient.getUserId());
+        if (offer != null) {
+            System.out.println("\n--- Waitlist Offer ---");
+            System.out.println(offer);
+            System.out.print("Accept (A) or decline (D) this slot? ");
+            String answer = scanner.nextLine().trim();
+            if (answer.equalsIgnoreCase("A")) {
+                if (waitlistHandler.acceptOffer(patient.getUserId())) {
+                    System.out.println("Scheduled appointment for " + patient.getName() + " at " + offer.getTimeSlot());
+                }
+            } else if (answer.equalsIgnoreCase("D")) {
+                waitlistHandler.declineOffer(patient.getUserId());
+                System.out.println("Slot declined.");
+            } else {
+                System.out.println("Notice: The slot stays held for you until " + TimeSlot.ofEpochMinute(offer.getExpiresMinute()) + ".");
+            }
+            return;
+        }
+
+        List<WaitlistEntry> entries = waitlistHandler.getEntries(patient.getUserId());
+        if (!entries.isEmpty()) {
+            System.out.println("\n--- Your Waitlists ---");
+            for (WaitlistEntry entry : entries) {
+                System.out.println(entry);
+            }
+        }
+
+        List<Doctor> doctors = doctorHandler.getAllDoctors();
+        if (doctors.isEmpty()) {
+            System.out.println("Notice: No doctors available.");
+            return;
+        }
+        System.out.println("\n--- Doctors ---");
+        for (int i = 0; i < doctors.size(); i++) {
+            System.out.println(i + ": Dr. " + doctors.get(i).getName() + " (Identifier: " + doctors.get(i).getUserId() + ")");
+        }
+        System.out.print("Enter the index of the doctor to wait for (or 'E' to exit): ");
+        String input = scanner.nextLine().trim();
+        if (input.equalsIgnoreCase("E")) {
+            return;
+        }
+        Doctor doctor;
+        try {
+            int doctorIndex = Integer.parseInt(input);
+            if (doctorIndex < 0 || doctorIndex >= doctors.size()) {
+                System.out.println("Error: Invalid index. Returning to the previous menu.");
+                return;
+            }
+            doctor = doctors.get(doctorIndex);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: Invalid input. Returning to the previous menu.");
+            return;
+        }
+
+        LocalDate from;
+        LocalDate to;
+        try {
+            System.out.print("Enter the first date you can attend (YYYY-MM-DD): ");
+            from = LocalDate.parse(scanner.nextLine().trim());
+            System.out.print("Enter the last date you can attend (YYYY-MM-DD): ");
+            to = LocalDate.parse(scanner.nextLine().trim());
+        } catch (Exception e) {
+            System.out.println("Error: Invalid date format. Please use YYYY-MM-DD.");
+            return;
+        }
+        if (waitlistHandler.joinWaitlist(patient.getUserId(), doctor.getUserId(), from, to)) {
+            System.out.println("Added to the waitlist of Dr. " + doctor.getName() + " from " + from + " to " + to + ".");
+        }
+    }
+
+    /**
+     * searches patients by part of a name, date of birth or email and lists the best matches
+     */
+    private void handlePatientSearch() {
+        if (patientHandler == null) {
+            System.out.println("Notice: Patient search is not available.");
+            return;
+        }
+        System.out.print("Enter part of a name, date of birth (yyyy-mm-dd) or email: ");
+        String query = scanner.nextLine().trim();
+        if (query.isEmpty()) {
+            System.out.println("Error: Search cannot be empty.");
+            return;
+        }
+        List<Patient> matches = patientHandler.searchPatients(query, SEARCH_LIMIT);
+        if (matches.isEmpty()) {
+            System.out.println("Notice: No patients found.");
+            return;
+        }
+        System.out.println("\n--- Patients Found (" + matches.size() + ") ---");
+        for (Patient match : matches) {
+            System.out.println(match.getUserId() + ": " + match.getName() + ", born " + match.getDateOfBirth() + ", " + match.getContactInfo());
+        }
+    }
+
+    /**
+     * searches the clinical notes of a doctor's assigned patients and lists the best matching notes
+     * every patient whose notes are shown is recorded as a read in the audit trail
+     * @param doctor the logged in doctor
+     */
+    private void handleNoteSearch(Doctor doctor) {
+        if (noteSearchHandler == null) {
+            System.out.println("Notice: Note search is not available.");
+            return;
+        }
+        List<String> patientIdentifiers = doctor.getAssignedPatientIdentifiers();
+        if (patientIdentifiers.isEmpty()) {
+            System.out.println("Notice: No patients assigned.");
+            return;
+        }
+        System.out.print("Enter words to find in notes (e.g. penicillin allergy): ");
+        String query = scanner.nextLine().trim();
+        if (query.isEmpty()) {
+            System.out.println("Error: Search cannot be empty.");
+            return;
+        }
+        List<NoteMatch> matches = noteSearchHandler.search(query, patientIdentifiers, SEARCH_LIMIT);
+        if (matches.isEmpty()) {
+            System.out.println("Notice: No notes found.");
+            return;
+        }
+        System.out.println("\n--- Notes Found (" + matches.size() + ") ---");
+        Set<String> shownPatients = new LinkedHashSet<>();
+        for (NoteMatch match : matches) {
+            MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(match.getPatientIdentifier());
+            String name = record != null ? record.getPatientName() : "Record not found";
+            System.out.println(match.getPatientIdentifier() + " (" + name + ") " + match);
+            shownPatients.add(match.getPatientIdentifier());
+        }
+        if (auditHandler != null) {
+            for (String patientIdentifier : shownPatients) {
+                auditHandler.recordRead(doctor.getUserId(), patientIdentifier, "NoteSearch");
+            }
+        }
+    }
+
+    /**
+     * prompts a doctor for a weekly template and publishes it as availability, e.g. MON-FRI 09:00 to 17:00 for 90 days
+     * @param doctor the doctor publishing availability
+     * @param scanner the scanner that is declared for user input
+     */
+    private void publishAvailabilityTemplate(Doctor doctor, Scanner scanner) {
+        System.out.print("Enter days of week (e.g. MON,TUE,FRI): ");
+        Set<DayOfWeek> daysOfWeek = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : scanner.nextLine().split(",")) {
+            String name = day.trim().toUpperCase();
+            if (name.isEmpty()) {
+                continue;
+            }
+            DayOfWeek match = null;
+            for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+                if (dayOfWeek.name().startsWith(name) && name.length() >= 3) {
+                    match = dayOfWeek;
+                }
+            }
+            if (match == null) {
+                System.out.println("Error: Invalid day of week: " + day.trim());
+                return;
+            }
+            daysOfWeek.add(match);
+        }
+        if (daysOfWeek.isEmpty()) {
+            System.out.println("Error: No days of week entered.");
+            return;
+        }
+
+        LocalTime start;
+        LocalTime end;
+        try {
+            System.out.print("Enter start time (HH:MM): ");
+            start = LocalTime.parse(scanner.nextLine().trim());
+            System.out.print("Enter end time (HH:MM): ");
+            end = LocalTime.parse(scanner.nextLine().trim());
+        } catch (Exception e) {
+            System.out.println("Error: Invalid time format. Please use HH:MM.");
+            return;
+        }
+        if (!end.isAfter(start)) {
+            System.out.println("Error: End time must be after start time.");
+            return;
+        }
+
+        System.out.print("Enter number of days to publish: ");
+        int numberOfDays;
+        try {
+            numberOfDays = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Error: Invalid input. Please enter a valid number.");
+            return;
+        }
+        if (numberOfDays <= 0) {
+            System.out.println("Error: Number of days must be positive.");
+            return;
+        }
+
+        LocalDate from = LocalDate.now();
+        int published = doctorHandler.publishAvailability(doctor, from, from.plusDays(numberOfDays - 1), daysOfWeek, start, end);
+        System.out.println("Notice: " + published + " slots of " + Doctor.SLOT_MINUTES + " minutes published for Dr." + doctor.getName() + ".");
+    }
+
+    /**
+     * collects every user once by Identifier, the shared list first and then any patient not in it
+     * @return list of the users to export
+     */
+    private List<User> getUsersToExport() {
+        Map<String, User> byIdentifier = new LinkedHashMap<>();
+        for (User user : users) {
+            byIdentifier.putIfAbsent(user.getUserId(), user);
+        }
+        if (patientHandler != null) {
+            for (User patient : patientHandler.getAllPatientsInternal()) {
+                byIdentifier.putIfAbsent(patient.getUserId(), patient);
+            }
+        }
+        return new ArrayList<>(byIdentifier.values());
+    }
+
     /**
      * returns a list of all users
      * @return list of all users
@@ -871,30 +1367,31 @@ public class UserHandler {
      * @param user the user that require to change password
      */
     private void promptPasswordChange(User user) {
-        Scanner scanner = new Scanner(System.in);
-        String newPassword;
-        
         while (true) {
-            System.out.print("Enter new password: ");
-            newPassword = scanner.nextLine();
-            
-            if (!isStrongPassword(newPassword)) {
-                System.out.println("Password must be at least 8 characters long, contain at least one uppercase letter, one lowercase letter, one digit, and one special character.");
-            } else {
-                break;
+            String newPassword;
+            while (true) {
+                System.out.print("Enter new password: ");
+                newPassword = scanner.nextLine();
+                
+                if (!isStrongPassword(newPassword)) {
+                    System.out.println("Password must be at least 8 characters long, contain at least one uppercase letter, one lowercase letter, one digit, and one special character.");
+                } else {
+                    break;
+                }
+            }
+        
+            System.out.print("Confirm new password: ");
+            String confirmPassword = scanner.nextLine();
+        
+            if (newPassword.equals(confirmPassword)) {
+                synchronized (EntityStore.getShared().getStateLock()) {
+                    user.changePassword(newPassword);
+                    user.setFirstLogin(false);
+                }
+                System.out.println("Notice: Password updated successfully.");
+                return;
             }
-        }
-    
-        System.out.print("Confirm new password: ");
-        String confirmPassword = scanner.nextLine();
-    
-        if (newPassword.equals(confirmPassword)) {
-            user.changePassword(newPassword);
-            user.setFirstLogin(false);
-            System.out.println("Notice: Password updated successfully.");
-        } else {
             System.out.println("Error: Passwords do not match. Try again.");
-            promptPasswordChange(user); 
         }
     }
 
@@ -0,0 +1,366 @@
+package handlers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.IAppointmentHandler;
+import interfaces.IDoctorHandler;
+import interfaces.IPatientHandler;
+import interfaces.IWaitlistHandler;
+import resources.AppointmentEvent;
+import resources.TimeSlot;
+import resources.WaitlistEntry;
+import resources.WaitlistOffer;
+import userclasses.Doctor;
+import userclasses.Patient;
+/**
+ * WaitlistHandler - per doctor waitlists that backfill slots freed by cancellations and declines
+ * A freed slot is taken out of the doctor's availability and held for the first waiting patient whose date range
+ * it falls in. The patient can accept it, which books it, or decline it, in which case it passes to the next
+ * waiting patient, and a hold that runs out passes on the same way. Once nobody else matches the slot is free again.
+ * Every change happens under this handler's lock, so a slot is held for at most one patient at a time.
+ */
+public class WaitlistHandler implements IWaitlistHandler {
+
+    private static final long SWEEP_SECONDS = 30;      /**< how often holds that ran out are passed on */
+
+    private IAppointmentHandler appointmentHandler;
+    private final IDoctorHandler doctorHandler;
+    private final IPatientHandler patientHandler;
+    private final int holdMinutes;                                          /**< how long a slot is held for a patient */
+    private final Map<String, List<WaitlistEntry>> waitlists;              /**< doctor Identifier to entries, first joined first */
+    private final Map<String, WaitlistOffer> offers;                       /**< patient Identifier to the slot held for them */
+    private final Map<String, TimingWheel.Timer<WaitlistOffer>> holds;     /**< patient Identifier to the expiry of their hold */
+    private final TimingWheel<WaitlistOffer> holdExpiries;                 /**< offers by the minute their hold runs out */
+    private final ScheduledExecutorService sweeper;
+    private Flow.Subscription subscription;
+
+    /**
+     * Constructor for WaitlistHandler, starts the background sweeper
+     * @param appointmentHandler the manager used to book accepted offers
+     * @param doctorHandler the manager used to find doctors and their availability
+     * @param patientHandler the manager used to find patients
+     * @param holdMinutes how long a freed slot is held for a patient
+     */
+    public WaitlistHandler(IAppointmentHandler appointmentHandler, IDoctorHandler doctorHandler, IPatientHandler patientHandler, int holdMinutes) {
+        this.appointmentHandler = appointmentHandler;
+        this.doctorHandler = doctorHandler;
+        this.patientHandler = patientHandler;
+        this.holdMinutes = holdMinutes;
+        this.waitlists = new HashMap<>();
+        this.offers = new HashMap<>();
+        this.holds = new HashMap<>();
+        this.holdExpiries = new TimingWheel<>(nowMinute());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist-holds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleAtFixedRate(this::sweep, SWEEP_SECONDS, SWEEP_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * set method for the appointment manager (to prevent cyclic in Main)
+     * @param am the appointment manager
+     */
+    public void setAppointmentHandler(IAppointmentHandler am) {
+        this.appointmentHandler = am;
+    }
+
+    /**
+     * adds a patient to a doctor's waitlist, replacing the date range if they are already on it
+     * @param patientIdentifier the patient
+     * @param doctorIdentifier the doctor
+     * @param from first date the patient can attend
+     * @param to last date the patient can attend
+     * @return true if the patient was added
+     */
+    public synchronized boolean joinWaitlist(String patientIdentifier, String doctorIdentifier, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            System.out.println("Error: End date must not be before start date.");
+            return false;
+        }
+        if (doctorHandler.findDoctorById(doctorIdentifier) == null) {
+            return false;
+        }
+        List<WaitlistEntry> waitlist = waitlists.computeIfAbsent(doctorIdentifier, k -> new ArrayList<>());
+        waitlist.removeIf(entry -> entry.getPatientIdentifier().equals(patientIdentifier));
+        waitlist.add(new WaitlistEntry(patientIdentifier, doctorIdentifier, from, to));
+        return true;
+    }
+
+    /**
+     * removes a patient from a doctor's waitlist
+     * @param patientIdentifier the patient
+     * @param doctorIdentifier the doctor
+     * @return true if the patient was on the waitlist
+     */
+    public synchronized boolean leaveWaitlist(String patientIdentifier, String doctorIdentifier) {
+        List<WaitlistEntry> waitlist = waitlists.get(doctorIdentifier);
+        return waitlist != null && waitlist.removeIf(entry -> entry.getPatientIdentifier().equals(patientIdentifier));
+    }
+
+    /**
+     * retrieves the waitlists a patient is on
+     * @param patientIdentifier the patient
+     * @return the entries of the patient
+     */
+    public synchronized List<WaitlistEntry> getEntries(String patientIdentifier) {
+        List<WaitlistEntry> entries = new ArrayList<>();
+        for (List<WaitlistEntry> waitlist : waitlists.values()) {
+            for (WaitlistEntry entry : waitlist) {
+                if (entry.getPatientIdentifier().equals(patientIdentifier)) {
+                    entries.add(entry);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * offers a free slot to the first waiting patient whose range it falls in, holding it for them
+     * @param doctorIdentifier the doctor of the slot
+     * @param slot the free slot
+     * @return true if the slot was offered
+     */
+    public synchronized boolean offerSlot(String doctorIdentifier, TimeSlot slot) {
+        return offerSlot(doctorIdentifier, slot, Collections.emptySet());
+    }
+
+    /**
+     * retrieves the slot currently held for a patient
+     * @param patientIdentifier the patient
+     * @return the offer, or null if none is held
+     */
+    public synchronized WaitlistOffer getOffer(String patientIdentifier) {
+        return offers.get(patientIdentifier);
+    }
+
+    /**
+     * books the slot held for a patient and takes them off that doctor's waitlist
+     * if the booking is refused the slot stays held for the patient until the hold runs out
+     * The booking's event is published after this handler's lock is released, the waitlist follows those events
+     * @param patientIdentifier the patient
+     * @return true if the appointment was booked
+     */
+    public boolean acceptOffer(String patientIdentifier) {
+        boolean booked = bookOffer(patientIdentifier);
+        appointmentHandler.publishPending();
+        return booked;
+    }
+
+    /**
+     * books the slot held for a patient under this handler's lock
+     * @param patientIdentifier the patient
+     * @return true if the appointment was booked
+     */
+    private synchronized boolean bookOffer(String patientIdentifier) {
+        WaitlistOffer offer = takeOffer(patientIdentifier);
+        if (offer == null) {
+            System.out.println("Error: No slot is held for you.");
+            return false;
+        }
+        Doctor doctor = doctorHandler.findDoctorById(offer.getDoctorIdentifier());
+        Patient patient = patientHandler.findPatientById(patientIdentifier);
+        if (doctor == null || patient == null) {
+            restoreOffer(offer);
+            return false;
+        }
+        // release the hold and book it under the appointment manager's lock, so no other booking takes it in between
+        boolean booked;
+        synchronized (appointmentHandler) {
+            doctor.addAvailability(offer.getTimeSlot());
+            booked = appointmentHandler.scheduleAppointment(patient, doctor, offer.getTimeSlot());
+            if (!booked && doctor.isAvailable(offer.getTimeSlot())) {
+                doctor.removeAvailability(offer.getTimeSlot());
+            }
+        }
+        if (!booked) {
+            restoreOffer(offer);
+            return false;
+        }
+        leaveWaitlist(patientIdentifier, offer.getDoctorIdentifier());
+        return true;
+    }
+
+    /**
+     * turns down the slot held for a patient, it is offered to the next waiting patient
+     * @param patientIdentifier the patient
+     */
+    public synchronized void declineOffer(String patientIdentifier) {
+        WaitlistOffer offer = takeOffer(patientIdentifier);
+        if (offer == null) {
+            System.out.println("Error: No slot is held for you.");
+            return;
+        }
+        passOn(offer);
+    }
+
+    /**
+     * displays the slot held for a patient, if any
+     * @param patientIdentifier the patient
+     */
+    public synchronized void displayOffer(String patientIdentifier) {
+        WaitlistOffer offer = offers.get(patientIdentifier);
+        if (offer != null) {
+            System.out.println("\n--- Waitlist Offer ---");
+            System.out.println(offer);
+        }
+    }
+
+    /**
+     * passes on every offer whose hold has run out
+     * @return the number of offers that ran out
+     */
+    public int sweep() {
+        return sweepTo(nowMinute());
+    }
+
+    /**
+     * stops the background sweeper and the event subscription
+     */
+    public void shutdown() {
+        sweeper.shutdownNow();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * advances the hold wheel and passes on the offers that ran out
+     * @param minute the minute to advance to
+     * @return the number of offers that ran out
+     */
+    synchronized int sweepTo(long minute) {
+        List<WaitlistOffer> lapsed = new ArrayList<>();
+        holdExpiries.advanceTo(minute, lapsed::add);
+        for (WaitlistOffer offer : lapsed) {
+            offers.remove(offer.getPatientIdentifier());
+            holds.remove(offer.getPatientIdentifier());
+            passOn(offer);
+        }
+        return lapsed.size();
+    }
+
+    /**
+     * requests the first appointment event
+     * @param subscription the subscription to the notification publisher
+     */
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    /**
+     * offers the slot of a cancelled or declined appointment if it is still free and upcoming, then requests the next event
+     * @param event the appointment event
+     */
+    public void onNext(AppointmentEvent event) {
+        AppointmentEvent.Type type = event.getType();
+        if ((type == AppointmentEvent.Type.CANCELLED || type == AppointmentEvent.Type.DECLINED) && event.getTimeSlot() != null) {
+            offerSlot(event.getDoctorIdentifier(), event.getTimeSlot());
+        }
+        subscription.request(1);
+    }
+
+    /**
+     * reports that the notification publisher failed, freed slots are no longer backfilled
+     * @param throwable the failure
+     */
+    public void onError(Throwable throwable) {
+        System.out.println("Error: Waitlist stopped following appointments: " + throwable.getMessage());
+    }
+
+    /**
+     * nothing to release, held offers can still be answered
+     */
+    public void onComplete() {
+    }
+
+    /**
+     * offers a free slot to the first waiting patient not offered it before and not already holding a slot
+     * @param doctorIdentifier the doctor of the slot
+     * @param slot the free slot
+     * @param offeredPatients patients this slot was already offered to
+     * @return true if the slot was offered
+     */
+    private boolean offerSlot(String doctorIdentifier, TimeSlot slot, Set<String> offeredPatients) {
+        Doctor doctor = doctorHandler.findDoctorById(doctorIdentifier);
+        long now = nowMinute();
+        if (doctor == null || slot.getEpochMinute() <= now) {
+            return false;
+        }
+        for (WaitlistEntry entry : waitlists.getOrDefault(doctorIdentifier, Collections.emptyList())) {
+            String patientIdentifier = entry.getPatientIdentifier();
+            if (entry.matches(slot) && !offeredPatients.contains(patientIdentifier) && !offers.containsKey(patientIdentifier)) {
+                // hold the slot under the appointment manager's lock, so it is not booked between the check and the hold
+                synchronized (appointmentHandler) {
+                    if (!doctor.isAvailable(slot)) {
+                        return false;
+                    }
+                    doctor.removeAvailability(slot);
+                }
+                long expires = Math.min(now + holdMinutes, slot.getEpochMinute());
+                WaitlistOffer offer = new WaitlistOffer(patientIdentifier, doctorIdentifier, slot, expires, offeredPatients);
+                offers.put(patientIdentifier, offer);
+                holds.put(patientIdentifier, holdExpiries.schedule(offer, expires));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * removes the offer held for a patient and cancels its hold expiry
+     * @param patientIdentifier the patient
+     * @return the offer, or null if none was held
+     */
+    private WaitlistOffer takeOffer(String patientIdentifier) {
+        WaitlistOffer offer = offers.remove(patientIdentifier);
+        TimingWheel.Timer<WaitlistOffer> hold = holds.remove(patientIdentifier);
+        if (hold != null) {
+            holdExpiries.cancel(hold);
+        }
+        return offer;
+    }
+
+    /**
+     * holds a taken offer for its patient again, until the time its hold was to run out
+     * @param offer the offer taken for a booking that did not go through
+     */
+    private void restoreOffer(WaitlistOffer offer) {
+        offers.put(offer.getPatientIdentifier(), offer);
+        holds.put(offer.getPatientIdentifier(), holdExpiries.schedule(offer, offer.getExpiresMinute()));
+    }
+
+    /**
+     * returns a held slot to the doctor's availability and offers it to the next waiting patient
+     * @param offer the offer that was turned down or ran out
+     */
+    private void passOn(WaitlistOffer offer) {
+        Doctor doctor = doctorHandler.findDoctorById(offer.getDoctorIdentifier());
+        if (doctor == null || offer.getTimeSlot().getEpochMinute() <= nowMinute()) {
+            return;
+        }
+        doctor.addAvailability(offer.getTimeSlot());
+        offerSlot(offer.getDoctorIdentifier(), offer.getTimeSlot(), offer.getOfferedPatients());
+    }
+
+    /**
+     * get method for the current minute
+     * @return minutes since epoch, in the encoding of TimeSlot
+     */
+    private static long nowMinute() {
+        return TimeSlot.toEpochMinute(LocalDate.now(), LocalTime.now());
+    }
+}
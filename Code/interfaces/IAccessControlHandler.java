@@ -0,0 +1,64 @@
+package interfaces;
+
+import resources.Appointment;
+import resources.Permission;
+import resources.Role;
+import userclasses.User;
+
+/**
+ * An interface class for the access control policy every handler consults before acting for a user
+ * Roles are granted permissions, and scoped permissions also need the user to own the resource
+ */
+public interface IAccessControlHandler {
+
+    /**
+     * Sets the doctor handler whose care teams decide which patients a doctor may act for
+     * @param doctorHandler the doctor handler to set
+     */
+    void setDoctorHandler(IDoctorHandler doctorHandler);
+
+    /**
+     * Grants permissions to a role, taking effect from the next session of its users
+     * @param role the role
+     * @param permissions the permissions to grant
+     */
+    void grant(Role role, Permission... permissions);
+
+    /**
+     * Caches the permissions of a user for a session, called when the user logs in
+     * @param user the user
+     */
+    void openSession(User user);
+
+    /**
+     * Drops the permissions cached for a user, called when the session ends
+     * @param user the user
+     */
+    void closeSession(User user);
+
+    /**
+     * Checks if a user's role has a permission, without checking who owns the resource
+     * @param user the user, null is never allowed
+     * @param permission the permission
+     * @return true if the permission is granted
+     */
+    boolean isAllowed(User user, Permission permission);
+
+    /**
+     * Checks if a user has a permission for a patient's data
+     * @param user the user, null is never allowed
+     * @param permission the permission
+     * @param patientIdentifier the Identifier of the patient
+     * @return true if the permission is granted and the user is the patient or in the patient's care team
+     */
+    boolean isAllowed(User user, Permission permission, String patientIdentifier);
+
+    /**
+     * Checks if a user has a permission for an appointment
+     * @param user the user, null is never allowed
+     * @param permission the permission
+     * @param appointment the appointment
+     * @return true if the permission is granted and the user is the appointment's patient or doctor
+     */
+    boolean isAllowed(User user, Permission permission, Appointment appointment);
+}
@@ -0,0 +1,60 @@
+package interfaces;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import resources.AppointmentEvent;
+import resources.Prescription;
+
+/**
+ * An interface class for the management reports over appointments and prescriptions
+ * Told of every appointment event by the appointment handler, so the reports follow bookings and every later change
+ */
+public interface IAnalyticsHandler {
+
+    /**
+     * Records that an appointment was booked, or that the status or time slot of a booked appointment changed
+     * @param event the appointment event
+     */
+    void recordAppointment(AppointmentEvent event);
+
+    /**
+     * Records that a prescription was issued
+     * @param prescription the prescription issued
+     */
+    void recordPrescription(Prescription prescription);
+
+    /**
+     * Counts appointments per doctor per week, by the date of the appointment
+     * @param from first day of the first week
+     * @param weeks number of weeks to count
+     * @return doctor Identifier to the number of appointments in each week
+     */
+    Map<String, int[]> getAppointmentsPerDoctorPerWeek(LocalDate from, int weeks);
+
+    /**
+     * Share of appointments in each status, confirmed appointments whose date has passed count as "No-show"
+     * @param today the date used to detect no-shows
+     * @return status to fraction of all appointments
+     */
+    Map<String, Double> getStatusRates(LocalDate today);
+
+    /**
+     * The medicines prescribed in the largest total quantity
+     * @param limit the maximum number of medicines to return
+     * @return medicine name and total quantity, largest first
+     */
+    List<Map.Entry<String, Long>> getTopPrescribedMedicines(int limit);
+
+    /**
+     * Average time from booking an appointment to completing it
+     * @return the average in hours, or NaN if no appointment was completed
+     */
+    double getAverageHoursToCompletion();
+
+    /**
+     * Displays every report
+     */
+    void displayReports();
+}
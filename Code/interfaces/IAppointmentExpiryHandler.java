@@ -0,0 +1,35 @@
+package interfaces;
+
+import java.util.concurrent.Flow;
+
+import resources.AppointmentEvent;
+
+/**
+ * An interface class for declining pending appointments that the doctor never answered
+ * Subscribed to appointment events, so it tracks bookings until they are accepted, declined or cancelled
+ */
+public interface IAppointmentExpiryHandler extends Flow.Subscriber<AppointmentEvent> {
+
+    /**
+     * Sets the manager that declines expired appointments (to prevent cyclic in Main)
+     * @param appointmentHandler the appointment manager to set
+     */
+    void setAppointmentHandler(IAppointmentHandler appointmentHandler);
+
+    /**
+     * Declines every tracked appointment whose expiry has been reached
+     * @return the number of appointments declined
+     */
+    int sweep();
+
+    /**
+     * get method for the number of pending appointments waiting to expire
+     * @return the number of tracked appointments
+     */
+    int getTrackedCount();
+
+    /**
+     * Stops the background sweeper
+     */
+    void shutdown();
+}
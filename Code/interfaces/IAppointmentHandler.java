@@ -1,7 +1,5 @@
 package interfaces;
 
-import java.util.List;
-
 import resources.*;
 import userclasses.*;
 /**
@@ -10,10 +8,34 @@ import userclasses.*;
 public interface IAppointmentHandler {
 
     /**
-     * Sets the list of all appointment 
-     * @param allAppointments list of all appointments
+     * Sets the entity store appointments are kept in
+     * @param entityStore the store holding all appointments
+     */
+    void setEntityStore(EntityStore entityStore);
+
+    /**
+     * Sets the handler that appointment events are reported to for management reports
+     * @param analyticsHandler the analytics handler to set
+     */
+    void setAnalyticsHandler(IAnalyticsHandler analyticsHandler);
+
+    /**
+     * Sets the dashboard that appointment events are reported to
+     * @param dashboardHandler the dashboard handler to set
+     */
+    void setDashboardHandler(IDashboardHandler dashboardHandler);
+
+    /**
+     * Sets the handler that appointment lifecycle events are published to
+     * @param notificationHandler the notification handler to set
      */
-    void setAppList(List<Appointment> allAppointments);
+    void setNotificationHandler(INotificationHandler notificationHandler);
+
+    /**
+     * Publishes the events queued by appointment changes, called by a caller that made a change while holding
+     * the appointment handler's lock, once it has released it
+     */
+    void publishPending();
 
     /**
      * Sets the manager responsible for doctor-related operations.
@@ -27,6 +49,12 @@ public interface IAppointmentHandler {
      */
     void setPatientHandler(IPatientHandler patientHandler);
 
+    /**
+     * Sets the access control policy consulted before acting for a user.
+     * @param accessControlHandler the access control handler to set
+     */
+    void setAccessControlHandler(IAccessControlHandler accessControlHandler);
+
     /**
      * Cancels a specified appointment
      * @param appointment the appointment to be canceled
@@ -60,8 +88,9 @@ public interface IAppointmentHandler {
      * @param patient the patient of the appointment
      * @param doctor the doctor of the appointment
      * @param timeSlot the timeslot of the appointment
+     * @return true if the appointment was booked, false if it was refused
      */
-    void scheduleAppointment(Patient patient, Doctor doctor, TimeSlot timeSlot);
+    boolean scheduleAppointment(Patient patient, Doctor doctor, TimeSlot timeSlot);
 
     /**
      * retrieves all available slots of the doctor
@@ -84,7 +113,14 @@ public interface IAppointmentHandler {
     void declineAppointment(Doctor doctor, Appointment appointment);
 
     /**
-     * records the outcome of an appointment
+     * declines a pending appointment on behalf of the system and frees its slot
+     * @param appointmentIdentifier the Identifier of the appointment
+     * @return true if the appointment was still pending and is now declined
+     */
+    boolean expireAppointment(String appointmentIdentifier);
+
+    /**
+     * records the outcome of an appointment and completes it
      * @param doctor the doctor who provided the information
      * @param patientIdentifier the patient associated to this outcome
      * @param appointmentIdentifier the appointment associated to this outcome
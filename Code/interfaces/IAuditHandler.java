@@ -0,0 +1,36 @@
+package interfaces;
+
+/**
+ * An interface class which manage the audit trail of medical record access
+ */
+public interface IAuditHandler {
+
+    /**
+     * Records that a user read a patient's medical record
+     * @param actorIdentifier the Identifier of the user reading the record
+     * @param patientIdentifier the Identifier of the patient whose record was read
+     * @param entryType the part of the record that was read
+     * @return true if the entry was queued, false if the audit trail is not being written
+     */
+    boolean recordRead(String actorIdentifier, String patientIdentifier, String entryType);
+
+    /**
+     * Records that a user changed a patient's medical record
+     * @param actorIdentifier the Identifier of the user changing the record
+     * @param patientIdentifier the Identifier of the patient whose record was changed
+     * @param entryType the type of entry added to the record
+     * @return true if the entry was queued, false if the audit trail is not being written
+     */
+    boolean recordWrite(String actorIdentifier, String patientIdentifier, String entryType);
+
+    /**
+     * Walks the whole audit trail and checks that every hash links to the one before it
+     * @return a boolean indicating whether the audit trail is intact
+     */
+    boolean verifyAuditTrail();
+
+    /**
+     * Writes out any pending entries and stops the background writer
+     */
+    void shutdown();
+}
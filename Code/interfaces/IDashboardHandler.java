@@ -0,0 +1,55 @@
+package interfaces;
+
+
+import resources.AppointmentEvent;
+import resources.Medicine;
+import resources.Prescription;
+import resources.ReplenishmentRequest;
+
+/**
+ * An interface class for the administrator dashboard, kept up to date by events instead of recomputed when shown
+ * Told of every appointment event by the appointment handler, so appointment figures follow bookings and every later change
+ */
+public interface IDashboardHandler {
+
+    /**
+     * Sets the manager used to list doctors for utilization
+     * @param doctorHandler the doctor manager to set
+     */
+    void setDoctorHandler(IDoctorHandler doctorHandler);
+
+    /**
+     * Records that an appointment was booked, or that its status or time slot changed
+     * @param event the appointment event
+     */
+    void recordAppointment(AppointmentEvent event);
+
+    /**
+     * Records that a prescription was issued or its status changed
+     * @param prescription the prescription
+     */
+    void recordPrescription(Prescription prescription);
+
+    /**
+     * Records that a replenishment request was submitted or approved
+     * @param request the replenishment request
+     */
+    void recordReplenishmentRequest(ReplenishmentRequest request);
+
+    /**
+     * Records that the stock or alert level of a medicine changed, or that it was added
+     * @param medicine the medicine
+     */
+    void recordStock(Medicine medicine);
+
+    /**
+     * Records that a medicine was removed from the inventory
+     * @param medicine the medicine removed
+     */
+    void recordMedicineRemoved(Medicine medicine);
+
+    /**
+     * Displays the dashboard
+     */
+    void displayDashboard();
+}
@@ -1,6 +1,10 @@
 package interfaces;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Set;
 import userclasses.Doctor;
 import resources.TimeSlot;
 
@@ -31,6 +35,28 @@ public interface IDoctorHandler {
      */
     boolean isAvailable(Doctor doctor, TimeSlot timeSlot);
 
+    /**
+     * Publishes a recurring availability template for a doctor.
+     * @param doctor the doctor whose availability is being published
+     * @param from first date of the template, inclusive
+     * @param to last date of the template, inclusive
+     * @param daysOfWeek the days of the week the template applies to
+     * @param start start of the working hours
+     * @param end end of the working hours, exclusive
+     * @return the number of new slots published
+     */
+    int publishAvailability(Doctor doctor, LocalDate from, LocalDate to, Set<DayOfWeek> daysOfWeek, LocalTime start, LocalTime end);
+
+    /**
+     * Finds the earliest run of consecutive available slots for a doctor.
+     * @param doctor the doctor whose availability is searched
+     * @param from first date to search, inclusive
+     * @param to last date to search, inclusive
+     * @param slotCount the number of consecutive slots needed
+     * @return the first slot of the run, or null if there is none
+     */
+    TimeSlot findAvailableGap(Doctor doctor, LocalDate from, LocalDate to, int slotCount);
+
     /**
      * Views a patient's medical record
      * @param doctor the doctor requesting access to the patient's record
@@ -50,33 +76,95 @@ public interface IDoctorHandler {
      */
     void setPrescriptionHandler(IPrescriptionHandler prescriptionHandler);
 
+    /**
+     * Sets the audit trail that medical record reads are reported to.
+     * @param auditHandler the audit handler to set
+     */
+    void setAuditHandler(IAuditHandler auditHandler);
+
+    /**
+     * Sets the checker that new prescriptions are validated against for interactions and allergies.
+     * @param interactionHandler the interaction handler to set
+     */
+    void setInteractionHandler(IInteractionHandler interactionHandler);
+
+    /**
+     * Sets the access control policy consulted before acting for a doctor.
+     * @param accessControlHandler the access control handler to set
+     */
+    void setAccessControlHandler(IAccessControlHandler accessControlHandler);
+
     /**
      * Adds a diagnosis to a patient's medical record.
+     * @param doctor the doctor adding the diagnosis
      * @param selectedPatientIdentifier the Identifier of the patient to add the diagnosis to
      * @param diagnosisIdentifier the Identifier of the diagnosis
      * @param details the details of the diagnosis
      */
-    void addDiagnosis(String selectedPatientIdentifier, String diagnosisIdentifier, String details);
+    void addDiagnosis(Doctor doctor, String selectedPatientIdentifier, String diagnosisIdentifier, String details);
 
     /**
      * Adds a treatment to a patient's medical record.
+     * @param doctor the doctor adding the treatment
      * @param selectedPatientIdentifier the Identifier of the patient to add the treatment to
      * @param treatmentIdentifier the Identifier of the treatment
      * @param details the details of the treatment
      */
-    void addTreatment(String selectedPatientIdentifier, String treatmentIdentifier, String details);
+    void addTreatment(Doctor doctor, String selectedPatientIdentifier, String treatmentIdentifier, String details);
 
     /**
      * Adds a prescription to a patient's medical record.
+     * @param doctor the doctor adding the prescription
      * @param selectedPatientIdentifier the Identifier of the patient to add the prescription to
      * @param prescriptionIdentifier the Identifier of the prescription
      * @param medicineHandler the medicine manager responsible for handling medicine inventory
      */
-    void addPrescription(String selectedPatientIdentifier, String prescriptionIdentifier, IMedicineHandler medicineHandler);
+    void addPrescription(Doctor doctor, String selectedPatientIdentifier, String prescriptionIdentifier, IMedicineHandler medicineHandler);
 
     /**
      * Retrieves a list of all doctors in the system.
-     * @return a list of all doctors
+     * @return an immutable list of all doctors
      */
     List<Doctor> getAllDoctors();
+
+    /**
+     * Retrieves the number of free slots across all registered doctors, kept running by their calendars.
+     * @return the number of free slots
+     */
+    long getFreeSlotTotal();
+
+    /**
+     * Assigns a patient to a doctor without any message and adds the doctor to the patient's care team.
+     * @param doctor the doctor the patient is assigned to
+     * @param patientIdentifier the Identifier of the patient
+     * @return true if the patient was not already assigned to the doctor
+     */
+    boolean addToCareTeam(Doctor doctor, String patientIdentifier);
+
+    /**
+     * Retrieves the doctors a patient is assigned to.
+     * @param patientIdentifier the Identifier of the patient
+     * @return the registered doctors caring for the patient, empty if there are none
+     */
+    List<Doctor> getCareTeam(String patientIdentifier);
+
+    /**
+     * Checks if a doctor is in a patient's care team.
+     * @param doctorIdentifier the Identifier of the doctor
+     * @param patientIdentifier the Identifier of the patient
+     * @return true if the patient is assigned to the doctor
+     */
+    boolean isInCareTeam(String doctorIdentifier, String patientIdentifier);
+
+    /**
+     * Adds a doctor to the doctor registry, called when a doctor joins the staff.
+     * @param doctor the doctor to register
+     */
+    void registerDoctor(Doctor doctor);
+
+    /**
+     * Removes a doctor from the doctor registry, called when a doctor leaves the staff.
+     * @param doctorIdentifier the Identifier of the doctor to remove
+     */
+    void unregisterDoctor(String doctorIdentifier);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package interfaces;
+
+/**
+ * An interface class for saving the hospital state back to the data files
+ * Staff, patients and medicines are written in the formats the importers read, so the next start continues from them
+ */
+public interface IExportHandler {
+
+    /**
+     * Captures the staff, patients and medicines as they are now and writes them to the data files in the background
+     * @return true if the export was started, false if one is already running
+     */
+    boolean exportAll();
+
+    /**
+     * Waits for an export that is still being written, then stops the writer
+     */
+    void shutdown();
+}
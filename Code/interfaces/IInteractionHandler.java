@@ -0,0 +1,56 @@
+package interfaces;
+
+import java.util.List;
+import java.util.Scanner;
+
+import resources.InteractionWarning;
+import resources.Medicine;
+
+/**
+ * An interface class for checking new prescriptions against drug interactions and allergies
+ * Rules are loaded from the interaction file, each new prescription is checked against itself, the patient's
+ * prescriptions and the allergies recorded in the patient's diagnoses
+ */
+public interface IInteractionHandler {
+
+    /**
+     * Adds a rule that two medicines interact, a rule already held for the pair is kept if it is more severe
+     * @param firstMedicine one medicine
+     * @param secondMedicine the other medicine
+     * @param severity how serious the interaction is
+     * @param description what the interaction does
+     */
+    void addInteraction(String firstMedicine, String secondMedicine, InteractionWarning.Severity severity, String description);
+
+    /**
+     * Adds a rule that patients allergic to an allergen should not take a medicine
+     * @param allergen the allergen as written in diagnoses, e.g. Penicillin
+     * @param medicine the medicine
+     * @param severity how serious the reaction is
+     * @param description why the medicine is affected
+     */
+    void addAllergy(String allergen, String medicine, InteractionWarning.Severity severity, String description);
+
+    /**
+     * Checks medicines about to be prescribed to a patient
+     * @param patientIdentifier the patient
+     * @param medicines the medicines of the new prescription
+     * @return the findings, most severe first, empty if none
+     */
+    List<InteractionWarning> check(String patientIdentifier, List<Medicine> medicines);
+
+    /**
+     * Shows the findings for medicines about to be prescribed and asks the doctor to confirm any major one
+     * @param patientIdentifier the patient
+     * @param medicines the medicines of the new prescription
+     * @param scanner the scanner that is declared for user input
+     * @return true if the prescription may be created
+     */
+    boolean confirmPrescription(String patientIdentifier, List<Medicine> medicines, Scanner scanner);
+
+    /**
+     * get method for the number of interaction and allergy rules loaded
+     * @return the number of rules
+     */
+    int getRuleCount();
+}
@@ -8,6 +8,12 @@ import resources.*;
  */
 public interface IMedicineHandler {
 
+    /**
+     * Sets the dashboard that stock changes and replenishment approvals are reported to
+     * @param dashboardHandler the dashboard handler to set
+     */
+    void setDashboardHandler(IDashboardHandler dashboardHandler);
+
     /**
      * Retrieves the current inventory of medicines.
      * @return a list of all medicines in the inventory
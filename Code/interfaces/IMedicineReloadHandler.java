@@ -0,0 +1,30 @@
+package interfaces;
+
+/**
+ * An interface class for reloading the medicine file while the application runs
+ * Rows that changed in the file since it was last read are applied to the inventory, the rest is left alone
+ */
+public interface IMedicineReloadHandler {
+
+    /**
+     * Sets the dashboard that reloaded stock is reported to
+     * @param dashboardHandler the dashboard to set
+     */
+    void setDashboardHandler(IDashboardHandler dashboardHandler);
+
+    /**
+     * Reads the medicine file and applies the rows that changed since it was last read
+     * @return true if the file was read, false if it could not be
+     */
+    boolean reload();
+
+    /**
+     * Reads the medicine file as the new starting point without applying it, used after the application wrote it itself
+     */
+    void rebase();
+
+    /**
+     * Stops watching the medicine file
+     */
+    void shutdown();
+}
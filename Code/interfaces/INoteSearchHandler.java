@@ -0,0 +1,36 @@
+package interfaces;
+
+import java.util.Collection;
+import java.util.List;
+
+import resources.NoteMatch;
+
+/**
+ * An interface class for full text search of clinical notes
+ * Diagnoses, treatments and appointment outcomes are indexed as they are added to a medical record
+ */
+public interface INoteSearchHandler {
+
+    /**
+     * Adds a note to the index
+     * @param patientIdentifier the patient the note belongs to
+     * @param source where the note came from, e.g. Diagnosis D1
+     * @param text the text of the note
+     */
+    void indexNote(String patientIdentifier, String source, String text);
+
+    /**
+     * Finds the notes best matching a query among the notes of some patients
+     * @param query the words to search for
+     * @param patientIdentifiers the patients whose notes may be returned
+     * @param limit the most notes to return
+     * @return the matching notes, best first
+     */
+    List<NoteMatch> search(String query, Collection<String> patientIdentifiers, int limit);
+
+    /**
+     * get method for the number of notes indexed
+     * @return the number of notes
+     */
+    int getNoteCount();
+}
@@ -0,0 +1,34 @@
+package interfaces;
+
+import java.util.concurrent.Flow;
+
+import resources.AppointmentEvent;
+
+/**
+ * An interface class for publishing appointment lifecycle events to subscribers such as user inboxes
+ */
+public interface INotificationHandler {
+
+    /**
+     * Publishes an event to every subscriber, waiting briefly if a subscriber's buffer is full
+     * @param event the event to publish
+     */
+    void publish(AppointmentEvent event);
+
+    /**
+     * Adds a subscriber that receives every event published from now on
+     * @param subscriber the subscriber to add
+     */
+    void subscribe(Flow.Subscriber<? super AppointmentEvent> subscriber);
+
+    /**
+     * Displays and clears the notifications waiting for a user
+     * @param userIdentifier the Identifier of the user
+     */
+    void displayInbox(String userIdentifier);
+
+    /**
+     * Stops accepting events and waits until the subscribers have received every published event
+     */
+    void shutdown();
+}
@@ -1,6 +1,7 @@
 package interfaces;
 
 import java.util.Collection;
+import java.util.List;
 
 import userclasses.*;
 /**
@@ -21,12 +22,32 @@ public interface IPatientHandler {
      */
     Patient findPatientById(String patientIdentifier);
 
+    /**
+     * Finds the patients best matching part of a name, date of birth or email
+     * @param query words of a name, a date of birth (yyyy, yyyy-mm or yyyy-mm-dd) or an email, in any order
+     * @param limit the most patients to return
+     * @return the matching patients, best first
+     */
+    List<Patient> searchPatients(String query, int limit);
+
     /**
      * set method for manager responsible for managing patient appointments
      * @param appointmentHandler the appointment manager to be set
      */
     void setAppointmentHandler(IAppointmentHandler appointmentHandler);
 
+    /**
+     * set method for the audit trail that medical record reads are reported to
+     * @param auditHandler the audit handler to be set
+     */
+    void setAuditHandler(IAuditHandler auditHandler);
+
+    /**
+     * set method for the access control policy consulted before acting for a user
+     * @param accessControlHandler the access control handler to be set
+     */
+    void setAccessControlHandler(IAccessControlHandler accessControlHandler);
+
     /**
      * Retrieves a collection of all patient for internal use
      * @return a collection of all patient
@@ -1,10 +1,18 @@
 package interfaces;
 
+import resources.Prescription;
+
 /**
  * An interface class which manage the pharmacist related operations
  */
 public interface IPharmacistHandler {
 
+    /**
+     * Sets the dashboard that replenishment requests are reported to
+     * @param dashboardHandler the dashboard handler to set
+     */
+    void setDashboardHandler(IDashboardHandler dashboardHandler);
+
     /**
      * set nthe manager responsible for handling medicine-related operations.
      * @param medicineHandler the medicine manager to be set
@@ -33,6 +41,25 @@ public interface IPharmacistHandler {
      */
     void updatePrescriptionStatus(String prescriptionIdentifier);
 
+    /**
+     * Claims the oldest pending prescription from the work queue and displays it
+     * @param pharmacistIdentifier the unique identifier of the pharmacist claiming
+     * @return the claimed prescription, or null if none is waiting
+     */
+    Prescription claimNextPrescription(String pharmacistIdentifier);
+
+    /**
+     * Dispenses the prescription claimed by a pharmacist
+     * @param pharmacistIdentifier the unique identifier of the pharmacist dispensing
+     */
+    void dispenseClaimedPrescription(String pharmacistIdentifier);
+
+    /**
+     * Returns the prescription claimed by a pharmacist to the work queue
+     * @param pharmacistIdentifier the unique identifier of the pharmacist releasing
+     */
+    void releaseClaimedPrescription(String pharmacistIdentifier);
+
     /**
      * Initiates a replenishment request for a medicine in the inventory.
      * @param medicineName the name of the medicine to be replenished
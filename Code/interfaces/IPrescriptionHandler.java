@@ -15,6 +15,18 @@ public interface IPrescriptionHandler {
     */
     void setMedicineHandler(IMedicineHandler medicineHandler);
 
+    /**
+    * set the handler that issued prescriptions are reported to for management reports
+    * @param analyticsHandler the analytics handler to be set
+    */
+    void setAnalyticsHandler(IAnalyticsHandler analyticsHandler);
+
+    /**
+    * set the dashboard that prescription status changes are reported to
+    * @param dashboardHandler the dashboard handler to be set
+    */
+    void setDashboardHandler(IDashboardHandler dashboardHandler);
+
     /**
     * Adds a new prescription
     * @param prescription the prescription to be added
@@ -39,4 +51,32 @@ public interface IPrescriptionHandler {
     * @return a boolean indicating whether if it was succesful or not
     */
     boolean updatePrescriptionStatus(String prescriptionIdentifier);
+
+    /**
+    * Retrieves a prescription by its identifier
+    * @param prescriptionIdentifier the unique identifier of the prescription
+    * @return the prescription, or null if not found
+    */
+    Prescription findPrescriptionById(String prescriptionIdentifier);
+
+    /**
+    * Claims the oldest pending prescription for a pharmacist
+    * @param pharmacistIdentifier the unique identifier of the pharmacist claiming
+    * @return the claimed prescription, or null if none is waiting
+    */
+    Prescription claimNextPrescription(String pharmacistIdentifier);
+
+    /**
+    * Dispenses the prescription a pharmacist has claimed
+    * @param pharmacistIdentifier the unique identifier of the pharmacist dispensing
+    * @return a boolean indicating whether if it was succesful or not
+    */
+    boolean dispenseClaimedPrescription(String pharmacistIdentifier);
+
+    /**
+    * Returns the prescription a pharmacist has claimed to the head of the queue
+    * @param pharmacistIdentifier the unique identifier of the pharmacist releasing
+    * @return the released prescription, or null if none was claimed
+    */
+    Prescription releasePrescription(String pharmacistIdentifier);
 }
\ No newline at end of file
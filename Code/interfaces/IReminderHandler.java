@@ -0,0 +1,42 @@
+package interfaces;
+
+import java.util.concurrent.Flow;
+
+import resources.Appointment;
+import resources.AppointmentEvent;
+
+/**
+ * An interface class for reminders of upcoming appointments
+ * Subscribed to appointment events, so reminders follow accepts, reschedules and cancellations
+ */
+public interface IReminderHandler extends Flow.Subscriber<AppointmentEvent> {
+
+    /**
+     * Sets where due reminders are delivered
+     * @param sink the reminder sink to set
+     */
+    void setSink(IReminderSink sink);
+
+    /**
+     * Schedules the reminders of an appointment, replacing any it already had
+     * @param appointment the confirmed appointment
+     */
+    void scheduleReminders(Appointment appointment);
+
+    /**
+     * Cancels the pending reminders of an appointment
+     * @param appointmentIdentifier the Identifier of the appointment
+     */
+    void cancelReminders(String appointmentIdentifier);
+
+    /**
+     * get method for the number of reminders not yet delivered
+     * @return the number of pending reminders
+     */
+    int getPendingReminderCount();
+
+    /**
+     * Stops delivering reminders
+     */
+    void shutdown();
+}
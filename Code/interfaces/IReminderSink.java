@@ -0,0 +1,15 @@
+package interfaces;
+
+import resources.Reminder;
+
+/**
+ * An interface class for where due reminders are delivered, e.g. a file read by an SMS or email gateway
+ */
+public interface IReminderSink {
+
+    /**
+     * Delivers a reminder that is due
+     * @param reminder the reminder
+     */
+    void deliver(Reminder reminder);
+}
@@ -0,0 +1,93 @@
+package interfaces;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import resources.AppointmentEvent;
+import resources.TimeSlot;
+import resources.WaitlistEntry;
+import resources.WaitlistOffer;
+
+/**
+ * An interface class for doctor waitlists that backfill freed slots
+ * Subscribed to appointment events, so a slot freed by a cancellation or decline is offered to the next waiting patient
+ */
+public interface IWaitlistHandler extends Flow.Subscriber<AppointmentEvent> {
+
+    /**
+     * Sets the manager used to book accepted offers (to prevent cyclic in Main)
+     * @param appointmentHandler the appointment manager to set
+     */
+    void setAppointmentHandler(IAppointmentHandler appointmentHandler);
+
+    /**
+     * Adds a patient to a doctor's waitlist, replacing the date range if they are already on it
+     * @param patientIdentifier the patient
+     * @param doctorIdentifier the doctor
+     * @param from first date the patient can attend
+     * @param to last date the patient can attend
+     * @return true if the patient was added
+     */
+    boolean joinWaitlist(String patientIdentifier, String doctorIdentifier, LocalDate from, LocalDate to);
+
+    /**
+     * Removes a patient from a doctor's waitlist
+     * @param patientIdentifier the patient
+     * @param doctorIdentifier the doctor
+     * @return true if the patient was on the waitlist
+     */
+    boolean leaveWaitlist(String patientIdentifier, String doctorIdentifier);
+
+    /**
+     * Retrieves the waitlists a patient is on
+     * @param patientIdentifier the patient
+     * @return the entries of the patient
+     */
+    List<WaitlistEntry> getEntries(String patientIdentifier);
+
+    /**
+     * Offers a free slot to the first waiting patient whose range it falls in, holding it for them
+     * @param doctorIdentifier the doctor of the slot
+     * @param slot the free slot
+     * @return true if the slot was offered
+     */
+    boolean offerSlot(String doctorIdentifier, TimeSlot slot);
+
+    /**
+     * Retrieves the slot currently held for a patient
+     * @param patientIdentifier the patient
+     * @return the offer, or null if none is held
+     */
+    WaitlistOffer getOffer(String patientIdentifier);
+
+    /**
+     * Books the slot held for a patient
+     * @param patientIdentifier the patient
+     * @return true if the appointment was booked
+     */
+    boolean acceptOffer(String patientIdentifier);
+
+    /**
+     * Turns down the slot held for a patient, it is offered to the next waiting patient
+     * @param patientIdentifier the patient
+     */
+    void declineOffer(String patientIdentifier);
+
+    /**
+     * Displays the slot held for a patient, if any
+     * @param patientIdentifier the patient
+     */
+    void displayOffer(String patientIdentifier);
+
+    /**
+     * Passes on every offer whose hold has run out
+     * @return the number of offers that ran out
+     */
+    int sweep();
+
+    /**
+     * Stops the background sweeper
+     */
+    void shutdown();
+}
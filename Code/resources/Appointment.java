@@ -2,6 +2,7 @@ package resources;
 
 import java.util.*;
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import userclasses.Patient;
 /**
@@ -9,13 +10,14 @@ import userclasses.Patient;
  */
 public class Appointment {
 
-    private static List<Appointment> allAppointments = new ArrayList<>();
+    private static final AtomicInteger NEXT_ORDINAL = new AtomicInteger();
 
+	private final int ordinal;              /**< dense number of the appointment in this run, assigned once */
 	private String appointmentIdentifier;   /**< appointmentID */
 	private String patientIdentifier;       /**< patientID */
 	private String doctorIdentifier;        /**< doctorID */
-	private TimeSlot timeSlot;              /**< timeslot for appointments */
-	private String status;                  /**< status of the appointment (confirmed/cancelled/pending) */
+	private volatile TimeSlot timeSlot;     /**< timeslot for appointments, volatile as background tasks read it */
+	private volatile AppointmentStatus status;     /**< status of the appointment, changed only along allowed transitions */
     private AppointmentOutcome outcome;     /**< outcome of the appointment */
 
     /**
@@ -26,15 +28,14 @@ public class Appointment {
      * @param timeSlot TimeSlot for appointment
      * @param status status indicator for the status of appointment
      */
-    public Appointment(String appointmentIdentifier, String patientIdentifier, String doctorIdentifier, TimeSlot timeSlot, String status) {
+    public Appointment(String appointmentIdentifier, String patientIdentifier, String doctorIdentifier, TimeSlot timeSlot, AppointmentStatus status) {
+        this.ordinal = NEXT_ORDINAL.getAndIncrement();
         this.appointmentIdentifier = appointmentIdentifier;
         this.patientIdentifier = patientIdentifier;
         this.doctorIdentifier = doctorIdentifier;
         this.timeSlot = timeSlot;
         this.status = status;
         this.outcome = null;
-
-        allAppointments.add(this);
     }
 	
     /**
@@ -49,7 +50,7 @@ public class Appointment {
      * get method for status
      * @return the status
      */
-    public String getStatus() {
+    public AppointmentStatus getStatus() {
         return status;
     }
 
@@ -61,6 +62,14 @@ public class Appointment {
         return patientIdentifier; 
     }
 
+    /**
+     * get method for ordinal, lets handlers keep per appointment data in arrays instead of maps keyed by Identifier
+     * @return the number of the appointment, from 0 in the order appointments were created in this run
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
     /**
      * get method for doctorIdentifier
      * @return the patientIdentifier
@@ -86,26 +95,41 @@ public class Appointment {
     }
 
     /**
-     * set method for status
+     * set method for status, only allowed transitions are applied
      * @param status gets a status as parameter and set it
-     */
-    public void setStatus(String status) {
-        this.status = status;
+     * @return true if the status was changed
+     */
+    public boolean setStatus(AppointmentStatus status) {
+        // checked and set under the appointment's lock, the expiry sweeper may change it while a menu does
+        AppointmentStatus current;
+        synchronized (this) {
+            current = this.status;
+            if (current.canTransitionTo(status)) {
+                this.status = status;
+                current = null;
+            }
+        }
+        if (current != null) {
+            System.out.println("Error: Appointment " + appointmentIdentifier + " cannot change from " + current + " to " + status + ".");
+            return false;
+        }
+        return true;
     }
 
     /**
      * sets a record outcome for the patient
+     * @param actorIdentifier the Identifier of the doctor recording the outcome
      * @param services      services done for the patient
      * @param notes         notes from Doctor
      * @param prescription  prescriptions
      * @param patient       patient the outcome is for
      */
-    public void recordOutcome(String services, String notes, Prescription prescription, Patient patient) {
+    public void recordOutcome(String actorIdentifier, String services, String notes, Prescription prescription, Patient patient) {
         if (this.outcome == null) {
             this.outcome = new AppointmentOutcome(this, services, notes, prescription, timeSlot.getDate());
         
             MedicalRecord record = MedicalRecord.getRecordByPatientIdentifier(patientIdentifier);
-            record.addAppointmentOutcome(outcome);
+            record.addAppointmentOutcome(actorIdentifier, outcome);
             }   
         else {
                 System.out.println("Error: Existing outcome found.");
@@ -123,24 +147,18 @@ public class Appointment {
 
     /**
      * set status as confirmed
+     * @return true if the appointment was pending and is now confirmed
      */
-    public void confirm() {
-        this.status = "Confirmed";
+    public boolean confirm() {
+        return setStatus(AppointmentStatus.CONFIRMED);
     }
 
     /**
      * set status as cancelled
+     * @return true if the appointment was pending or confirmed and is now cancelled
      */
-    public void cancel() {
-        this.status = "Cancelled";
-    }
-
-    /**
-     * retrieves a list of appointment in ther system
-     * @return a list of appointments
-     */
-    public static List<Appointment> getAllAppointments() {
-        return allAppointments;  
+    public boolean cancel() {
+        return setStatus(AppointmentStatus.CANCELLED);
     }
 
     /**
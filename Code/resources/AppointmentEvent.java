@@ -0,0 +1,163 @@
+package resources;
+
+/**
+ * AppointmentEvent class, an immutable record of one change in an appointment's lifecycle
+ * Published to every notification subscriber, so it copies the fields it needs instead of holding the appointment
+ */
+public class AppointmentEvent {
+
+    /**
+     * Type enum, the lifecycle changes that are published
+     */
+    public enum Type {
+        BOOKED("booked"),
+        ACCEPTED("accepted"),
+        DECLINED("declined"),
+        CANCELLED("cancelled"),
+        RESCHEDULED("rescheduled"),
+        COMPLETED("completed");
+
+        private final String verb;     /**< past tense used in messages */
+
+        /**
+         * Constructor for Type
+         * @param verb past tense used in messages
+         */
+        Type(String verb) {
+            this.verb = verb;
+        }
+    }
+
+    private final Type type;
+    private final long timestamp;               /**< epoch millis of when the change happened */
+    private final int appointmentOrdinal;       /**< ordinal of the appointment, see Appointment.getOrdinal */
+    private final String appointmentIdentifier;
+    private final String patientIdentifier;
+    private final String doctorIdentifier;
+    private final String actorIdentifier;       /**< user who made the change */
+    private final AppointmentStatus status;     /**< status after the change */
+    private final TimeSlot timeSlot;            /**< time slot after the change */
+    private final TimeSlot previousTimeSlot;    /**< time slot before a reschedule, otherwise null */
+
+    /**
+     * Constructor for AppointmentEvent
+     * @param type the kind of change
+     * @param appointment the appointment that changed
+     * @param actorIdentifier the user who made the change
+     * @param previousTimeSlot the time slot before a reschedule, or null
+     */
+    public AppointmentEvent(Type type, Appointment appointment, String actorIdentifier, TimeSlot previousTimeSlot) {
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+        this.appointmentOrdinal = appointment.getOrdinal();
+        this.appointmentIdentifier = appointment.getAppointmentIdentifier();
+        this.patientIdentifier = appointment.getPatientIdentifier();
+        this.doctorIdentifier = appointment.getDoctorIdentifier();
+        this.actorIdentifier = actorIdentifier;
+        this.status = appointment.getStatus();
+        this.timeSlot = appointment.getTimeSlot();
+        this.previousTimeSlot = previousTimeSlot;
+    }
+
+    /**
+     * get method for type
+     * @return the kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * get method for timestamp
+     * @return the epoch millis of the change
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * get method for appointmentIdentifier
+     * @return the appointmentIdentifier
+     */
+    public String getAppointmentIdentifier() {
+        return appointmentIdentifier;
+    }
+
+    /**
+     * get method for appointmentOrdinal
+     * @return the ordinal of the appointment
+     */
+    public int getAppointmentOrdinal() {
+        return appointmentOrdinal;
+    }
+
+    /**
+     * get method for patientIdentifier
+     * @return the patientIdentifier
+     */
+    public String getPatientIdentifier() {
+        return patientIdentifier;
+    }
+
+    /**
+     * get method for doctorIdentifier
+     * @return the doctorIdentifier
+     */
+    public String getDoctorIdentifier() {
+        return doctorIdentifier;
+    }
+
+    /**
+     * get method for actorIdentifier
+     * @return the user who made the change
+     */
+    public String getActorIdentifier() {
+        return actorIdentifier;
+    }
+
+    /**
+     * get method for status
+     * @return the status after the change
+     */
+    public AppointmentStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * get method for timeSlot
+     * @return the time slot after the change
+     */
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    /**
+     * message shown in the inbox of the participants
+     * @return a sentence describing the change
+     */
+    public String getMessage() {
+        String message = "Appointment " + appointmentIdentifier + " was " + type.verb + " by " + actorIdentifier;
+        if (type == Type.RESCHEDULED && previousTimeSlot != null) {
+            return message + " from " + previousTimeSlot + " to " + timeSlot + ".";
+        }
+        return message + " (" + timeSlot + ").";
+    }
+
+    /**
+     * one line representation for external systems
+     * @return timestamp,type,appointment,patient,doctor,actor,epoch minute of the time slot
+     */
+    public String toRecord() {
+        return timestamp + "," + type + "," + appointmentIdentifier + "," + patientIdentifier + "," + doctorIdentifier
+                + "," + actorIdentifier + "," + (timeSlot == null ? "" : timeSlot.getEpochMinute());
+    }
+
+    /**
+     * method for a representation of the event
+     * @return the message of the event
+     */
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
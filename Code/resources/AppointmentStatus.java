@@ -0,0 +1,95 @@
+package resources;
+
+/**
+ * AppointmentStatus enum, the states of an appointment and the changes allowed between them
+ * Pending can become Confirmed, Declined or Cancelled, Confirmed can become Completed or Cancelled,
+ * and the other states are final. Each status has a bit so a set of statuses can be checked with one mask.
+ */
+public enum AppointmentStatus {
+    PENDING("Pending"),
+    CONFIRMED("Confirmed"),
+    DECLINED("Declined"),
+    COMPLETED("Completed"),
+    CANCELLED("Cancelled");
+
+    /**< statuses in which the appointment holds one of the doctor's slots */
+    public static final int HOLDS_SLOT = maskOf(PENDING, CONFIRMED, COMPLETED);
+
+    private final String label;     /**< name shown to users */
+
+    /**
+     * Constructor for AppointmentStatus
+     * @param label name shown to users
+     */
+    AppointmentStatus(String label) {
+        this.label = label;
+    }
+
+    /**
+     * get method for the bit of this status
+     * @return a mask with only this status set
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * check if this status is in a set of statuses
+     * @param mask the set of statuses, built with maskOf
+     * @return true if this status is in the set
+     */
+    public boolean in(int mask) {
+        return (mask & mask()) != 0;
+    }
+
+    /**
+     * check if an appointment in this status may change to another status
+     * @param next the status to change to
+     * @return true if the change is allowed
+     */
+    public boolean canTransitionTo(AppointmentStatus next) {
+        switch (this) {
+            case PENDING:
+                return next == CONFIRMED || next == DECLINED || next == CANCELLED;
+            case CONFIRMED:
+                return next == COMPLETED || next == CANCELLED;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * check if an appointment in this status can no longer change
+     * @return true if no change is allowed from this status
+     */
+    public boolean isFinal() {
+        for (AppointmentStatus next : values()) {
+            if (canTransitionTo(next)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * builds a mask from statuses
+     * @param statuses the statuses in the set
+     * @return the mask with every given status set
+     */
+    public static int maskOf(AppointmentStatus... statuses) {
+        int mask = 0;
+        for (AppointmentStatus status : statuses) {
+            mask |= status.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * method to return the status as shown to users
+     * @return the label of the status
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
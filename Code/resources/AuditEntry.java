@@ -0,0 +1,144 @@
+package resources;
+
+/**
+ * AuditEntry class, a single read or write of a patient's medical record
+ * The sequence number and hashes are filled in by the audit writer when the entry is chained
+ */
+public class AuditEntry {
+
+    private long sequence;              /**< position of the entry in the chain */
+    private long timestamp;             /**< epoch millis of when the access happened */
+    private String actorIdentifier;     /**< user who read or changed the record */
+    private String patientIdentifier;   /**< patient whose record was accessed */
+    private String action;              /**< READ or WRITE */
+    private String entryType;           /**< part of the record accessed (e.g. Diagnosis) */
+    private String previousHash;        /**< hash of the entry before this one */
+    private String hash;                /**< hash of this entry, chained over previousHash */
+
+    /**
+     * Constructor for an audit entry that has not been chained yet
+     * @param timestamp epoch millis of the access
+     * @param actorIdentifier the user who accessed the record
+     * @param patientIdentifier the patient whose record was accessed
+     * @param action READ or WRITE
+     * @param entryType the part of the record accessed
+     */
+    public AuditEntry(long timestamp, String actorIdentifier, String patientIdentifier, String action, String entryType) {
+        this.timestamp = timestamp;
+        this.actorIdentifier = actorIdentifier;
+        this.patientIdentifier = patientIdentifier;
+        this.action = action;
+        this.entryType = entryType;
+    }
+
+    /**
+     * get method for sequence
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * get method for timestamp
+     * @return the epoch millis of the access
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * get method for actorIdentifier
+     * @return the actorIdentifier
+     */
+    public String getActorIdentifier() {
+        return actorIdentifier;
+    }
+
+    /**
+     * get method for patientIdentifier
+     * @return the patientIdentifier
+     */
+    public String getPatientIdentifier() {
+        return patientIdentifier;
+    }
+
+    /**
+     * get method for action
+     * @return READ or WRITE
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * get method for entryType
+     * @return the entryType
+     */
+    public String getEntryType() {
+        return entryType;
+    }
+
+    /**
+     * get method for previousHash
+     * @return the hash of the previous entry
+     */
+    public String getPreviousHash() {
+        return previousHash;
+    }
+
+    /**
+     * get method for hash
+     * @return the hash of this entry
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * links this entry after the previous entry in the chain
+     * @param sequence the position in the chain
+     * @param previousHash hash of the previous entry
+     */
+    public void chain(long sequence, String previousHash) {
+        this.sequence = sequence;
+        this.previousHash = previousHash;
+    }
+
+    /**
+     * set method for hash
+     * @param hash hash of this entry
+     */
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    /**
+     * the fields covered by the hash, in file order
+     * @return comma separated content of the entry without the hashes
+     */
+    public String getContent() {
+        return sequence + "," + timestamp + "," + clean(actorIdentifier) + "," + clean(patientIdentifier) + ","
+                + clean(action) + "," + clean(entryType);
+    }
+
+    /**
+     * keeps free text from breaking the comma separated format
+     * @param value the value to clean
+     * @return the value with commas and line breaks replaced
+     */
+    private static String clean(String value) {
+        if (value == null) {
+            return "-";
+        }
+        return value.replace(',', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * line representation of the entry as written to the audit file
+     */
+    @Override
+    public String toString() {
+        return getContent() + "," + previousHash + "," + hash;
+    }
+}
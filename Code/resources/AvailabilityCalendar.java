@@ -0,0 +1,557 @@
+package resources;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * AvailabilityCalendar class
+ * A doctor's free slots, kept as one bitset per day where bit i is the i-th fixed width slot of that day.
+ * Publishing, free/busy checks and gap searches work on whole 64-bit words instead of single slots.
+ * Methods that touch the bitsets are synchronized, background tasks such as appointment expiry free slots too.
+ * Slots that take several patients (sessions) are kept apart from the bitsets, each with an atomic count of places
+ * left that booking and cancelling take and give back with compare and set, so they never wait on the lock.
+ * An optional listener is told every change of the free slot count, so totals across calendars can be kept running.
+ */
+public class AvailabilityCalendar {
+
+	private static final int MINUTES_PER_DAY = 24 * 60;
+
+	private final int slotMinutes;                  /**< width of one slot in minutes */
+	private final int slotsPerDay;                  /**< number of slots in a day */
+	private final int wordsPerDay;                  /**< longs needed to hold one day */
+	private final TreeMap<Long, long[]> days;       /**< epoch day to free slot bits, days without free slots are absent */
+	private int freeSlotCount;
+	private final ConcurrentSkipListMap<Long, Session> sessions;	/**< epoch minute to session, opened under the lock and never removed */
+	private final AtomicInteger freePlaces;							/**< places left across all sessions */
+	private volatile IntConsumer freeSlotListener;					/**< told how many free slots were added or taken, optional */
+
+	/**
+	 * Session class, a slot that takes several patients
+	 */
+	private static final class Session {
+		private final int capacity;
+		private final AtomicInteger remaining;
+
+		/**
+		 * Constructor for Session, starts with every place free
+		 * @param capacity places in the session
+		 */
+		private Session(int capacity) {
+			this.capacity = capacity;
+			this.remaining = new AtomicInteger(capacity);
+		}
+
+		/**
+		 * takes one place
+		 * @return true if a place was left
+		 */
+		private boolean take() {
+			int left;
+			do {
+				left = remaining.get();
+				if (left == 0) {
+					return false;
+				}
+			} while (!remaining.compareAndSet(left, left - 1));
+			return true;
+		}
+
+		/**
+		 * gives one place back
+		 * @return true if the session was not already empty of bookings
+		 */
+		private boolean give() {
+			int left;
+			do {
+				left = remaining.get();
+				if (left == capacity) {
+					return false;
+				}
+			} while (!remaining.compareAndSet(left, left + 1));
+			return true;
+		}
+	}
+
+	/**
+	 * Constructor for AvailabilityCalendar
+	 * @param slotMinutes width of one slot in minutes, must divide a day evenly
+	 */
+	public AvailabilityCalendar(int slotMinutes) {
+		if (slotMinutes <= 0 || MINUTES_PER_DAY % slotMinutes != 0) {
+			throw new IllegalArgumentException("Slot width must divide a day evenly: " + slotMinutes);
+		}
+		this.slotMinutes = slotMinutes;
+		this.slotsPerDay = MINUTES_PER_DAY / slotMinutes;
+		this.wordsPerDay = (slotsPerDay + 63) / 64;
+		this.days = new TreeMap<>();
+		this.freeSlotCount = 0;
+		this.sessions = new ConcurrentSkipListMap<>();
+		this.freePlaces = new AtomicInteger();
+	}
+
+	/**
+	 * get method for the slot width
+	 * @return width of one slot in minutes
+	 */
+	public int getSlotMinutes() {
+		return slotMinutes;
+	}
+
+	/**
+	 * get method for the number of free slots
+	 * @return the number of free slots across all days, counting every place left in a session
+	 */
+	public synchronized int getFreeSlotCount() {
+		return freeSlotCount + freePlaces.get();
+	}
+
+	/**
+	 * set method for the listener told every change of the free slot count, replacing any listener set before
+	 * Set when the calendar's doctor is registered, before anyone can book with them
+	 * @param listener receives the number of free slots added, negative when taken, or null to stop reporting
+	 * @return the number of free slots when the listener was set
+	 */
+	public synchronized int setFreeSlotListener(IntConsumer listener) {
+		this.freeSlotListener = listener;
+		return freeSlotCount + freePlaces.get();
+	}
+
+	/**
+	 * tells the listener, if any, that the free slot count changed
+	 * @param delta the number of free slots added, negative when taken
+	 */
+	private void reportFree(int delta) {
+		IntConsumer listener = freeSlotListener;
+		if (listener != null && delta != 0) {
+			listener.accept(delta);
+		}
+	}
+
+	/**
+	 * opens a session that takes several patients, replacing the slot if it was free
+	 * @param slot the slot to open, must be aligned
+	 * @param capacity places in the session
+	 * @return true if the session was opened, false if the slot already is a session
+	 */
+	public synchronized boolean openSession(TimeSlot slot, int capacity) {
+		if (!isAligned(slot)) {
+			throw new IllegalArgumentException("Time slot " + slot + " does not start on a " + slotMinutes + "-minute boundary.");
+		}
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		if (sessions.containsKey(slot.getEpochMinute())) {
+			return false;
+		}
+		removeBit(slot);
+		sessions.put(slot.getEpochMinute(), new Session(capacity));
+		freePlaces.addAndGet(capacity);
+		reportFree(capacity);
+		return true;
+	}
+
+	/**
+	 * get method for the places left in a slot
+	 * @param slot the slot
+	 * @return places left in a session, otherwise 1 if the slot is free and 0 if not
+	 */
+	public int getRemaining(TimeSlot slot) {
+		Session session = sessions.get(slot.getEpochMinute());
+		if (session != null) {
+			return session.remaining.get();
+		}
+		return isFree(slot) ? 1 : 0;
+	}
+
+	/**
+	 * check if a time slot starts on a slot boundary of this calendar
+	 * @param slot the time slot to check
+	 * @return true if the slot can be stored in this calendar
+	 */
+	public boolean isAligned(TimeSlot slot) {
+		return Math.floorMod(slot.getEpochMinute(), slotMinutes) == 0;
+	}
+
+	/**
+	 * marks a slot as free, or gives a place back to a session
+	 * @param slot the slot to add, must be aligned
+	 * @return true if the slot was not free before, or the session had a place taken
+	 */
+	public boolean add(TimeSlot slot) {
+		if (!isAligned(slot)) {
+			throw new IllegalArgumentException("Time slot " + slot + " does not start on a " + slotMinutes + "-minute boundary.");
+		}
+		Session session = sessions.get(slot.getEpochMinute());
+		if (session == null) {
+			synchronized (this) {
+				// sessions are opened under the lock, so this lookup cannot miss one
+				session = sessions.get(slot.getEpochMinute());
+				if (session == null) {
+					return addBit(slot);
+				}
+			}
+		}
+		if (!session.give()) {
+			return false;
+		}
+		freePlaces.incrementAndGet();
+		reportFree(1);
+		return true;
+	}
+
+	/**
+	 * marks a slot as taken, or takes a place from a session
+	 * @param slot the slot to remove
+	 * @return true if the slot was free before, or the session had a place left
+	 */
+	public boolean remove(TimeSlot slot) {
+		if (!isAligned(slot)) {
+			return false;
+		}
+		Session session = sessions.get(slot.getEpochMinute());
+		if (session == null) {
+			synchronized (this) {
+				session = sessions.get(slot.getEpochMinute());
+				if (session == null) {
+					return removeBit(slot);
+				}
+			}
+		}
+		if (!session.take()) {
+			return false;
+		}
+		freePlaces.decrementAndGet();
+		reportFree(-1);
+		return true;
+	}
+
+	/**
+	 * check if a slot is free
+	 * @param slot the slot to check
+	 * @return true if the slot is free, or is a session with a place left
+	 */
+	public boolean isFree(TimeSlot slot) {
+		if (!isAligned(slot)) {
+			return false;
+		}
+		Session session = sessions.get(slot.getEpochMinute());
+		if (session != null) {
+			return session.remaining.get() > 0;
+		}
+		synchronized (this) {
+			long[] words = days.get(epochDay(slot));
+			int bit = slotOfDay(slot);
+			return words != null && (words[bit >>> 6] & (1L << bit)) != 0;
+		}
+	}
+
+	/**
+	 * sets the bit of a slot, the caller holds the lock
+	 * @param slot the slot to add, must be aligned
+	 * @return true if the bit was not set before
+	 */
+	private boolean addBit(TimeSlot slot) {
+		long[] words = days.computeIfAbsent(epochDay(slot), day -> new long[wordsPerDay]);
+		int bit = slotOfDay(slot);
+		long mask = 1L << bit;
+		if ((words[bit >>> 6] & mask) != 0) {
+			return false;
+		}
+		words[bit >>> 6] |= mask;
+		freeSlotCount++;
+		reportFree(1);
+		return true;
+	}
+
+	/**
+	 * clears the bit of a slot, the caller holds the lock
+	 * @param slot the slot to remove, must be aligned
+	 * @return true if the bit was set before
+	 */
+	private boolean removeBit(TimeSlot slot) {
+		long day = epochDay(slot);
+		long[] words = days.get(day);
+		int bit = slotOfDay(slot);
+		long mask = 1L << bit;
+		if (words == null || (words[bit >>> 6] & mask) == 0) {
+			return false;
+		}
+		words[bit >>> 6] &= ~mask;
+		freeSlotCount--;
+		reportFree(-1);
+		if (isEmpty(words)) {
+			days.remove(day);
+		}
+		return true;
+	}
+
+	/**
+	 * check if a run of consecutive slots on the same day is entirely free, sessions are never part of a run
+	 * @param start the first slot of the run
+	 * @param count the number of slots in the run
+	 * @return true if every slot in the run is free
+	 */
+	public synchronized boolean isRangeFree(TimeSlot start, int count) {
+		int first = slotOfDay(start);
+		if (!isAligned(start) || count <= 0 || first + count > slotsPerDay) {
+			return false;
+		}
+		long[] words = days.get(epochDay(start));
+		if (words == null) {
+			return false;
+		}
+		long[] range = new long[wordsPerDay];
+		setRange(range, first, first + count);
+		for (int w = 0; w < wordsPerDay; w++) {
+			if ((words[w] & range[w]) != range[w]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * publishes a recurring template, e.g. weekdays 09:00 to 17:00 for the next 90 days, sessions are left as they are
+	 * @param from first date to publish, inclusive
+	 * @param to last date to publish, inclusive
+	 * @param daysOfWeek the days of the week the template applies to
+	 * @param start start of the working hours, rounded up to a slot boundary
+	 * @param end end of the working hours, exclusive
+	 * @return the number of slots that were newly made free
+	 */
+	public int publish(LocalDate from, LocalDate to, Set<DayOfWeek> daysOfWeek, LocalTime start, LocalTime end) {
+		return publish(from, to, daysOfWeek, start, end, Collections.emptyList());
+	}
+
+	/**
+	 * publishes a recurring template except for slots that are already booked, sessions are left as they are
+	 * @param from first date to publish, inclusive
+	 * @param to last date to publish, inclusive
+	 * @param daysOfWeek the days of the week the template applies to
+	 * @param start start of the working hours, rounded up to a slot boundary
+	 * @param end end of the working hours, exclusive
+	 * @param booked slots held by appointments, never made free
+	 * @return the number of slots that were newly made free
+	 */
+	public synchronized int publish(LocalDate from, LocalDate to, Set<DayOfWeek> daysOfWeek, LocalTime start, LocalTime end, Collection<TimeSlot> booked) {
+		int firstSlot = (start.getHour() * 60 + start.getMinute() + slotMinutes - 1) / slotMinutes;
+		int endSlot = (end.getHour() * 60 + end.getMinute()) / slotMinutes;
+		if (end.equals(LocalTime.MIDNIGHT)) {
+			endSlot = slotsPerDay;
+		}
+		if (firstSlot >= endSlot) {
+			return 0;
+		}
+		long[] template = new long[wordsPerDay];
+		setRange(template, firstSlot, endSlot);
+		TreeSet<Long> excluded = new TreeSet<>(sessions.keySet());
+		for (TimeSlot slot : booked) {
+			excluded.add(slot.getEpochMinute());
+		}
+
+		int added = 0;
+		for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+			if (!daysOfWeek.contains(date.getDayOfWeek())) {
+				continue;
+			}
+			long[] dayTemplate = template;
+			long dayStart = date.toEpochDay() * MINUTES_PER_DAY;
+			NavigableSet<Long> dayExcluded = excluded.subSet(dayStart, true, dayStart + MINUTES_PER_DAY, false);
+			if (!dayExcluded.isEmpty()) {
+				dayTemplate = template.clone();
+				for (long minute : dayExcluded) {
+					int bit = (int) (minute - dayStart) / slotMinutes;
+					dayTemplate[bit >>> 6] &= ~(1L << bit);
+				}
+				if (isEmpty(dayTemplate)) {
+					continue;
+				}
+			}
+			long[] words = days.computeIfAbsent(date.toEpochDay(), day -> new long[wordsPerDay]);
+			for (int w = 0; w < wordsPerDay; w++) {
+				added += Long.bitCount(dayTemplate[w] & ~words[w]);
+				words[w] |= dayTemplate[w];
+			}
+		}
+		freeSlotCount += added;
+		reportFree(added);
+		return added;
+	}
+
+	/**
+	 * finds the earliest run of consecutive free slots on a single day, sessions are never part of a run
+	 * @param from first date to search, inclusive
+	 * @param to last date to search, inclusive
+	 * @param count the number of consecutive slots needed
+	 * @return the first slot of the earliest run, or null if there is none
+	 */
+	public synchronized TimeSlot findGap(LocalDate from, LocalDate to, int count) {
+		if (count <= 0 || count > slotsPerDay) {
+			return null;
+		}
+		for (Map.Entry<Long, long[]> day : days.subMap(from.toEpochDay(), true, to.toEpochDay(), true).entrySet()) {
+			// bit i of runs ends up set when slots i .. i+count-1 are all free, built by doubling the run length
+			long[] runs = day.getValue().clone();
+			int length = 1;
+			while (length < count) {
+				int shift = Math.min(length, count - length);
+				and(runs, shiftDown(runs, shift));
+				length += shift;
+			}
+			for (int w = 0; w < wordsPerDay; w++) {
+				if (runs[w] != 0) {
+					int slot = w * 64 + Long.numberOfTrailingZeros(runs[w]);
+					return TimeSlot.ofEpochMinute(day.getKey() * MINUTES_PER_DAY + (long) slot * slotMinutes);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * lists every free slot in chronological order, including sessions with a place left
+	 * @return the free slots
+	 */
+	public List<TimeSlot> getSlots() {
+		List<SlotCapacity> open = getOpenSlots();
+		List<TimeSlot> slots = new ArrayList<>(open.size());
+		for (SlotCapacity slot : open) {
+			slots.add(slot.getTimeSlot());
+		}
+		return slots;
+	}
+
+	/**
+	 * lists every free slot in chronological order with the places it has left
+	 * @return the free slots, single slots with 1 place of 1 and sessions with their places left
+	 */
+	public List<SlotCapacity> getOpenSlots() {
+		List<TimeSlot> single = getBitSlots();
+		List<SlotCapacity> open = new ArrayList<>(single.size() + sessions.size());
+		int i = 0;
+		for (Map.Entry<Long, Session> entry : sessions.entrySet()) {
+			int left = entry.getValue().remaining.get();
+			if (left == 0) {
+				continue;
+			}
+			while (i < single.size() && single.get(i).getEpochMinute() < entry.getKey()) {
+				open.add(new SlotCapacity(single.get(i++), 1, 1));
+			}
+			open.add(new SlotCapacity(TimeSlot.ofEpochMinute(entry.getKey()), left, entry.getValue().capacity));
+		}
+		while (i < single.size()) {
+			open.add(new SlotCapacity(single.get(i++), 1, 1));
+		}
+		return open;
+	}
+
+	/**
+	 * lists the free single slots in chronological order
+	 * @return the slots whose bit is set
+	 */
+	private synchronized List<TimeSlot> getBitSlots() {
+		List<TimeSlot> slots = new ArrayList<>(freeSlotCount);
+		for (Map.Entry<Long, long[]> day : days.entrySet()) {
+			long dayStart = day.getKey() * MINUTES_PER_DAY;
+			long[] words = day.getValue();
+			for (int w = 0; w < wordsPerDay; w++) {
+				long word = words[w];
+				while (word != 0) {
+					int slot = w * 64 + Long.numberOfTrailingZeros(word);
+					slots.add(TimeSlot.ofEpochMinute(dayStart + (long) slot * slotMinutes));
+					word &= word - 1;
+				}
+			}
+		}
+		return slots;
+	}
+
+	/**
+	 * the day a slot falls on
+	 * @param slot the slot
+	 * @return the epoch day of the slot
+	 */
+	private long epochDay(TimeSlot slot) {
+		return Math.floorDiv(slot.getEpochMinute(), MINUTES_PER_DAY);
+	}
+
+	/**
+	 * the position of a slot within its day
+	 * @param slot the slot
+	 * @return the bit index of the slot in its day bitset
+	 */
+	private int slotOfDay(TimeSlot slot) {
+		return Math.floorMod(slot.getEpochMinute(), MINUTES_PER_DAY) / slotMinutes;
+	}
+
+	/**
+	 * sets bits [from, to) of a day bitset
+	 * @param words the day bitset
+	 * @param from first bit to set
+	 * @param to bit after the last one to set
+	 */
+	private static void setRange(long[] words, int from, int to) {
+		for (int w = from >>> 6; w <= (to - 1) >>> 6; w++) {
+			int low = Math.max(from, w * 64) - w * 64;
+			int high = Math.min(to, w * 64 + 64) - w * 64;
+			long mask = (high == 64 ? -1L : (1L << high) - 1) & (-1L << low);
+			words[w] |= mask;
+		}
+	}
+
+	/**
+	 * shifts a day bitset towards bit 0, so bit i of the result is bit i+shift of the input
+	 * @param words the day bitset
+	 * @param shift number of bits to shift by
+	 * @return the shifted copy
+	 */
+	private static long[] shiftDown(long[] words, int shift) {
+		long[] result = new long[words.length];
+		int wordShift = shift >>> 6;
+		int bitShift = shift & 63;
+		for (int w = 0; w + wordShift < words.length; w++) {
+			long low = words[w + wordShift] >>> bitShift;
+			long high = (bitShift != 0 && w + wordShift + 1 < words.length) ? words[w + wordShift + 1] << (64 - bitShift) : 0;
+			result[w] = low | high;
+		}
+		return result;
+	}
+
+	/**
+	 * intersects one day bitset into another
+	 * @param target the bitset to update
+	 * @param other the bitset to intersect with
+	 */
+	private static void and(long[] target, long[] other) {
+		for (int w = 0; w < target.length; w++) {
+			target[w] &= other[w];
+		}
+	}
+
+	/**
+	 * check if a day has no free slots left
+	 * @param words the day bitset
+	 * @return true if no bit is set
+	 */
+	private static boolean isEmpty(long[] words) {
+		for (long word : words) {
+			if (word != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
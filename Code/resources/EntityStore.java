@@ -0,0 +1,111 @@
+package resources;
+
+import userclasses.Patient;
+
+/**
+ * EntityStore class, the single place entities are registered
+ * Handlers share one store instead of each keeping its own list, so every lookup sees the same objects
+ * and an entity is only held once. Entities are not registered by their constructors, only when a handler stores them.
+ */
+public class EntityStore {
+
+    private static final EntityStore SHARED = new EntityStore();
+
+    private final Repository<String, Medicine> medicines;                           /**< lower case name to medicine */
+    private final Repository<String, Prescription> prescriptions;                   /**< prescription Identifier to prescription, indexed by status */
+    private final Repository<String, Appointment> appointments;                     /**< appointment Identifier to appointment, indexed by doctor and patient */
+    private final Repository<String, ReplenishmentRequest> replenishmentRequests;   /**< request Identifier to request, indexed by medicine */
+    private final Repository<String, Patient> patients;                             /**< patient Identifier to patient */
+    private final Repository<String, MedicalRecord> medicalRecords;                 /**< patient Identifier to medical record */
+    private final Object stateLock = new Object();                                  /**< held while exported state changes or is captured */
+
+    /**
+     * Constructor for EntityStore, starts with empty repositories
+     */
+    public EntityStore() {
+        this.medicines = new Repository<>(medicine -> medicineKey(medicine.getName()));
+        this.prescriptions = new Repository<String, Prescription>(Prescription::getPrescriptionIdentifier)
+                .withIndex("status", Prescription::getStatus);
+        this.appointments = new Repository<String, Appointment>(Appointment::getAppointmentIdentifier)
+                .withIndex("doctor", Appointment::getDoctorIdentifier)
+                .withIndex("patient", Appointment::getPatientIdentifier);
+        this.replenishmentRequests = new Repository<String, ReplenishmentRequest>(ReplenishmentRequest::getRequestIdentifier)
+                .withIndex("medicine", request -> medicineKey(request.getMedicine().getName()));
+        this.patients = new Repository<>(Patient::getPatientIdentifier);
+        this.medicalRecords = new Repository<>(MedicalRecord::getPatientIdentifier);
+    }
+
+    /**
+     * get method to retrieve the store shared by the application
+     * @return the shared store
+     */
+    public static EntityStore getShared() {
+        return SHARED;
+    }
+
+    /**
+     * normalises a medicine name so medicine lookups are case insensitive
+     * @param name the medicine name
+     * @return the key the medicine is stored under
+     */
+    public static String medicineKey(String name) {
+        return name == null ? null : name.trim().toLowerCase();
+    }
+
+    /**
+     * get method for medicines, keyed by medicineKey
+     * @return the medicine repository
+     */
+    public Repository<String, Medicine> getMedicines() {
+        return medicines;
+    }
+
+    /**
+     * get method for prescriptions
+     * @return the prescription repository
+     */
+    public Repository<String, Prescription> getPrescriptions() {
+        return prescriptions;
+    }
+
+    /**
+     * get method for appointments, with "doctor" and "patient" indexes
+     * @return the appointment repository
+     */
+    public Repository<String, Appointment> getAppointments() {
+        return appointments;
+    }
+
+    /**
+     * get method for replenishment requests, with a "medicine" index keyed by medicineKey
+     * @return the replenishment request repository
+     */
+    public Repository<String, ReplenishmentRequest> getReplenishmentRequests() {
+        return replenishmentRequests;
+    }
+
+    /**
+     * get method for patients
+     * @return the patient repository
+     */
+    public Repository<String, Patient> getPatients() {
+        return patients;
+    }
+
+    /**
+     * get method for medical records, keyed by patient Identifier
+     * @return the medical record repository
+     */
+    public Repository<String, MedicalRecord> getMedicalRecords() {
+        return medicalRecords;
+    }
+
+    /**
+     * get method for the lock that changes to exported state (staff, patients, medicines and their fields) are made under,
+     * an export captures everything while holding it so the files show one moment even while sessions keep working
+     * @return the state lock
+     */
+    public Object getStateLock() {
+        return stateLock;
+    }
+}
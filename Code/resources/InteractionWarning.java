@@ -0,0 +1,98 @@
+package resources;
+
+/**
+ * InteractionWarning class, a finding of the prescription checker
+ * Either two medicines that interact, or a medicine the patient has a recorded allergy to
+ */
+public class InteractionWarning {
+
+    /**
+     * Severity enum, how serious a finding is, in increasing order
+     */
+    public enum Severity {
+        MINOR,
+        MODERATE,
+        MAJOR;      /**< the doctor has to confirm before prescribing */
+
+        /**
+         * parses a severity as written in the interaction file
+         * @param text the severity, case insensitive
+         * @return the severity
+         * @throws IllegalArgumentException if the text is not a severity
+         */
+        public static Severity parse(String text) {
+            return valueOf(text.trim().toUpperCase());
+        }
+    }
+
+    private final Severity severity;
+    private final String medicine;      /**< the medicine being prescribed */
+    private final String conflict;      /**< the medicine it interacts with, or the allergen */
+    private final String source;        /**< where the conflict comes from, e.g. Prescription PR1 */
+    private final String description;
+
+    /**
+     * Constructor for InteractionWarning
+     * @param severity how serious the finding is
+     * @param medicine the medicine being prescribed
+     * @param conflict the medicine it interacts with, or the allergen
+     * @param source where the conflict comes from
+     * @param description what the interaction does
+     */
+    public InteractionWarning(Severity severity, String medicine, String conflict, String source, String description) {
+        this.severity = severity;
+        this.medicine = medicine;
+        this.conflict = conflict;
+        this.source = source;
+        this.description = description;
+    }
+
+    /**
+     * get method for severity
+     * @return how serious the finding is
+     */
+    public Severity getSeverity() {
+        return severity;
+    }
+
+    /**
+     * get method for medicine
+     * @return the medicine being prescribed
+     */
+    public String getMedicine() {
+        return medicine;
+    }
+
+    /**
+     * get method for conflict
+     * @return the medicine it interacts with, or the allergen
+     */
+    public String getConflict() {
+        return conflict;
+    }
+
+    /**
+     * get method for source
+     * @return where the conflict comes from
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * get method for description
+     * @return what the interaction does
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * method for a one line representation of the warning
+     * @return the severity, the medicines and the description
+     */
+    @Override
+    public String toString() {
+        return "[" + severity + "] " + medicine + " + " + conflict + " (" + source + "): " + description;
+    }
+}
@@ -5,6 +5,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+import interfaces.IAuditHandler;
+import interfaces.INoteSearchHandler;
 import userclasses.Patient;
 
 /**
@@ -19,7 +21,8 @@ public class MedicalRecord {
     private List<AppointmentOutcome> pastAppointments;
     private List<LocalDateTime> entryTimestamps;
 
-	private static List<MedicalRecord> allRecords = new ArrayList<>();
+	private static IAuditHandler auditHandler;     /**< audit trail for record writes, optional */
+	private static INoteSearchHandler noteSearchHandler;     /**< full text index of notes, optional */
 
 	/**
      * Constructor for MedicalRecord
@@ -42,6 +45,14 @@ public class MedicalRecord {
         return patient.getName();
     }
 
+    /**
+     * get method to get the patient's Identifier
+     * @return patient's Identifier
+     */
+    public String getPatientIdentifier(){
+        return patient.getPatientIdentifier();
+    }
+
     /**
      * get method to get patient's blood type
      * @return patient's bloodtype
@@ -83,20 +94,62 @@ public class MedicalRecord {
     }
 
     /**
-     * adds a medical record to the list of allrecords
+     * set the audit handler that every write to a medical record is reported to
+     * @param handler the audit handler
+     */
+    public static void setAuditHandler(IAuditHandler handler) {
+        auditHandler = handler;
+    }
+
+    /**
+     * reports a write to this record to the audit trail, if one is set
+     * @param actorIdentifier the user that added the entry
+     * @param entryType the type of entry that was added
+     */
+    private void auditWrite(String actorIdentifier, String entryType) {
+        if (auditHandler != null) {
+            auditHandler.recordWrite(actorIdentifier, patient.getPatientIdentifier(), entryType);
+        }
+    }
+
+    /**
+     * set the full text index that every note added to a medical record is indexed in
+     * @param handler the note search handler
+     */
+    public static void setNoteSearchHandler(INoteSearchHandler handler) {
+        noteSearchHandler = handler;
+    }
+
+    /**
+     * indexes a note added to this record for full text search, if an index is set
+     * @param source where the note came from, e.g. Diagnosis D1
+     * @param text the text of the note
+     */
+    private void indexNote(String source, String text) {
+        if (noteSearchHandler != null) {
+            noteSearchHandler.indexNote(patient.getPatientIdentifier(), source, text);
+        }
+    }
+
+    /**
+     * adds a medical record to the shared entity store, a patient that already has a record keeps it
      * @param record the medical record to be added
      */
  	public static void addRecord(MedicalRecord record) {
-        allRecords.add(record);
+        EntityStore.getShared().getMedicalRecords().put(record);
     }
 
     /**
      * adds an appointment outcome to the medical records
+     * @param actorIdentifier the Identifier of the user recording the outcome
      * @param outcome the outcome to add
      */
-    public void addAppointmentOutcome(AppointmentOutcome outcome) {
+    public void addAppointmentOutcome(String actorIdentifier, AppointmentOutcome outcome) {
         if (!pastAppointments.contains(outcome)) {  // Check to prevent duplicates
             pastAppointments.add(outcome);
+            auditWrite(actorIdentifier, "AppointmentOutcome");
+            indexNote("Outcome " + outcome.getAppointment().getAppointmentIdentifier(),
+                    (outcome.getServices() == null ? "" : outcome.getServices()) + "\n" + (outcome.getNotes() == null ? "" : outcome.getNotes()));
             System.out.println("Notice: Outcome added for Patient: " + patient.getName());
         } else {
             System.out.println("Error: Outcome already exists for Patient: " + patient.getName());
@@ -105,31 +158,39 @@ public class MedicalRecord {
 
     /**
      * adds a diagnosis to medical record
+     * @param actorIdentifier the Identifier of the user adding the diagnosis
      * @param diagnosis the diagnosis to be added
      */
-    public void addDiagnosis(Diagnosis diagnosis) {
+    public void addDiagnosis(String actorIdentifier, Diagnosis diagnosis) {
         diagnoses.add(diagnosis);
         entryTimestamps.add(LocalDateTime.now());
+        auditWrite(actorIdentifier, "Diagnosis");
+        indexNote("Diagnosis " + diagnosis.getDiagnosisIdentifier(), diagnosis.getDescription());
         System.out.println("Notice: Diagnosis added for Patient: " + patient.getName());
     }
 
     /**
      * adds a prescription to medical record
+     * @param actorIdentifier the Identifier of the user adding the prescription
      * @param prescription the prescription to be added
      */
-    public void addPrescription(Prescription prescription) {
+    public void addPrescription(String actorIdentifier, Prescription prescription) {
         prescriptions.add(prescription);
         entryTimestamps.add(LocalDateTime.now());
+        auditWrite(actorIdentifier, "Prescription");
         System.out.println("Notice: Prescription added for Patient: " + patient.getName());
     }
 
     /**
      * adds a treatment to medical record
+     * @param actorIdentifier the Identifier of the user adding the treatment
      * @param treatment the treatment to be added
      */
-    public void addTreatment(Treatment treatment) {
+    public void addTreatment(String actorIdentifier, Treatment treatment) {
         treatments.add(treatment);
         entryTimestamps.add(LocalDateTime.now());
+        auditWrite(actorIdentifier, "Treatment");
+        indexNote("Treatment " + treatment.getTreatmentIdentifier(), treatment.getDescription());
         System.out.println("Notice: Treatment added for Patient Identifier: " + patient.getName());
     }
 
@@ -141,18 +202,36 @@ public class MedicalRecord {
         return new ArrayList<>(pastAppointments); 
     }
 
+    /**
+     * retrieves all diagnoses
+     * @return a list of diagnoses
+     */
+    public List<Diagnosis> getDiagnoses() {
+        return new ArrayList<>(diagnoses);
+    }
+
+    /**
+     * retrieves every prescription of the patient, both those added to the record and those of appointment outcomes
+     * @return a list of prescriptions, each once
+     */
+    public List<Prescription> getPrescriptions() {
+        List<Prescription> all = new ArrayList<>(prescriptions);
+        for (AppointmentOutcome outcome : pastAppointments) {
+            Prescription prescription = outcome.getPrescriptrion();
+            if (prescription != null && !all.contains(prescription)) {
+                all.add(prescription);
+            }
+        }
+        return all;
+    }
+
     /**
      * finds medical record by patient Identifier
      * @param patientIdentifier the Identifier to be retrieved
      * @return the medical record that was retrieved
      */
 	public static MedicalRecord getRecordByPatientIdentifier(String patientIdentifier) {
-        for (MedicalRecord record : allRecords) {
-            if (record.patient.getPatientIdentifier().equals(patientIdentifier)) {
-                return record;
-            }
-        }
-        return null;  // null if no record found
+        return EntityStore.getShared().getMedicalRecords().get(patientIdentifier);  // null if no record found
     }
 
     /**
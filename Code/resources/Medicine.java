@@ -8,9 +8,8 @@ import java.util.*;
 public class Medicine {
 
 	private String name;
-	private int stock;
-	private int alertLevel;
-	private static List<Medicine> medicineList = new ArrayList<>();
+	private volatile int stock;         /**< changed under the entity store's state lock, volatile for the readers that take none */
+	private volatile int alertLevel;    /**< changed under the entity store's state lock, volatile for the readers that take none */
 
 	/**
 	 * Default constructor of a medicine, set stock and alert to 0
@@ -18,7 +17,6 @@ public class Medicine {
 	 */
 	public Medicine(String name) {
 		this(name, 0, 0); 
-		medicineList.add(this);
 	}
 
 	/**
@@ -31,7 +29,6 @@ public class Medicine {
 		this.name = name;
 		this.stock = stock;
 		this.alertLevel = alertLevel;
-		medicineList.add(this);
 	}
 
 	/**
@@ -103,28 +100,6 @@ public class Medicine {
 		return stock < alertLevel;
 	}
 
-	/**
-	 * get a list of all medicine in the system
-	 * @return a list of medicine
-	 */
-	public static List<Medicine> getAllMedicines() {
-        return medicineList;
-    }
-
-	/**
-	 * Retrieve a medicine by its name
-	 * @param name the name of the medicine
-	 * @return the medicine
-	 */
-    public static Medicine findMedicineByName(String name) {
-        for (Medicine medicine : medicineList) {
-            if (medicine.getName().equalsIgnoreCase(name)) {
-                return medicine;
-            }
-        }
-        return null;  //if not found
-    }
-	
 	/**
 	 * A method to reduce the amount of stock based on its given quantity
 	 * used when we change to dispense and reducing of quantity
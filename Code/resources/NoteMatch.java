@@ -0,0 +1,72 @@
+package resources;
+
+/**
+ * NoteMatch class, a clinical note found by a full text search and how well it matched
+ */
+public class NoteMatch {
+    private static final int SNIPPET_LENGTH = 80;   /**< characters of the note shown in a result */
+
+    private final String patientIdentifier;
+    private final String source;    /**< where the note came from, e.g. Diagnosis D1 */
+    private final String text;
+    private final double score;     /**< BM25 score, higher is better */
+
+    /**
+     * Constructor for NoteMatch
+     * @param patientIdentifier the patient the note belongs to
+     * @param source where the note came from
+     * @param text the text of the note
+     * @param score the BM25 score of the note
+     */
+    public NoteMatch(String patientIdentifier, String source, String text, double score) {
+        this.patientIdentifier = patientIdentifier;
+        this.source = source;
+        this.text = text;
+        this.score = score;
+    }
+
+    /**
+     * get method for patientIdentifier
+     * @return the patient the note belongs to
+     */
+    public String getPatientIdentifier() {
+        return patientIdentifier;
+    }
+
+    /**
+     * get method for source
+     * @return where the note came from
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * get method for text
+     * @return the text of the note
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * get method for score
+     * @return the BM25 score of the note
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * method for a one line representation of the match
+     * @return the source and the start of the note on one line
+     */
+    @Override
+    public String toString() {
+        String line = text.replaceAll("\\s+", " ").trim();
+        if (line.length() > SNIPPET_LENGTH) {
+            line = line.substring(0, SNIPPET_LENGTH - 3) + "...";
+        }
+        return source + ": " + line;
+    }
+}
@@ -0,0 +1,65 @@
+package resources;
+
+/**
+ * Permission enum, the actions a role can be granted
+ * A scoped permission also needs the user to own the resource, e.g. a doctor may only view the records of
+ * patients under their care, and only the participants of an appointment may change it
+ */
+public enum Permission {
+    VIEW_MEDICAL_RECORD(Scope.PATIENT),
+    UPDATE_MEDICAL_RECORD(Scope.PATIENT),
+    UPDATE_CONTACT_INFO(Scope.PATIENT),
+    VIEW_ALL_PATIENTS(Scope.NONE),
+    SEARCH_NOTES(Scope.NONE),
+    VIEW_SCHEDULE(Scope.NONE),
+    SET_AVAILABILITY(Scope.NONE),
+    BOOK_APPOINTMENT(Scope.NONE),
+    CHANGE_APPOINTMENT(Scope.APPOINTMENT),      /**< reschedule or cancel */
+    RESPOND_TO_APPOINTMENT(Scope.APPOINTMENT),  /**< accept, decline or record the outcome */
+    VIEW_ALL_APPOINTMENTS(Scope.NONE),
+    VIEW_ALL_OUTCOMES(Scope.NONE),
+    DISPENSE_PRESCRIPTION(Scope.NONE),
+    VIEW_INVENTORY(Scope.NONE),
+    REQUEST_REPLENISHMENT(Scope.NONE),
+    MANAGE_INVENTORY(Scope.NONE),
+    MANAGE_STAFF(Scope.NONE),
+    VIEW_REPORTS(Scope.NONE),
+    EXPORT_DATA(Scope.NONE);
+
+    /**
+     * Scope enum, the resource a permission is limited to
+     */
+    public enum Scope {
+        NONE,           /**< granted by role alone */
+        PATIENT,        /**< the patient themselves, or a doctor the patient is assigned to */
+        APPOINTMENT     /**< the patient or doctor of the appointment */
+    }
+
+    private final Scope scope;
+    private final long bit;     /**< the permission's bit in a role's permission set */
+
+    /**
+     * Constructor for Permission
+     * @param scope the resource the permission is limited to
+     */
+    Permission(Scope scope) {
+        this.scope = scope;
+        this.bit = 1L << ordinal();
+    }
+
+    /**
+     * get method for scope
+     * @return the resource the permission is limited to
+     */
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * get method for bit
+     * @return the permission's bit in a permission set
+     */
+    public long getBit() {
+        return bit;
+    }
+}
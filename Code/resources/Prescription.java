@@ -1,6 +1,5 @@
 package resources;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,9 +10,7 @@ public class Prescription {
     private String prescriptionIdentifier;
     private List<Medicine> medicines;
     private List<Integer> quantities;
-    private String status;
-
-    private static List<Prescription> allPrescriptions = new ArrayList<>();
+    private PrescriptionStatus status;
 
     /**
      * Constructor for Prescription
@@ -22,12 +19,11 @@ public class Prescription {
      * @param quantities the quantity of medicine for the prescription
      * @param status the status of the prescription
      */
-    public Prescription(String prescriptionIdentifier, List<Medicine> medicines, List<Integer> quantities, String status) {
+    public Prescription(String prescriptionIdentifier, List<Medicine> medicines, List<Integer> quantities, PrescriptionStatus status) {
         this.prescriptionIdentifier = prescriptionIdentifier;
         this.medicines = medicines;
         this.quantities = quantities;
         this.status = status;
-        allPrescriptions.add(this);
     }
 
     /**
@@ -51,28 +47,23 @@ public class Prescription {
      * get method for status
      * @return the status
      */
-    public String getStatus() {
+    public PrescriptionStatus getStatus() {
         return status;
     }
 
     /**
-     * get method to get a list of all prescrptions
-     * @return a list of all prescriptions
-     */
-    public static List<Prescription> getAllPrescriptions() {
-        return allPrescriptions;
-    }
-
-    /**
-     * update method to change the method from "Pending" to "Dispensed"
+     * update method to change the status from Pending to Dispensed
+     * @return true if the status was changed
      */
-    public void updateStatus() {
-        if ("Pending".equals(this.status)) {
-            this.status = "Dispensed";
-            System.out.println("Notice: Prescription: " + prescriptionIdentifier + " status updated to Dispensed.");
-        } else {
+    public boolean updateStatus() {
+        if (!status.canTransitionTo(PrescriptionStatus.DISPENSED)) {
             System.out.println("Error: Prescription already dispensed.");
+            return false;
         }
+        this.status = PrescriptionStatus.DISPENSED;
+        EntityStore.getShared().getPrescriptions().reindex(this);
+        System.out.println("Notice: Prescription: " + prescriptionIdentifier + " status updated to Dispensed.");
+        return true;
     }
     
     /**
@@ -0,0 +1,37 @@
+package resources;
+
+/**
+ * PrescriptionStatus enum, a prescription is Pending until it is Dispensed, which is final
+ */
+public enum PrescriptionStatus {
+    PENDING("Pending"),
+    DISPENSED("Dispensed");
+
+    private final String label;     /**< name shown to users */
+
+    /**
+     * Constructor for PrescriptionStatus
+     * @param label name shown to users
+     */
+    PrescriptionStatus(String label) {
+        this.label = label;
+    }
+
+    /**
+     * check if a prescription in this status may change to another status
+     * @param next the status to change to
+     * @return true if the change is allowed
+     */
+    public boolean canTransitionTo(PrescriptionStatus next) {
+        return this == PENDING && next == DISPENSED;
+    }
+
+    /**
+     * method to return the status as shown to users
+     * @return the label of the status
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,85 @@
+package resources;
+
+/**
+ * Reminder class, a reminder to a patient that an appointment is coming up
+ */
+public class Reminder {
+
+    private final String appointmentIdentifier;
+    private final String patientIdentifier;
+    private final String doctorIdentifier;
+    private final TimeSlot timeSlot;        /**< time slot of the appointment */
+    private final int leadMinutes;          /**< how long before the appointment the reminder is sent */
+
+    /**
+     * Constructor for Reminder
+     * @param appointment the appointment to remind of
+     * @param leadMinutes how long before the appointment the reminder is sent
+     */
+    public Reminder(Appointment appointment, int leadMinutes) {
+        this.appointmentIdentifier = appointment.getAppointmentIdentifier();
+        this.patientIdentifier = appointment.getPatientIdentifier();
+        this.doctorIdentifier = appointment.getDoctorIdentifier();
+        this.timeSlot = appointment.getTimeSlot();
+        this.leadMinutes = leadMinutes;
+    }
+
+    /**
+     * get method for appointmentIdentifier
+     * @return the appointmentIdentifier
+     */
+    public String getAppointmentIdentifier() {
+        return appointmentIdentifier;
+    }
+
+    /**
+     * get method for patientIdentifier
+     * @return the patientIdentifier
+     */
+    public String getPatientIdentifier() {
+        return patientIdentifier;
+    }
+
+    /**
+     * get method for doctorIdentifier
+     * @return the doctorIdentifier
+     */
+    public String getDoctorIdentifier() {
+        return doctorIdentifier;
+    }
+
+    /**
+     * get method for timeSlot
+     * @return the time slot of the appointment
+     */
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    /**
+     * get method for leadMinutes
+     * @return how long before the appointment the reminder is sent
+     */
+    public int getLeadMinutes() {
+        return leadMinutes;
+    }
+
+    /**
+     * get method for the minute the reminder is due
+     * @return minutes since epoch, in the encoding of TimeSlot
+     */
+    public long getDueMinute() {
+        return timeSlot.getEpochMinute() - leadMinutes;
+    }
+
+    /**
+     * method for a representation of the reminder
+     * @return a sentence addressed to the patient
+     */
+    @Override
+    public String toString() {
+        String lead = leadMinutes % 60 == 0 ? (leadMinutes / 60) + " hour(s)" : leadMinutes + " minute(s)";
+        return "Reminder for " + patientIdentifier + ": appointment " + appointmentIdentifier + " with " + doctorIdentifier
+                + " at " + timeSlot + " is in " + lead + ".";
+    }
+}
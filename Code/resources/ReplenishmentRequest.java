@@ -1,15 +1,9 @@
 package resources;
 
-import java.util.ArrayList;
-import java.util.List;
-
-
 /**
  * ReplenishmentRequest Class
  */
 public class ReplenishmentRequest {
-	
-	private static List<ReplenishmentRequest> requests = new ArrayList<>(); 
 
 	private String requestIdentifier;
 	private Medicine medicine;
@@ -33,8 +27,6 @@ public class ReplenishmentRequest {
         this.pharmacistIdentifier = pharmacistIdentifier;
         this.pharmacistName = pharmacistName;
         this.isApproved = false;
-
-        requests.add(this);  
     }
 
 	/**
@@ -47,14 +39,6 @@ public class ReplenishmentRequest {
 	}
 
 
-	/**
-     * Get method to retrieve the list of all replenishment requests.
-     * @return list of all replenishment requests
-     */
-	public static List<ReplenishmentRequest> getRequests() {
-        return requests;
-    }
-
 	/**
      * Get method to get the request Identifier.
      * @return request Identifier
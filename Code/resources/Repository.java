@@ -0,0 +1,225 @@
+package resources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Repository class, a typed collection of one kind of entity
+ * Entities are kept in insertion order under a primary key, and any number of named secondary indexes
+ * map another key (e.g. a doctor Identifier) to the entities that have it.
+ * Secondary index keys are read when an entity is put, and an entity whose key changes while stored
+ * (e.g. its status) must be passed to reindex so it moves to its new bucket.
+ * Locking rule: every method holds the repository's own lock, and values and findBy hand out copies, so a background
+ * thread (the expiry sweeper, the medicine file watcher) may change a repository while a menu reads or iterates it.
+ * Changes spanning several entities or entity fields are also made under EntityStore's state lock.
+ * @param <K> type of the primary key
+ * @param <V> type of the entity
+ */
+public class Repository<K, V> {
+
+    private final Function<V, K> primaryKey;                        /**< reads the primary key of an entity */
+    private final Map<K, V> entities;                               /**< primary key to entity, insertion ordered */
+    private final Map<String, Function<V, ?>> indexKeys;            /**< index name to the key it reads */
+    private final Map<String, Map<Object, Set<V>>> indexes;         /**< index name to key to entities */
+    private final Map<K, Map<String, Object>> indexedUnder;         /**< primary key to the key it is indexed under per index */
+
+    /**
+     * Constructor for Repository, starts empty
+     * @param primaryKey reads the primary key of an entity
+     */
+    public Repository(Function<V, K> primaryKey) {
+        this.primaryKey = primaryKey;
+        this.entities = new LinkedHashMap<>();
+        this.indexKeys = new LinkedHashMap<>();
+        this.indexes = new HashMap<>();
+        this.indexedUnder = new HashMap<>();
+    }
+
+    /**
+     * adds a secondary index, entities already stored are indexed straight away
+     * @param name name of the index, used by findBy
+     * @param key reads the index key of an entity, entities with a null key are not indexed
+     * @return this repository
+     */
+    public synchronized Repository<K, V> withIndex(String name, Function<V, ?> key) {
+        indexKeys.put(name, key);
+        indexes.put(name, new HashMap<>());
+        for (Map.Entry<K, V> entity : entities.entrySet()) {
+            index(entity.getKey(), name, key, entity.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * stores an entity, an entity already stored under the same primary key is kept and never silently replaced
+     * @param entity the entity to store
+     * @return true if the entity was stored, false if its primary key was already taken
+     */
+    public synchronized boolean put(V entity) {
+        K key = primaryKey.apply(entity);
+        if (entities.putIfAbsent(key, entity) != null) {
+            return false;
+        }
+        indexAll(key, entity);
+        return true;
+    }
+
+    /**
+     * moves a stored entity to the buckets of its current index keys, after a change to a field an index reads
+     * @param entity the entity that changed, ignored if it is not the entity stored under its primary key
+     */
+    public synchronized void reindex(V entity) {
+        K key = primaryKey.apply(entity);
+        if (entities.get(key) != entity) {
+            return;
+        }
+        unindex(key, entity);
+        indexAll(key, entity);
+    }
+
+    /**
+     * removes an entity by its primary key
+     * @param key the primary key
+     * @return the entity removed, or null if none was stored
+     */
+    public synchronized V remove(K key) {
+        V removed = entities.remove(key);
+        if (removed != null) {
+            unindex(key, removed);
+        }
+        return removed;
+    }
+
+    /**
+     * get method to retrieve an entity by its primary key
+     * @param key the primary key
+     * @return the entity, or null if none is stored
+     */
+    public synchronized V get(K key) {
+        return entities.get(key);
+    }
+
+    /**
+     * check if an entity is stored under a primary key
+     * @param key the primary key
+     * @return true if an entity is stored
+     */
+    public synchronized boolean contains(K key) {
+        return entities.containsKey(key);
+    }
+
+    /**
+     * retrieves the entities with a given key in a secondary index
+     * @param indexName name of the index
+     * @param key the index key to look up
+     * @return a copy of the matching entities in the order they were indexed, empty if none
+     */
+    public synchronized Collection<V> findBy(String indexName, Object key) {
+        Set<V> matches = bucketsOf(indexName).get(key);
+        return matches == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(matches));
+    }
+
+    /**
+     * counts the entities with a given key in a secondary index
+     * @param indexName name of the index
+     * @param key the index key to count
+     * @return the number of matching entities
+     */
+    public synchronized int countBy(String indexName, Object key) {
+        Set<V> matches = bucketsOf(indexName).get(key);
+        return matches == null ? 0 : matches.size();
+    }
+
+    /**
+     * get method to retrieve every entity, as a snapshot that later changes do not affect
+     * @return a read only copy of all entities in insertion order
+     */
+    public synchronized Collection<V> values() {
+        return Collections.unmodifiableList(new ArrayList<>(entities.values()));
+    }
+
+    /**
+     * get method to retrieve a copy of every entity, for callers that pick entities by position
+     * @return a new list of all entities in insertion order
+     */
+    public synchronized List<V> list() {
+        return new ArrayList<>(entities.values());
+    }
+
+    /**
+     * get method to retrieve the number of entities
+     * @return the number of stored entities
+     */
+    public synchronized int size() {
+        return entities.size();
+    }
+
+    /**
+     * get method to retrieve the buckets of a secondary index
+     * @param indexName name of the index
+     * @return index key to entities
+     */
+    private Map<Object, Set<V>> bucketsOf(String indexName) {
+        Map<Object, Set<V>> index = indexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("No index named " + indexName);
+        }
+        return index;
+    }
+
+    /**
+     * adds an entity to every secondary index
+     * @param key primary key of the entity
+     * @param entity the entity to index
+     */
+    private void indexAll(K key, V entity) {
+        for (Map.Entry<String, Function<V, ?>> index : indexKeys.entrySet()) {
+            index(key, index.getKey(), index.getValue(), entity);
+        }
+    }
+
+    /**
+     * adds an entity to one secondary index and remembers the key it was indexed under
+     * @param key primary key of the entity
+     * @param name name of the index
+     * @param indexKey reads the index key of the entity
+     * @param entity the entity to index
+     */
+    private void index(K key, String name, Function<V, ?> indexKey, V entity) {
+        Object value = indexKey.apply(entity);
+        if (value != null) {
+            indexes.get(name).computeIfAbsent(value, k -> new LinkedHashSet<>()).add(entity);
+            indexedUnder.computeIfAbsent(key, k -> new HashMap<>()).put(name, value);
+        }
+    }
+
+    /**
+     * removes an entity from every secondary index, by the keys it was indexed under, and drops buckets once empty
+     * @param key primary key of the entity
+     * @param entity the entity to remove
+     */
+    private void unindex(K key, V entity) {
+        Map<String, Object> values = indexedUnder.remove(key);
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            Map<Object, Set<V>> buckets = indexes.get(value.getKey());
+            Set<V> bucket = buckets.get(value.getValue());
+            if (bucket != null) {
+                bucket.remove(entity);
+                if (bucket.isEmpty()) {
+                    buckets.remove(value.getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package resources;
+
+import userclasses.Administrator;
+import userclasses.Doctor;
+import userclasses.Pharmacist;
+import userclasses.User;
+
+/**
+ * Role enum, the kinds of user permissions are granted to
+ */
+public enum Role {
+    PATIENT,
+    DOCTOR,
+    PHARMACIST,
+    ADMINISTRATOR;
+
+    /**
+     * finds the role of a user from its class, the same way sessions pick the menu
+     * @param user the user
+     * @return the role of the user
+     */
+    public static Role of(User user) {
+        if (user instanceof Doctor) {
+            return DOCTOR;
+        } else if (user instanceof Pharmacist) {
+            return PHARMACIST;
+        } else if (user instanceof Administrator) {
+            return ADMINISTRATOR;
+        }
+        return PATIENT;
+    }
+}
@@ -0,0 +1,59 @@
+package resources;
+
+/**
+ * SlotCapacity class, a snapshot of how many patients a free slot can still take
+ * A single consultation slot has a capacity of 1, a session such as a vaccination block takes several patients
+ */
+public class SlotCapacity {
+    private final TimeSlot timeSlot;
+    private final int remaining;    /**< places left when the snapshot was taken */
+    private final int capacity;     /**< places the slot was published with */
+
+    /**
+     * Constructor for SlotCapacity
+     * @param timeSlot the slot
+     * @param remaining places left
+     * @param capacity places the slot was published with
+     */
+    public SlotCapacity(TimeSlot timeSlot, int remaining, int capacity) {
+        this.timeSlot = timeSlot;
+        this.remaining = remaining;
+        this.capacity = capacity;
+    }
+
+    /**
+     * get method for timeSlot
+     * @return the slot
+     */
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    /**
+     * get method for remaining
+     * @return places left when the snapshot was taken
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * get method for capacity
+     * @return places the slot was published with
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * method for a representation of the slot, places are only shown for sessions
+     * @return the slot and, for a session, its places left
+     */
+    @Override
+    public String toString() {
+        if (capacity == 1) {
+            return timeSlot.toString();
+        }
+        return timeSlot + " (" + remaining + " of " + capacity + " places left)";
+    }
+}
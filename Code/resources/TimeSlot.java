@@ -4,53 +4,76 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 
 /**
- * TimeSlot Class 
+ * TimeSlot Class
+ * Immutable value, stored as the number of minutes since 1970-01-01 00:00 so it is compact and can be used as a map key
  */
-public class TimeSlot {
+public final class TimeSlot implements Comparable<TimeSlot> {
 
-	private LocalDate date;
-	private LocalTime time;
+	private static final int MINUTES_PER_DAY = 24 * 60;
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+	private final long epochMinute;	/**< minutes since epoch, the only state of a time slot */
 
 	/**
 	 * Constructor for TimeSlot class
+	 * seconds and below are dropped, time slots are precise to the minute
 	 * @param date date of time slot
 	 * @param time time of time slot
 	 */
 	public TimeSlot(LocalDate date, LocalTime time){
-		this.date = date;
-		this.time = time;
+		this(toEpochMinute(date, time));
 	}
 
 	/**
-	 * get method to retrieve date of time slot
-	 * @return date of time slot
+	 * Constructor for TimeSlot class from its compact encoding
+	 * @param epochMinute minutes since 1970-01-01 00:00
 	 */
-	public LocalDate getDate(){
-		return date;
+	private TimeSlot(long epochMinute){
+		this.epochMinute = epochMinute;
 	}
 
 	/**
-	 * set method to update date of time slot
-	 * @param date new date to set
+	 * creates a time slot from its compact encoding
+	 * @param epochMinute minutes since 1970-01-01 00:00
+	 * @return the time slot
 	 */
-	public void setDate(LocalDate date){
-		this.date = date;
+	public static TimeSlot ofEpochMinute(long epochMinute){
+		return new TimeSlot(epochMinute);
 	}
 
 	/**
-	 * get method to retrieve time of time slot
-	 * @return time of time slot
+	 * encodes a date and time as minutes since 1970-01-01 00:00
+	 * @param date the date
+	 * @param time the time
+	 * @return the encoded minute
 	 */
-	public LocalTime getTime(){
-		return time;
+	public static long toEpochMinute(LocalDate date, LocalTime time){
+		return date.toEpochDay() * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
 	}
 
 	/**
-	 * set method to update time of time slot
-	 * @param time new time to set
+	 * get method to retrieve the compact encoding of the time slot
+	 * @return minutes since 1970-01-01 00:00
 	 */
-	public void setTime(LocalTime time){
-		this.time = time;
+	public long getEpochMinute(){
+		return epochMinute;
+	}
+
+	/**
+	 * get method to retrieve date of time slot
+	 * @return date of time slot
+	 */
+	public LocalDate getDate(){
+		return LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+	}
+
+	/**
+	 * get method to retrieve time of time slot
+	 * @return time of time slot
+	 */
+	public LocalTime getTime(){
+		int minuteOfDay = Math.floorMod(epochMinute, MINUTES_PER_DAY);
+		return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
 	}
 
 	/**
@@ -59,34 +82,60 @@ public class TimeSlot {
 	 * @return true if date and time are the same, false otherwise
 	 */
 	public boolean isSameTimeSlot(TimeSlot other) {
-		return this.date.equals(other.date) && this.time.equals(other.time);
+		return other != null && this.epochMinute == other.epochMinute;
 	}
-		
+
 	/**
 	 * method to parses time slot in "yyyy-MM-dd HH:mm"
 	 * @param timeSlotString string to parse through
 	 * @return time slot object if parsing is successful, otherwise null
 	 */
 	public static TimeSlot parseTimeSlot(String timeSlotString) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
         try {
-            LocalDateTime dateTime = LocalDateTime.parse(timeSlotString, formatter);
-            LocalDate date = dateTime.toLocalDate();
-            LocalTime time = dateTime.toLocalTime();
-            return new TimeSlot(date, time);
+            LocalDateTime dateTime = LocalDateTime.parse(timeSlotString, FORMATTER);
+            return new TimeSlot(dateTime.toLocalDate(), dateTime.toLocalTime());
         } catch (Exception e) {
             System.out.println("Error: Invalid time slot format (yyyy-MM-dd HH:mm).");
             return null;
         }
     }
 
+	/**
+	 * orders time slots chronologically
+	 * @param other the time slot to compare with
+	 * @return negative if this slot is earlier, 0 if the same, positive if later
+	 */
+	@Override
+	public int compareTo(TimeSlot other) {
+		return Long.compare(epochMinute, other.epochMinute);
+	}
+
+	/**
+	 * two time slots are equal when they have the same date and time
+	 * @param obj the object to compare with
+	 * @return true if obj is a time slot at the same minute
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof TimeSlot && ((TimeSlot) obj).epochMinute == epochMinute;
+	}
+
+	/**
+	 * hash code consistent with equals
+	 * @return hash of the encoded minute
+	 */
+	@Override
+	public int hashCode() {
+		return Long.hashCode(epochMinute);
+	}
+
 	/**
 	 * method to return time slot in "date @ time"
 	 * @return string containing the date and time of the time slot
 	 */
 	@Override
 	public String toString() {
-		return date.toString() + " @ " + time.toString();
+		return getDate().toString() + " @ " + getTime().toString();
 	}
 
-}
\ No newline at end of file
+}
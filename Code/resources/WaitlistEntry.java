@@ -0,0 +1,63 @@
+package resources;
+
+import java.time.LocalDate;
+
+/**
+ * WaitlistEntry class, a patient's interest in any free slot of a doctor within a date range
+ */
+public class WaitlistEntry {
+
+    private final String patientIdentifier;
+    private final String doctorIdentifier;
+    private final LocalDate from;       /**< first date the patient can attend */
+    private final LocalDate to;         /**< last date the patient can attend */
+
+    /**
+     * Constructor for WaitlistEntry
+     * @param patientIdentifier the patient waiting
+     * @param doctorIdentifier the doctor waited for
+     * @param from first date the patient can attend
+     * @param to last date the patient can attend
+     */
+    public WaitlistEntry(String patientIdentifier, String doctorIdentifier, LocalDate from, LocalDate to) {
+        this.patientIdentifier = patientIdentifier;
+        this.doctorIdentifier = doctorIdentifier;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * get method for patientIdentifier
+     * @return the patientIdentifier
+     */
+    public String getPatientIdentifier() {
+        return patientIdentifier;
+    }
+
+    /**
+     * get method for doctorIdentifier
+     * @return the doctorIdentifier
+     */
+    public String getDoctorIdentifier() {
+        return doctorIdentifier;
+    }
+
+    /**
+     * check if a time slot falls in the date range of the entry
+     * @param slot the time slot
+     * @return true if the patient can attend on the date of the slot
+     */
+    public boolean matches(TimeSlot slot) {
+        LocalDate date = slot.getDate();
+        return !date.isBefore(from) && !date.isAfter(to);
+    }
+
+    /**
+     * method for a representation of the entry
+     * @return the doctor and date range
+     */
+    @Override
+    public String toString() {
+        return "Doctor Identifier: " + doctorIdentifier + ", From: " + from + ", To: " + to;
+    }
+}
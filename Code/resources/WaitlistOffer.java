@@ -0,0 +1,83 @@
+package resources;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * WaitlistOffer class, a freed slot held for one waitlisted patient until they answer or the hold runs out
+ */
+public class WaitlistOffer {
+
+    private final String patientIdentifier;
+    private final String doctorIdentifier;
+    private final TimeSlot timeSlot;
+    private final long expiresMinute;           /**< minute the hold runs out, in the encoding of TimeSlot */
+    private final Set<String> offeredPatients;  /**< patients this slot has been offered to, including this one */
+
+    /**
+     * Constructor for WaitlistOffer
+     * @param patientIdentifier the patient the slot is offered to
+     * @param doctorIdentifier the doctor of the slot
+     * @param timeSlot the slot held
+     * @param expiresMinute minute the hold runs out
+     * @param offeredPatients patients the slot was offered to before, the new patient is added
+     */
+    public WaitlistOffer(String patientIdentifier, String doctorIdentifier, TimeSlot timeSlot, long expiresMinute, Set<String> offeredPatients) {
+        this.patientIdentifier = patientIdentifier;
+        this.doctorIdentifier = doctorIdentifier;
+        this.timeSlot = timeSlot;
+        this.expiresMinute = expiresMinute;
+        this.offeredPatients = new HashSet<>(offeredPatients);
+        this.offeredPatients.add(patientIdentifier);
+    }
+
+    /**
+     * get method for patientIdentifier
+     * @return the patientIdentifier
+     */
+    public String getPatientIdentifier() {
+        return patientIdentifier;
+    }
+
+    /**
+     * get method for doctorIdentifier
+     * @return the doctorIdentifier
+     */
+    public String getDoctorIdentifier() {
+        return doctorIdentifier;
+    }
+
+    /**
+     * get method for timeSlot
+     * @return the slot held
+     */
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    /**
+     * get method for expiresMinute
+     * @return minute the hold runs out
+     */
+    public long getExpiresMinute() {
+        return expiresMinute;
+    }
+
+    /**
+     * get method for offeredPatients
+     * @return patients this slot has been offered to
+     */
+    public Set<String> getOfferedPatients() {
+        return offeredPatients;
+    }
+
+    /**
+     * method for a representation of the offer
+     * @return the doctor, slot and when the hold runs out
+     */
+    @Override
+    public String toString() {
+        return "Doctor Identifier: " + doctorIdentifier + ", Time: " + timeSlot
+                + ", Held until: " + TimeSlot.ofEpochMinute(expiresMinute);
+    }
+}
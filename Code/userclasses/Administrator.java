@@ -1,6 +1,6 @@
 package userclasses;
 
-import java.util.List;
+import java.util.Collection;
 
 import handlers.*;
 import interfaces.*;
@@ -59,7 +59,13 @@ public class Administrator extends Staff implements IUser {
                 System.out.println("2. Manage Medicine Stock");
                 System.out.println("3. Approve Replenishments");
                 System.out.println("4. View Appointments Details");
-                System.out.println("5. Log out");
+                System.out.println("5. Verify Audit Trail");
+                System.out.println("6. View Reports");
+                System.out.println("7. View Dashboard");
+                System.out.println("8. Export Users");
+                System.out.println("9. Save Data Files");
+                System.out.println("10. Search Patients");
+                System.out.println("11. Log out");
                 System.out.println("===========================");
         } else {
             System.out.println("Error: Not logged in.");
@@ -91,7 +97,7 @@ public class Administrator extends Staff implements IUser {
      * Output to show appointment details
      */
     public void viewAppointmentDetails() {
-        List<Appointment> appointments = Appointment.getAllAppointments();
+        Collection<Appointment> appointments = EntityStore.getShared().getAppointments().values();
         System.out.println("\n===========================");
         System.out.println("Appointments in the System\n");
         
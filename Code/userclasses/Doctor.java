@@ -1,7 +1,15 @@
 package userclasses;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import resources.*;
 import interfaces.*;
@@ -9,9 +17,12 @@ import interfaces.*;
  * Doctor class, it extends Staff as its a Staff, and implements IUser for the displayMenu abstract method
  */
 public class Doctor extends Staff implements IUser {
-    private List<TimeSlot> availability;
+    public static final int SLOT_MINUTES = 30;  /**< width of an appointment slot */
+
+    private AvailabilityCalendar availability;  /**< free slots, one bitset per day */
     private List<Appointment> appointments;
-    private List<String> assignedPatientIdentifiers = new ArrayList<>();
+    private final Set<String> assignedPatientIdentifiers;     /**< membership, read without locking */
+    private final Queue<String> assignmentOrder;              /**< the same Identifiers in the order they were assigned */
     private IDoctorHandler doctorHandler;
 
     /**
@@ -26,17 +37,34 @@ public class Doctor extends Staff implements IUser {
      */
     public Doctor(String userId, String password, String name, String gender, String role, int age, IDoctorHandler doctorHandler) {
         super(userId, password, name, gender, role, age);
-        this.availability = new ArrayList<>();
+        this.availability = new AvailabilityCalendar(SLOT_MINUTES);
         this.appointments = new ArrayList<>();
-        this.assignedPatientIdentifiers = new ArrayList<>();
+        this.assignedPatientIdentifiers = ConcurrentHashMap.newKeySet();
+        this.assignmentOrder = new ConcurrentLinkedQueue<>();
         this.doctorHandler = doctorHandler; 
     }
 
     /**
      * get method to get availability of doctor
-     * @return a list of available time slots
+     * @return a read only list of available time slots in chronological order
      */
     public List<TimeSlot> getAvailability() {
+        return Collections.unmodifiableList(availability.getSlots());
+    }
+
+    /**
+     * get method to get availability of doctor with the places each slot has left
+     * @return the free slots in chronological order, sessions show their places left
+     */
+    public List<SlotCapacity> getOpenSlots() {
+        return Collections.unmodifiableList(availability.getOpenSlots());
+    }
+
+    /**
+     * get method to get the availability calendar of doctor
+     * @return the calendar holding the doctor's free slots
+     */
+    public AvailabilityCalendar getAvailabilityCalendar() {
         return availability;
     }
 
@@ -52,10 +80,27 @@ public class Doctor extends Staff implements IUser {
      * get method to get a list of assigned patient to the doctor
      * this is mainly used to ensure that doctors do not make any unauthorized actions
      * e.g. if the patient is not theirs, they cant just simply update a patient information
-     * @return a list of patient that is assigned to the doctor
+     * @return a read only snapshot of the patients assigned to the doctor, in the order they were assigned
      */
     public List<String> getAssignedPatientIdentifiers() {
-        return assignedPatientIdentifiers;
+        return Collections.unmodifiableList(new ArrayList<>(assignmentOrder));
+    }
+
+    /**
+     * check if a patient is assigned to the doctor, without copying the assignments
+     * @param patientIdentifier the Identifier of the patient
+     * @return true if the patient is under the doctor's care
+     */
+    public boolean isAssignedPatient(String patientIdentifier) {
+        return patientIdentifier != null && assignedPatientIdentifiers.contains(patientIdentifier);
+    }
+
+    /**
+     * get method for the number of patients assigned to the doctor
+     * @return the number of assigned patients
+     */
+    public int getAssignedPatientCount() {
+        return assignedPatientIdentifiers.size();
     }
 
     /**
@@ -86,20 +131,67 @@ public class Doctor extends Staff implements IUser {
     /**
      * adds a new timeslot for the doctor's schedule
      * @param newSlot the time to be added into the doctor's schedule
+     * @return true if the slot was added
      */
-    public void addAvailability(TimeSlot newSlot) {
-        boolean alreadyExists = false;
-        for (TimeSlot slot : availability) {
-            if (slot.isSameTimeSlot(newSlot)) {
-                alreadyExists = true;
-                break;
-            }
+    public boolean addAvailability(TimeSlot newSlot) {
+        if (!availability.isAligned(newSlot)) {
+            System.out.println("Error: Time slot must start on a " + SLOT_MINUTES + "-minute boundary.");
+            return false;
         }
-        if (!alreadyExists) {
-            availability.add(newSlot);
-        } else {
+        if (!availability.add(newSlot)) {
             System.out.println("Error: Time slot already taken.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * adds a session that takes several patients, e.g. a vaccination block
+     * @param slot the time of the session
+     * @param capacity the number of patients the session takes
+     * @return true if the session was added
+     */
+    public boolean addCapacitySlot(TimeSlot slot, int capacity) {
+        if (!availability.isAligned(slot)) {
+            System.out.println("Error: Time slot must start on a " + SLOT_MINUTES + "-minute boundary.");
+            return false;
+        }
+        if (capacity <= 0) {
+            System.out.println("Error: Capacity must be at least 1.");
+            return false;
         }
+        if (capacity == 1) {
+            return addAvailability(slot);
+        }
+        if (!availability.openSession(slot, capacity)) {
+            System.out.println("Error: Time slot is already a session.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * publishes a recurring set of slots, e.g. weekdays 09:00 to 17:00 for the next 90 days
+     * @param from first date, inclusive
+     * @param to last date, inclusive
+     * @param daysOfWeek the days of the week to publish
+     * @param start start of the working hours
+     * @param end end of the working hours, exclusive
+     * @return the number of new slots published
+     */
+    public int publishAvailability(LocalDate from, LocalDate to, Set<DayOfWeek> daysOfWeek, LocalTime start, LocalTime end) {
+        return availability.publish(from, to, daysOfWeek, start, end);
+    }
+
+    /**
+     * finds the earliest run of consecutive free slots on a single day
+     * @param from first date to search, inclusive
+     * @param to last date to search, inclusive
+     * @param slotCount number of consecutive slots needed
+     * @return the first slot of the run, or null if there is none
+     */
+    public TimeSlot findAvailableGap(LocalDate from, LocalDate to, int slotCount) {
+        return availability.findGap(from, to, slotCount);
     }
     
     /**
@@ -107,20 +199,27 @@ public class Doctor extends Staff implements IUser {
      * @param slot the timeslot to be removed
      */
     public void removeAvailability(TimeSlot slot) {
-        if (availability.remove(slot)) {
-            //System.out.println("Time slot removed from availability: " + slot);
-        } else {
+        if (!availability.remove(slot)) {
             System.out.println("Error: Time slot not found.");
         }
     }
     
+    /**
+     * takes a timeslot, or one place of a session, if it is still free
+     * @param slot the timeslot to be taken
+     * @return true if the slot was free and is now taken
+     */
+    public boolean reserveSlot(TimeSlot slot) {
+        return availability.remove(slot);
+    }
+
     /**
      * check if a timeslot is available 
      * @param timeSlot the timeslot to be checked
      * @return a boolean indiciating if the timeslot is available or not
      */
     public boolean isAvailable(TimeSlot timeSlot) {
-        return availability.contains(timeSlot);
+        return availability.isFree(timeSlot);
     }
     
 
@@ -131,7 +230,7 @@ public class Doctor extends Staff implements IUser {
         boolean hasUpcomingAppointments = false;
     
         for (Appointment appointment : appointments) {
-            if (appointment.isUpcoming() && "Confirmed".equals(appointment.getStatus())) {
+            if (appointment.isUpcoming() && appointment.getStatus() == AppointmentStatus.CONFIRMED) {
                 System.out.println(appointment);
                 hasUpcomingAppointments = true;
             }
@@ -144,12 +243,16 @@ public class Doctor extends Staff implements IUser {
 
     /**
      * adds a patient into the doctor's assigned list
+     * use IDoctorHandler.addToCareTeam instead, so the patient's care team follows
      * @param patientIdentifier the patient to be added into the doctor assignment
+     * @return true if the patient was not already assigned
      */
-    public void addAssignedPatientIdentifier(String patientIdentifier) {
-        if (!assignedPatientIdentifiers.contains(patientIdentifier)) {
-            assignedPatientIdentifiers.add(patientIdentifier);
+    public synchronized boolean addAssignedPatientIdentifier(String patientIdentifier) {
+        if (!assignedPatientIdentifiers.add(patientIdentifier)) {
+            return false;
         }
+        assignmentOrder.add(patientIdentifier);
+        return true;
     }
     
     /**
@@ -166,7 +269,9 @@ public class Doctor extends Staff implements IUser {
             System.out.println("5. Accept or Decline Appointment ");
             System.out.println("6. View Upcoming Appointments");
             System.out.println("7. Record Appointment Outcome");
-            System.out.println("8. Logout");
+            System.out.println("8. Search Patients");
+            System.out.println("9. Search Notes");
+            System.out.println("10. Logout");
         } else {
             System.out.println("Error: Not logged in");
         }
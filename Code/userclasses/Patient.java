@@ -175,9 +175,10 @@ public class Patient extends User implements IUser {
      * Method to schedule appointment with a doctor and timeslot
      * @param doctor the doctor to schedule appointment with
      * @param timeSlot the timeslot
+     * @return true if the appointment was booked
      */
-    public void scheduleAppointment(Doctor doctor, TimeSlot timeSlot) {
-        appointmentHandler.scheduleAppointment(this, doctor, timeSlot);
+    public boolean scheduleAppointment(Doctor doctor, TimeSlot timeSlot) {
+        return appointmentHandler.scheduleAppointment(this, doctor, timeSlot);
     }
 
     /**
@@ -227,7 +228,8 @@ public class Patient extends User implements IUser {
             System.out.println("6. Cancel an Appointment");
             System.out.println("7. View Scheduled Appointments");
             System.out.println("8. View Past Appointment Outcome Records");
-            System.out.println("9. Logout");
+            System.out.println("9. Waitlist");
+            System.out.println("10. Logout");
         } else {
             System.out.println("Error: Not logged in.");
         }
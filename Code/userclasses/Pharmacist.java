@@ -2,6 +2,7 @@ package userclasses;
 
 import interfaces.*;
 import handlers.*;
+import resources.Prescription;
 /**
  * Pharmacist class, which is a subclass of Staff, and implements the abstract methods of IUser
  */
@@ -66,6 +67,28 @@ public class Pharmacist extends Staff implements IUser {
         pharmacistHandler.updatePrescriptionStatus(prescriptionIdentifier);
     }
 
+    /**
+     * Claims the oldest pending prescription from the work queue
+     * @return the claimed prescription, or null if none is waiting
+     */
+    public Prescription claimNextPrescription() {
+        return pharmacistHandler.claimNextPrescription(getUserId());
+    }
+
+    /**
+     * Dispenses the prescription this pharmacist has claimed
+     */
+    public void dispenseClaimedPrescription() {
+        pharmacistHandler.dispenseClaimedPrescription(getUserId());
+    }
+
+    /**
+     * Returns the prescription this pharmacist has claimed to the work queue
+     */
+    public void releaseClaimedPrescription() {
+        pharmacistHandler.releaseClaimedPrescription(getUserId());
+    }
+
     /**
      * Submits a replenishment request for a specified medicine and its amount
      * @param medicineName the medicine name
@@ -97,7 +120,7 @@ public class Pharmacist extends Staff implements IUser {
             System.out.println("\n===========================");
             System.out.println("1. View Prescription Records");
             System.out.println("2. View Pending Prescription Records");
-            System.out.println("3. Update Prescription Status");
+            System.out.println("3. Dispense Next Prescription");
             System.out.println("4. View Inventory");
             System.out.println("5. Submit Replenishment Request");
             System.out.println("6. View Replenishment Requests");
@@ -1,8 +1,5 @@
 package userclasses;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Staff Class
  */
@@ -21,12 +18,10 @@ public abstract class Staff extends User {
 		super(userId, password, name, gender);  
         this.role = role;
         this.age = age;
-        staffList.add(this);
     }
 	
 	private String role;
 	private int age;
-    private static List<Staff> staffList = new ArrayList<>();
 
 
     /**
@@ -61,14 +56,6 @@ public abstract class Staff extends User {
         this.age = age;
     }
 
-    /**
-     * Get method to get list of all staff members.
-     * @return list of all staff members
-     */
-    public static List<Staff> getAllStaff() {
-        return staffList;
-    }
-
     /**
      * Abstract class for subclasses to implement their own displayMenu
      */
@@ -11,6 +11,7 @@ public abstract class User {
     private String gender;
     private boolean isLogged;
     private boolean firstLogin = true;
+    private long grantedPermissions;     /**< permission bits cached for the current session, 0 outside one */
 
     /**
      * Constructor for User Class
@@ -97,6 +98,22 @@ public abstract class User {
         this.firstLogin = firstLogin;
     }
 
+    /**
+     * Get method to get the permissions cached for the user's session
+     * @return the permission bits, 0 outside a session
+     */
+    public long getGrantedPermissions() {
+        return grantedPermissions;
+    }
+
+    /**
+     * Set method to cache the user's permissions for a session, used by the access control handler
+     * @param grantedPermissions the permission bits
+     */
+    public void setGrantedPermissions(long grantedPermissions) {
+        this.grantedPermissions = grantedPermissions;
+    }
+
     /**
      * Get method to check user first login or not
      * @return if first login true otherwise false